@@ -16,7 +16,9 @@
 
 package org.lendingclub.http.breeze.client;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
@@ -69,6 +71,21 @@ public interface BreezeHttpClient {
     /** Invoke PATCH with given payload, returning object of the given generic type. InputStream payloads are streamed. */
     <T> T patch(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) throws BreezeHttpException;
 
+    /** Invoke DELETE request. */
+    void delete(BreezeHttpRequest request) throws BreezeHttpException;
+
+    /** Invoke DELETE request, returning object of given response class. */
+    <T> T delete(BreezeHttpRequest request, Class<T> responseClass) throws BreezeHttpException;
+
+    /** Invoke DELETE request, returning object of the given generic type. */
+    <T> T delete(BreezeHttpRequest request, BreezeHttpType<T> responseType) throws BreezeHttpException;
+
+    /** Invoke HEAD request, returning the status code and headers; there is no body to download or convert. */
+    BreezeHttpResponse<Void> head(BreezeHttpRequest request) throws BreezeHttpException;
+
+    /** Invoke OPTIONS request, returning the status code and headers, such as Allow. */
+    BreezeHttpResponse<Void> options(BreezeHttpRequest request) throws BreezeHttpException;
+
     /** Execute an HTTP request based on its method, returning a full response of the given response class. */
     <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, Class<T> responseClass, Object payload)
             throws BreezeHttpException;
@@ -77,6 +94,82 @@ public interface BreezeHttpClient {
     <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload)
             throws BreezeHttpException;
 
+    /**
+     * Execute an HTTP request based on its method without reading the response
+     * body, which is returned as an InputStream. The caller must close the
+     * response. Error responses throw, as with execute.
+     */
+    BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload) throws BreezeHttpException;
+
+    /**
+     * Execute an HTTP request based on its method without reading the response
+     * body, and pass the response to the handler; the response is closed once
+     * the handler returns.
+     */
+    <T> T executeStreaming(BreezeHttpRequest request, Object payload, BreezeHttpStreamingResponse.Handler<T> handler)
+            throws BreezeHttpException;
+
+    /**
+     * GET the response body into the target file, replacing it if it exists,
+     * without holding the body in memory; the response entity is the target.
+     */
+    BreezeHttpResponse<Path> download(BreezeHttpRequest request, Path target) throws BreezeHttpException;
+
+    /**
+     * Execute an HTTP request asynchronously based on its method. The returned
+     * future completes with a full response of the given response class, or
+     * exceptionally with a BreezeHttpException.
+     */
+    <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            Class<T> responseClass,
+            Object payload
+    );
+
+    /**
+     * Execute an HTTP request asynchronously based on its method. The returned
+     * future completes with a full response of the given response type, or
+     * exceptionally with a BreezeHttpException.
+     */
+    <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> responseType,
+            Object payload
+    );
+
+    /** Invoke GET request asynchronously, completing with object of given response class. */
+    <T> CompletableFuture<T> getAsync(BreezeHttpRequest request, Class<T> responseClass);
+
+    /** Invoke GET request asynchronously, completing with object of the given generic type. */
+    <T> CompletableFuture<T> getAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType);
+
+    /** Invoke POST asynchronously with given payload, completing with object of given response class. */
+    <T> CompletableFuture<T> postAsync(BreezeHttpRequest request, Class<T> responseClass, Object payload);
+
+    /** Invoke POST asynchronously with given payload, completing with object of the given generic type. */
+    <T> CompletableFuture<T> postAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload);
+
+    /** Invoke PUT asynchronously with given payload, completing with object of given response class. */
+    <T> CompletableFuture<T> putAsync(BreezeHttpRequest request, Class<T> responseClass, Object payload);
+
+    /** Invoke PUT asynchronously with given payload, completing with object of the given generic type. */
+    <T> CompletableFuture<T> putAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload);
+
+    /** Invoke PATCH asynchronously with given payload, completing with object of given response class. */
+    <T> CompletableFuture<T> patchAsync(BreezeHttpRequest request, Class<T> responseClass, Object payload);
+
+    /** Invoke PATCH asynchronously with given payload, completing with object of the given generic type. */
+    <T> CompletableFuture<T> patchAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload);
+
+    /** Invoke DELETE asynchronously, completing with object of given response class. */
+    <T> CompletableFuture<T> deleteAsync(BreezeHttpRequest request, Class<T> responseClass);
+
+    /** Invoke DELETE asynchronously, completing with object of the given generic type. */
+    <T> CompletableFuture<T> deleteAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType);
+
+    /** Invoke HEAD asynchronously, completing with the status code and headers. */
+    CompletableFuture<BreezeHttpResponse<Void>> headAsync(BreezeHttpRequest request);
+
     /** Get the request filters configured for this client. */
     List<BreezeHttpRequestFilter> getRequestFilters();
 
@@ -16,10 +16,13 @@
 
 package org.lendingclub.http.breeze.client;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
@@ -37,6 +40,11 @@ import org.lendingclub.http.breeze.client.payload.builder.MapPayloadBuilderReque
  * get/put/post/etc methods will invoke finalizeRequest and then delegate
  * the call to the underlying client.
  *
+ * Variables and headers are stored in small array maps allocated on first
+ * use, and header names match ignoring case. The maps returned by the
+ * getters are read only; the copy constructor shares them with the original
+ * until either request changes, so copies are cheap.
+ *
  * @author Raul Acevedo
  */
 public class BreezeHttpRequest {
@@ -44,12 +52,14 @@ public class BreezeHttpRequest {
         GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE
     }
 
+    private static final BreezeHttpRequestFilter[] NO_FILTERS = new BreezeHttpRequestFilter[0];
+
     private final BreezeHttpClient client;
-    private final List<BreezeHttpRequestFilter> filters = new ArrayList<>();
-    private final Map<String, Object> pathVariables = new HashMap<>();
-    private final Map<String, List<Object>> queryVariables = new HashMap<>();
-    private final Map<String, List<String>> headers = new HashMap<>();
-    private final Map<String, String> headerLoggableValues = new HashMap<>();
+    private final BreezeHttpRequestFilter[] filters;
+    private RequestValues<Object> pathVariables = null;
+    private RequestValues<List<Object>> queryVariables = null;
+    private RequestValues<List<String>> headers = null;
+    private RequestValues<String> headerLoggableValues = null;
     private String rootUrl = null;
     private String remoteService = null;
     private String requestName = null;
@@ -87,9 +97,13 @@ public class BreezeHttpRequest {
         this.remoteService = remoteService;
         this.client = client;
 
-        if (filters != null && !filters.isEmpty()) {
-            this.filters.addAll(filters);
-            this.filters.forEach((filter) -> filter.prepareRequest(this));
+        if (filters == null || filters.isEmpty()) {
+            this.filters = NO_FILTERS;
+        } else {
+            this.filters = filters.toArray(NO_FILTERS);
+            for (BreezeHttpRequestFilter filter : this.filters) {
+                filter.prepareRequest(this);
+            }
         }
     }
 
@@ -97,11 +111,11 @@ public class BreezeHttpRequest {
     public BreezeHttpRequest(BreezeHttpRequest request) {
         this.rootUrl = request.rootUrl;
         this.client = request.client;
-        this.filters.addAll(request.filters);
-        this.pathVariables.putAll(request.pathVariables);
-        this.queryVariables.putAll(request.queryVariables);
-        this.headers.putAll(request.headers);
-        this.headerLoggableValues.putAll(request.headerLoggableValues);
+        this.filters = request.filters;
+        this.pathVariables = copy(request.pathVariables);
+        this.queryVariables = copy(request.queryVariables);
+        this.headers = copy(request.headers);
+        this.headerLoggableValues = copy(request.headerLoggableValues);
         this.path = request.path;
         this.remoteService = request.remoteService;
         this.requestName = request.requestName;
@@ -135,9 +149,14 @@ public class BreezeHttpRequest {
     /** Set a path variable; a null value removes the prior mapping. */
     public BreezeHttpRequest pathVariable(String name, Object value) {
         if (value == null) {
-            pathVariables.remove(name);
+            if (pathVariables != null) {
+                pathVariables.delete(name);
+            }
         } else {
-            pathVariables.put(name, value);
+            if (pathVariables == null) {
+                pathVariables = new RequestValues<>(false);
+            }
+            pathVariables.set(name, value);
         }
         return this;
     }
@@ -145,14 +164,14 @@ public class BreezeHttpRequest {
     /** Set a query string variable; a null value removes the prior mapping. */
     public BreezeHttpRequest queryVariable(String name, Object value) {
         if (value == null) {
-            queryVariables.remove(name);
+            if (queryVariables != null) {
+                queryVariables.delete(name);
+            }
         } else {
-            List<Object> values = queryVariables.get(name);
-            if (values == null) {
-                values = new ArrayList<>();
-                queryVariables.put(name, values);
+            if (queryVariables == null) {
+                queryVariables = new RequestValues<>(false);
             }
-            values.add(value);
+            queryVariables.set(name, append(queryVariables.get(name), value));
         }
         return this;
     }
@@ -192,25 +211,46 @@ public class BreezeHttpRequest {
      */
     public BreezeHttpRequest header(String name, String value, String loggableValue) {
         if (value == null) {
-            headers.remove(name);
-            headerLoggableValues.remove(name);
+            if (headers != null) {
+                headers.delete(name);
+            }
+            if (headerLoggableValues != null) {
+                headerLoggableValues.delete(name);
+            }
             return this;
         }
 
-        List<String> values = headers.get(name);
-        if (values == null) {
-            values = new ArrayList<>();
-            headers.put(name, values);
+        if (headers == null) {
+            headers = new RequestValues<>(true);
         }
-        values.add(value);
+        headers.set(name, append(headers.get(name), value));
 
         if (loggableValue != null) {
-            headerLoggableValues.put(name, value);
+            if (headerLoggableValues == null) {
+                headerLoggableValues = new RequestValues<>(true);
+            }
+            headerLoggableValues.set(name, loggableValue);
         }
 
         return this;
     }
 
+    /**
+     * Send the payload as, and ask for the response in, the given media type,
+     * replacing any Content-Type and Accept headers; the client needs a codec
+     * for it, see BreezeHttpCodec.
+     */
+    public BreezeHttpRequest mediaType(String mediaType) {
+        header("Content-Type", null);
+        header("Accept", null);
+        return header("Content-Type", mediaType, true).header("Accept", mediaType, true);
+    }
+
+    /** Capture this request as a template for repeated calls; see BreezeHttpRequestTemplate. */
+    public BreezeHttpRequestTemplate template() {
+        return new BreezeHttpRequestTemplate(this);
+    }
+
     public BreezeHttpRequest method(Method method) {
         this.method = method;
         return this;
@@ -258,16 +298,19 @@ public class BreezeHttpRequest {
         return path;
     }
 
+    /** Read only view of the path variables. */
     public Map<String, Object> getPathVariables() {
-        return pathVariables;
+        return view(pathVariables);
     }
 
+    /** Read only view of the query string variables. */
     public Map<String, List<Object>> getQueryVariables() {
-        return queryVariables;
+        return view(queryVariables);
     }
 
+    /** Read only view of the headers; names match ignoring case. */
     public Map<String, List<String>> getHeaders() {
-        return headers;
+        return view(headers);
     }
 
     public Method getMethod() {
@@ -326,6 +369,26 @@ public class BreezeHttpRequest {
         return method(Method.PATCH).finalizeRequest().client.patch(this, genericType, payload);
     }
 
+    public void delete() throws BreezeHttpException {
+        method(Method.DELETE).finalizeRequest().client.delete(this);
+    }
+
+    public <T> T delete(Class<T> responseType) throws BreezeHttpException {
+        return method(Method.DELETE).finalizeRequest().client.delete(this, responseType);
+    }
+
+    public <T> T delete(BreezeHttpType<T> genericType) throws BreezeHttpException {
+        return method(Method.DELETE).finalizeRequest().client.delete(this, genericType);
+    }
+
+    public BreezeHttpResponse<Void> head() throws BreezeHttpException {
+        return method(Method.HEAD).finalizeRequest().client.head(this);
+    }
+
+    public BreezeHttpResponse<Void> options() throws BreezeHttpException {
+        return method(Method.OPTIONS).finalizeRequest().client.options(this);
+    }
+
     public <T> BreezeHttpResponse<T> execute(Class<T> responseClass, Object payload) throws BreezeHttpException {
         return execute(new BreezeHttpType<>(responseClass), payload);
     }
@@ -334,11 +397,108 @@ public class BreezeHttpRequest {
         return finalizeRequest().client.execute(this, responseType, payload);
     }
 
+    /** GET without reading the response body; the caller must close the response. */
+    public BreezeHttpStreamingResponse getStreaming() throws BreezeHttpException {
+        return method(Method.GET).executeStreaming(null);
+    }
+
+    /** GET without reading the response body, passing the response to the handler and then closing it. */
+    public <T> T getStreaming(BreezeHttpStreamingResponse.Handler<T> handler) throws BreezeHttpException {
+        return method(Method.GET).executeStreaming(null, handler);
+    }
+
+    /** GET the response body into the target file, without holding it in memory. */
+    public BreezeHttpResponse<Path> download(Path target) throws BreezeHttpException {
+        return finalizeRequest().client.download(this, target);
+    }
+
+    public BreezeHttpStreamingResponse executeStreaming(Object payload) throws BreezeHttpException {
+        return finalizeRequest().client.executeStreaming(this, payload);
+    }
+
+    public <T> T executeStreaming(Object payload, BreezeHttpStreamingResponse.Handler<T> handler)
+            throws BreezeHttpException {
+        return finalizeRequest().client.executeStreaming(this, payload, handler);
+    }
+
+    public <T> CompletableFuture<T> getAsync(Class<T> responseType) {
+        return method(Method.GET).finalizeRequest().client.getAsync(this, responseType);
+    }
+
+    public <T> CompletableFuture<T> getAsync(BreezeHttpType<T> genericType) {
+        return method(Method.GET).finalizeRequest().client.getAsync(this, genericType);
+    }
+
+    public <T> CompletableFuture<T> postAsync(Class<T> responseType, Object payload) {
+        return method(Method.POST).finalizeRequest().client.postAsync(this, responseType, payload);
+    }
+
+    public <T> CompletableFuture<T> postAsync(BreezeHttpType<T> genericType, Object payload) {
+        return method(Method.POST).finalizeRequest().client.postAsync(this, genericType, payload);
+    }
+
+    public <T> CompletableFuture<T> putAsync(Class<T> responseType, Object payload) {
+        return method(Method.PUT).finalizeRequest().client.putAsync(this, responseType, payload);
+    }
+
+    public <T> CompletableFuture<T> putAsync(BreezeHttpType<T> genericType, Object payload) {
+        return method(Method.PUT).finalizeRequest().client.putAsync(this, genericType, payload);
+    }
+
+    public <T> CompletableFuture<T> patchAsync(Class<T> responseType, Object payload) {
+        return method(Method.PATCH).finalizeRequest().client.patchAsync(this, responseType, payload);
+    }
+
+    public <T> CompletableFuture<T> patchAsync(BreezeHttpType<T> genericType, Object payload) {
+        return method(Method.PATCH).finalizeRequest().client.patchAsync(this, genericType, payload);
+    }
+
+    public <T> CompletableFuture<T> deleteAsync(Class<T> responseType) {
+        return method(Method.DELETE).finalizeRequest().client.deleteAsync(this, responseType);
+    }
+
+    public <T> CompletableFuture<T> deleteAsync(BreezeHttpType<T> genericType) {
+        return method(Method.DELETE).finalizeRequest().client.deleteAsync(this, genericType);
+    }
+
+    public CompletableFuture<BreezeHttpResponse<Void>> headAsync() {
+        return method(Method.HEAD).finalizeRequest().client.headAsync(this);
+    }
+
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(Class<T> responseClass, Object payload) {
+        return executeAsync(new BreezeHttpType<>(responseClass), payload);
+    }
+
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(BreezeHttpType<T> responseType, Object payload) {
+        return finalizeRequest().client.executeAsync(this, responseType, payload);
+    }
+
     private BreezeHttpRequest finalizeRequest() {
-        filters.forEach((filter) -> filter.finalizeRequest(this));
+        for (BreezeHttpRequestFilter filter : filters) {
+            filter.finalizeRequest(this);
+        }
         return this;
     }
 
+    private static <V> RequestValues<V> copy(RequestValues<V> values) {
+        return values == null ? null : values.copy();
+    }
+
+    private static <V> Map<String, V> view(RequestValues<V> values) {
+        return values == null ? Collections.emptyMap() : values;
+    }
+
+    /** Values lists are never changed in place, since copies of this request may share them. */
+    private static <T> List<T> append(List<T> values, T value) {
+        if (values == null) {
+            return Collections.singletonList(value);
+        }
+        List<T> appended = new ArrayList<>(values.size() + 1);
+        appended.addAll(values);
+        appended.add(value);
+        return Collections.unmodifiableList(appended);
+    }
+
     @Override
     @SuppressWarnings("checkstyle:all")
     public boolean equals(Object o) {
@@ -354,19 +514,19 @@ public class BreezeHttpRequest {
         if (client != null ? !client.equals(that.client) : that.client != null) {
             return false;
         }
-        if (filters != null ? !filters.equals(that.filters) : that.filters != null) {
+        if (!Arrays.equals(filters, that.filters)) {
             return false;
         }
-        if (pathVariables != null ? !pathVariables.equals(that.pathVariables) : that.pathVariables != null) {
+        if (!view(pathVariables).equals(view(that.pathVariables))) {
             return false;
         }
-        if (queryVariables != null ? !queryVariables.equals(that.queryVariables) : that.queryVariables != null) {
+        if (!view(queryVariables).equals(view(that.queryVariables))) {
             return false;
         }
-        if (headers != null ? !headers.equals(that.headers) : that.headers != null) {
+        if (!view(headers).equals(view(that.headers))) {
             return false;
         }
-        if (headerLoggableValues != null ? !headerLoggableValues.equals(that.headerLoggableValues) : that.headerLoggableValues != null) {
+        if (!view(headerLoggableValues).equals(view(that.headerLoggableValues))) {
             return false;
         }
         if (rootUrl != null ? !rootUrl.equals(that.rootUrl) : that.rootUrl != null) {
@@ -387,11 +547,11 @@ public class BreezeHttpRequest {
     @Override
     public int hashCode() {
         int result = client != null ? client.hashCode() : 0;
-        result = 31 * result + (filters != null ? filters.hashCode() : 0);
-        result = 31 * result + (pathVariables != null ? pathVariables.hashCode() : 0);
-        result = 31 * result + (queryVariables != null ? queryVariables.hashCode() : 0);
-        result = 31 * result + (headers != null ? headers.hashCode() : 0);
-        result = 31 * result + (headerLoggableValues != null ? headerLoggableValues.hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(filters);
+        result = 31 * result + view(pathVariables).hashCode();
+        result = 31 * result + view(queryVariables).hashCode();
+        result = 31 * result + view(headers).hashCode();
+        result = 31 * result + view(headerLoggableValues).hashCode();
         result = 31 * result + (rootUrl != null ? rootUrl.hashCode() : 0);
         result = 31 * result + (path != null ? path.hashCode() : 0);
         result = 31 * result + (method != null ? method.hashCode() : 0);
@@ -409,15 +569,16 @@ public class BreezeHttpRequest {
                 + ", requestName=" + requestName
                 + ", method=" + method
                 + ", path=" + path
-                + ", queryVariables=" + queryVariables.keySet()
+                + ", queryVariables=" + view(queryVariables).keySet()
                 + ", headers:");
 
-        if (headers.isEmpty()) {
+        if (view(headers).isEmpty()) {
             b.append(" none");
         } else {
+            Map<String, String> loggableValues = view(headerLoggableValues);
             headers.keySet().forEach((header) -> {
                 b.append(" ").append(header);
-                String loggableValue = headerLoggableValues.get(header);
+                String loggableValue = loggableValues.get(header);
                 if (loggableValue != null) {
                     b.append("=\"").append(loggableValue).append("\"");
                 }
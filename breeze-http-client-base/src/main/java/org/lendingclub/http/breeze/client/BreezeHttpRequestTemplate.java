@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client;
+
+/**
+ * Immutable starting point for repeated requests to the same endpoint. It
+ * captures everything that doesn't change between calls: root URL, remote
+ * service, name, path template, static headers and whatever the filters'
+ * prepareRequest methods added, which run only once, when the request the
+ * template is made from is created.
+ *
+ * Each call to request() returns a copy that shares the template's state
+ * until variables are bound, so per call only the variables, the payload and
+ * the filters' finalizeRequest methods cost anything:
+ *
+ * <pre>
+ * BreezeHttpRequestTemplate getItem = client.request(rootUrl)
+ *         .remoteService("items")
+ *         .name("getItem")
+ *         .path("/items/{id}")
+ *         .template();
+ *
+ * Item item = getItem.request().pathVariable("id", 42).get(Item.class);
+ * </pre>
+ *
+ * Templates can be shared between threads.
+ *
+ * @author Raul Acevedo
+ */
+public final class BreezeHttpRequestTemplate {
+    private final BreezeHttpRequest prototype;
+
+    /** Create a template from a copy of the request; later changes to the request don't affect it. */
+    public BreezeHttpRequestTemplate(BreezeHttpRequest request) {
+        this.prototype = new BreezeHttpRequest(request);
+    }
+
+    /** Return a new request to bind variables and execute. */
+    public BreezeHttpRequest request() {
+        return new BreezeHttpRequest(prototype);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" + prototype + "}";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+
+/**
+ * Response whose body has not been read: the entity is an InputStream over
+ * the connection, so large downloads can be copied or parsed in constant
+ * memory. The response must be closed to release the connection, whether or
+ * not the body was read to the end.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpStreamingResponse extends BreezeHttpResponse<InputStream> implements Closeable {
+    /** Reads a streaming response, which is closed once the handler returns. */
+    @FunctionalInterface
+    public interface Handler<T> {
+        T handle(BreezeHttpStreamingResponse response) throws IOException;
+    }
+
+    private final Closeable connection;
+    private boolean closed = false;
+
+    /**
+     * @param body response body stream
+     * @param httpStatusCode HTTP status code
+     * @param headers response headers
+     * @param connection closed along with the body, to release the underlying connection
+     */
+    public BreezeHttpStreamingResponse(
+            InputStream body,
+            int httpStatusCode,
+            Map<String, List<String>> headers,
+            Closeable connection
+    ) {
+        super(body, httpStatusCode, headers);
+        this.connection = connection;
+    }
+
+    /** Close the body and release the connection; safe to call more than once. */
+    @Override
+    public synchronized void close() throws BreezeHttpException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            try {
+                getEntity().close();
+            } finally {
+                connection.close();
+            }
+        } catch (IOException e) {
+            throw new BreezeHttpException("error closing response", e);
+        }
+    }
+}
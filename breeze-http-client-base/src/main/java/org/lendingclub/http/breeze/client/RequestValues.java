@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read only map of request variables or headers, kept as flat arrays of keys
+ * and values and searched linearly, since a request rarely has more than a
+ * handful of either. Header maps match keys ignoring case, keeping the case
+ * the key was first set with; equals and hashCode ignore key case too, so a
+ * header map only equals another header map, or any empty map.
+ * <p>
+ * A copy shares the arrays with the original until either one changes, so
+ * copying a request for every retry attempt costs almost nothing.
+ *
+ * @author Raul Acevedo
+ */
+final class RequestValues<V> extends AbstractMap<String, V> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final boolean ignoreCase;
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    private boolean shared;
+
+    RequestValues(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.keys = new String[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+    }
+
+    private RequestValues(RequestValues<V> original) {
+        this.ignoreCase = original.ignoreCase;
+        this.keys = original.keys;
+        this.values = original.values;
+        this.size = original.size;
+        this.shared = true;
+        original.shared = true;
+    }
+
+    /** Copy sharing this map's arrays; whichever side changes first copies them. */
+    RequestValues<V> copy() {
+        return new RequestValues<>(this);
+    }
+
+    /** Set the value for the key, replacing any prior value. */
+    void set(String key, V value) {
+        int index = indexOf(key);
+        if (index < 0) {
+            writable(size + 1);
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        } else {
+            writable(size);
+            values[index] = value;
+        }
+    }
+
+    /** Remove the mapping for the key, if any. */
+    void delete(String key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            writable(size);
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            keys[size] = null;
+            values[size] = null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        String[] entryKeys = keys;
+        Object[] entryValues = values;
+        int entryCount = size;
+
+        return new AbstractSet<Map.Entry<String, V>>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new Iterator<Map.Entry<String, V>>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < entryCount;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<String, V> next() {
+                        if (next >= entryCount) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, V> entry = new SimpleImmutableEntry<>(
+                                entryKeys[next],
+                                (V) entryValues[next]
+                        );
+                        next++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entryCount;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof RequestValues && ((RequestValues<?>) o).ignoreCase == ignoreCase) {
+            // Both sides match keys the same way, so looking up each of our keys in the other is symmetric
+            return super.equals(o);
+        }
+        if (ignoreCase || o instanceof RequestValues) {
+            return size == 0 && o instanceof Map && ((Map<?, ?>) o).isEmpty();
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        if (!ignoreCase) {
+            return super.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0; i < size; i++) {
+            hash += keyHashIgnoreCase(keys[i]) ^ Objects.hashCode(values[i]);
+        }
+        return hash;
+    }
+
+    /** Hash folding case the same way String.equalsIgnoreCase compares characters. */
+    private static int keyHashIgnoreCase(String key) {
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+        }
+        return hash;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; i++) {
+            if (ignoreCase ? key instanceof String && keys[i].equalsIgnoreCase((String) key) : keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Make sure the arrays are ours and can hold capacity entries. */
+    private void writable(int capacity) {
+        if (shared || capacity > keys.length) {
+            int length = capacity > keys.length ? keys.length * 2 : keys.length;
+            keys = Arrays.copyOf(keys, length);
+            values = Arrays.copyOf(values, length);
+            shared = false;
+        }
+    }
+}
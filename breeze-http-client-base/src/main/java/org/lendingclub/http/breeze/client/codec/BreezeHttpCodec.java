@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Writes payloads and reads response bodies in one media type, for example
+ * Smile, CBOR or protobuf. Codecs are registered with the client
+ * implementation, which uses one when a request's Content-Type or a
+ * response's Content-Type is its media type; see
+ * BreezeHttpRequest.mediaType().
+ *
+ * @author Raul Acevedo
+ */
+public interface BreezeHttpCodec {
+    /** Media type without parameters, e.g. application/x-jackson-smile. */
+    String getMediaType();
+
+    /** Whether this codec can write and read instances of type. */
+    default boolean supports(Class<?> type) {
+        return true;
+    }
+
+    /** Write value to out, leaving out open. */
+    void write(Object value, OutputStream out) throws IOException;
+
+    /** Read an instance of type from in, leaving in open. */
+    Object read(Type type, InputStream in) throws IOException;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.exception;
+
+/**
+ * The request was rejected locally, for example by a circuit breaker or
+ * concurrency limit, without ever calling the remote service; so it says
+ * nothing about the remote service's health.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpRejectedException extends BreezeHttpException {
+    public static final long serialVersionUID = -1;
+
+    public BreezeHttpRejectedException(String message) {
+        super(message);
+    }
+}
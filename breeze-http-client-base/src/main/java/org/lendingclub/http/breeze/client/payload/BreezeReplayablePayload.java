@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.payload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An InputStream payload that can be sent more than once, so requests with
+ * it can be retried; plain InputStream payloads can only be read once. The
+ * stream is read up front: up to memoryLimit bytes are kept in memory, and
+ * anything larger is spooled to a temporary file, which close() deletes.
+ * Clients send it as a byte array or file payload, with a known length.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeReplayablePayload implements Closeable {
+    public static final int DEFAULT_MEMORY_LIMIT = 1024 * 1024;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] bytes;
+    private final Path file;
+
+    private BreezeReplayablePayload(byte[] bytes, Path file) {
+        this.bytes = bytes;
+        this.file = file;
+    }
+
+    /** Read the stream, keeping up to DEFAULT_MEMORY_LIMIT bytes in memory. Does not close the stream. */
+    public static BreezeReplayablePayload spool(InputStream in) throws IOException {
+        return spool(in, DEFAULT_MEMORY_LIMIT);
+    }
+
+    /** Read the stream, keeping up to memoryLimit bytes in memory. Does not close the stream. */
+    public static BreezeReplayablePayload spool(InputStream in, int memoryLimit) throws IOException {
+        ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(memoryLimit, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read = in.read(buffer);
+        while (read != -1 && memory.size() + read <= memoryLimit) {
+            memory.write(buffer, 0, read);
+            read = in.read(buffer);
+        }
+        if (read == -1) {
+            return new BreezeReplayablePayload(memory.toByteArray(), null);
+        }
+
+        Path file = Files.createTempFile("breeze", ".payload");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            memory.writeTo(out);
+            while (read != -1) {
+                out.write(buffer, 0, read);
+                read = in.read(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new BreezeReplayablePayload(null, file);
+    }
+
+    /** The payload to actually send: a byte array, or the Path of the spool file. */
+    public Object getPayload() {
+        return file == null ? bytes : file;
+    }
+
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    public long length() throws IOException {
+        return file == null ? bytes.length : Files.size(file);
+    }
+
+    /** Open a new stream over the payload, from the beginning. */
+    public InputStream open() throws IOException {
+        return file == null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
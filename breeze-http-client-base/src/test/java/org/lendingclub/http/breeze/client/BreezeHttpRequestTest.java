@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for BreezeHttpRequest variables, headers and copies.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpRequestTest {
+    @Test
+    public void copiesDivergeAfterChanges() {
+        BreezeHttpRequest original = request()
+                .pathVariable("id", 1)
+                .queryVariable("q", "a")
+                .header("X-Test", "a");
+
+        // Changing the copy leaves the original alone
+        BreezeHttpRequest copy = new BreezeHttpRequest(original)
+                .pathVariable("id", 2)
+                .queryVariable("q", "b")
+                .header("X-Test", "b");
+        assertEquals(1, original.getPathVariables().get("id"));
+        assertEquals(Collections.singletonList("a"), original.getQueryVariables().get("q"));
+        assertEquals(Collections.singletonList("a"), original.getHeaders().get("X-Test"));
+        assertEquals(2, copy.getPathVariables().get("id"));
+        assertEquals(Arrays.asList("a", "b"), copy.getQueryVariables().get("q"));
+        assertEquals(Arrays.asList("a", "b"), copy.getHeaders().get("X-Test"));
+
+        // And the other way around
+        BreezeHttpRequest other = new BreezeHttpRequest(original);
+        original.pathVariable("id", null).queryVariable("q", "c").header("X-Other", "c");
+        assertEquals(1, other.getPathVariables().get("id"));
+        assertEquals(Collections.singletonList("a"), other.getQueryVariables().get("q"));
+        assertNull(other.getHeaders().get("X-Other"));
+        assertNull(original.getPathVariables().get("id"));
+    }
+
+    @Test
+    public void headerNamesIgnoreCase() {
+        BreezeHttpRequest request = request()
+                .header("Accept", "application/json")
+                .header("accept", "text/plain");
+
+        assertEquals(1, request.getHeaders().size());
+        assertEquals(Arrays.asList("application/json", "text/plain"), request.getHeaders().get("ACCEPT"));
+
+        request.header("ACCEPT", null);
+        assertTrue(request.getHeaders().isEmpty());
+    }
+
+    @Test
+    public void equalityIgnoresHeaderNameCase() {
+        BreezeHttpRequest upper = request().header("Accept", "application/json");
+        BreezeHttpRequest lower = request().header("accept", "application/json");
+
+        assertEquals(upper.getHeaders(), lower.getHeaders());
+        assertEquals(upper.getHeaders().hashCode(), lower.getHeaders().hashCode());
+        assertEquals(upper, lower);
+        assertEquals(upper.hashCode(), lower.hashCode());
+
+        // Removing every header is the same as never setting any
+        upper.header("Accept", null);
+        assertEquals(request(), upper);
+        assertEquals(upper, request());
+        assertEquals(request().hashCode(), upper.hashCode());
+
+        // Path variables still match case
+        assertFalse(request().pathVariable("id", 1).equals(request().pathVariable("ID", 1)));
+    }
+
+    @Test
+    public void toStringShowsOnlyLoggableValues() {
+        BreezeHttpRequest request = request()
+                .header("Authorization", "secret")
+                .header("X-Correlation", "%7B%7D", "{}");
+
+        String string = request.toString();
+        assertTrue(string, string.contains("X-Correlation=\"{}\""));
+        assertTrue(string, string.contains(" Authorization"));
+        assertFalse(string, string.contains("secret"));
+        assertFalse(string, string.contains("%7B%7D"));
+    }
+
+    @Test
+    public void gettersAreReadOnly() {
+        BreezeHttpRequest request = request().pathVariable("id", 1).queryVariable("q", "a").header("X-Test", "a");
+
+        assertReadOnly(() -> request.getPathVariables().put("id", 2));
+        assertReadOnly(() -> request.getQueryVariables().put("q", Collections.singletonList("b")));
+        assertReadOnly(() -> request.getHeaders().put("X-Test", Collections.singletonList("b")));
+        assertReadOnly(() -> request.getHeaders().get("X-Test").add("b"));
+
+        // Also when nothing was set yet
+        assertReadOnly(() -> request().getHeaders().put("X-Test", Collections.singletonList("b")));
+    }
+
+    private static void assertReadOnly(Runnable change) {
+        try {
+            change.run();
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        throw new AssertionError("should not be modifiable");
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).path("/test");
+    }
+}
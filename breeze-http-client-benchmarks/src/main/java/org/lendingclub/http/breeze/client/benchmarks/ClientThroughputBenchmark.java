@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.benchmarks;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.impl.jaxrs.BreezeHttpJaxRsClient;
+import org.lendingclub.http.breeze.client.impl.resttemplate.builder.BreezeHttpRestTemplateClientBuilder;
+
+/**
+ * End-to-end throughput, including JSON serialization, against an
+ * in-process HTTP server. Run with -t to add client threads.
+ *
+ * @author Raul Acevedo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientThroughputBenchmark {
+    @Param({"resttemplate", "jersey"})
+    private String implementation;
+
+    private StubServer server;
+    private BreezeHttpClient client;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new StubServer();
+        if ("jersey".equals(implementation)) {
+            client = new BreezeHttpJaxRsClient(
+                    JerseyClientBuilder.createClient(new ClientConfig(new JacksonJaxbJsonProvider())),
+                    Collections.emptyList(),
+                    NOPLogger.NOP_LOGGER,
+                    String.class
+            );
+        } else {
+            client = new BreezeHttpRestTemplateClientBuilder()
+                    .withLogger(NOPLogger.NOP_LOGGER)
+                    .withErrorResponseClass(String.class)
+                    .withMaxConnections(64)
+                    .withMaxConnectionsPerRoute(64)
+                    .build();
+        }
+        client = client.forService(server.getRootUrl(), "benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public Map get() {
+        return client.request().path("/items/{id}").pathVariable("id", 1234).get(Map.class);
+    }
+
+    @Benchmark
+    public Map post() {
+        return client.request().path("/items").post(Map.class, Collections.singletonMap("name", "benchmark"));
+    }
+
+    @Benchmark
+    public Map getAsync() {
+        return client.request().path("/items/{id}").pathVariable("id", 1234).getAsync(Map.class).join();
+    }
+}
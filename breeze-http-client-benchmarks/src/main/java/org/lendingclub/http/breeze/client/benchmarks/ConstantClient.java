@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+
+/**
+ * Client that answers every request with the same response and no I/O, to
+ * measure the cost of everything in front of the transport.
+ *
+ * @author Raul Acevedo
+ */
+public class ConstantClient extends AbstractBaseClient {
+    private final BreezeHttpResponse<?> response;
+
+    public ConstantClient(Object entity) {
+        this.response = new BreezeHttpResponse<>(entity, 200);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+        return (BreezeHttpResponse<T>) response;
+    }
+
+    @Override
+    public List<BreezeHttpRequestFilter> getRequestFilters() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreakerDecorator;
+import org.lendingclub.http.breeze.client.decorator.metrics.MetricsDecorator;
+import org.lendingclub.http.breeze.client.decorator.retry.RetryDecorator;
+
+/**
+ * Overhead of decorator chains around a client that does no I/O.
+ *
+ * @author Raul Acevedo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoratorChainBenchmark {
+    /** none: undecorated; retry: retry only; full: metrics, retry and circuit breaker. */
+    @Param({"none", "retry", "full"})
+    private String chain;
+
+    private BreezeHttpClient client;
+
+    @Setup
+    public void setup() {
+        client = new ConstantClient("{}");
+        if ("retry".equals(chain) || "full".equals(chain)) {
+            if ("full".equals(chain)) {
+                client = new CircuitBreakerDecorator().decorate(client);
+            }
+            client = new RetryDecorator(100, 200).decorate(client);
+            if ("full".equals(chain)) {
+                client = new MetricsDecorator().decorate(client);
+            }
+        }
+    }
+
+    @Benchmark
+    public BreezeHttpResponse<Map> execute() {
+        return client.execute(request(), Map.class, null);
+    }
+
+    @Benchmark
+    public BreezeHttpResponse<Map> executeAsync() {
+        return client.executeAsync(request(), Map.class, null).join();
+    }
+
+    private BreezeHttpRequest request() {
+        return client.request("http://localhost").remoteService("benchmark").path("/items").method("GET");
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.lendingclub.http.breeze.client.impl.jaxrs.proxy.BreezeProxyInterfaceClientFactory;
+import org.lendingclub.http.breeze.client.impl.jaxrs.proxy.BreezeWebResourceFactory;
+import org.lendingclub.http.breeze.client.impl.jaxrs.proxy.DefaultUrlProvider;
+
+/**
+ * Cost of a JAX-RS proxy interface call, from annotations to request, with no I/O.
+ *
+ * @author Raul Acevedo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyBenchmark {
+    /** Reflective java.lang.reflect.Proxy, or the client generated by BreezeProxyProcessor. */
+    @Param({"reflective", "generated"})
+    private String implementation;
+
+    private ItemService service;
+
+    @Path("/items")
+    @Produces(MediaType.APPLICATION_JSON)
+    public interface ItemService {
+        @GET
+        @Path("/{id}")
+        Map<String, List<String>> get(
+                @PathParam("id") String id,
+                @QueryParam("verbose") Boolean verbose,
+                @HeaderParam("X-Trace") String trace
+        );
+
+        @POST
+        Map<String, String> create(Map<String, String> item);
+    }
+
+    @Setup
+    public void setup() {
+        ConstantClient client = new ConstantClient(Collections.emptyMap());
+        Map<String, String> headers = Collections.singletonMap("X-Client", "benchmark");
+        if ("generated".equals(implementation)) {
+            service = new BreezeProxyInterfaceClientFactory(client).createProxyInterfaceClient(
+                    ItemService.class,
+                    headers,
+                    "http://localhost"
+            );
+        } else {
+            service = BreezeWebResourceFactory.newResource(
+                    ItemService.class,
+                    client,
+                    headers,
+                    new DefaultUrlProvider("http://localhost")
+            );
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return service.get("1234", true, "trace");
+    }
+
+    @Benchmark
+    public Object post() {
+        return service.create(Collections.singletonMap("name", "benchmark"));
+    }
+}
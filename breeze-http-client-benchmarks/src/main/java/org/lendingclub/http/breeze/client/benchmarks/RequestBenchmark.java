@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpRequestTemplate;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.filter.UserAgentRequestFilter;
+
+/**
+ * Cost of building requests and response types, which every call pays.
+ *
+ * @author Raul Acevedo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+    private BreezeHttpClient client;
+    private List<BreezeHttpRequestFilter> filters;
+    private BreezeHttpRequest request;
+    private BreezeHttpRequestTemplate template;
+
+    @Setup
+    public void setup() {
+        client = new ConstantClient(null);
+        filters = Collections.singletonList(new UserAgentRequestFilter());
+        request = build();
+        template = new BreezeHttpRequest("http://localhost", "benchmark", client, filters)
+                .name("getItem")
+                .path("/items/{id}")
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer token", false)
+                .template();
+    }
+
+    @Benchmark
+    public BreezeHttpRequest buildRequest() {
+        return build();
+    }
+
+    @Benchmark
+    public BreezeHttpRequest copyRequest() {
+        return new BreezeHttpRequest(request);
+    }
+
+    @Benchmark
+    public BreezeHttpRequest templateRequest() {
+        return template.request().pathVariable("id", 1234).queryVariable("verbose", true);
+    }
+
+    @Benchmark
+    public BreezeHttpType<?> classType() {
+        return new BreezeHttpType<>(Map.class);
+    }
+
+    @Benchmark
+    public BreezeHttpType<?> genericType() {
+        return new BreezeHttpType<Map<String, List<String>>>() { };
+    }
+
+    private BreezeHttpRequest build() {
+        return new BreezeHttpRequest("http://localhost", "benchmark", client, filters)
+                .name("getItem")
+                .path("/items/{id}")
+                .pathVariable("id", 1234)
+                .queryVariable("verbose", true)
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer token", false);
+    }
+}
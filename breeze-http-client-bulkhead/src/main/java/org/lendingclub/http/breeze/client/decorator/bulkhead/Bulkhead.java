@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.bulkhead;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lendingclub.http.breeze.client.decorator.DecoratorExecutors;
+
+/**
+ * Limits concurrent requests to one remote service, with an optional bounded
+ * queue for requests that arrive while all slots are taken.
+ *
+ * Synchronous and asynchronous callers wait in the same first come, first
+ * served queue, and whichever request releases a slot hands it directly to
+ * the head of the queue. Synchronous callers block until they get a slot;
+ * asynchronous callers never block, and a shared timer fails them when
+ * maxWait runs out.
+ *
+ * @author Raul Acevedo
+ */
+public class Bulkhead {
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+
+    // Guarded by this
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int active;
+
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder queuedCount = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    /**
+     * @param name name for logging and exceptions
+     * @param maxConcurrent maximum requests in flight
+     * @param maxQueue maximum requests waiting for a slot; 0 rejects immediately when full
+     * @param maxWaitMillis maximum time to wait in the queue
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Take a slot, waiting in the queue if necessary; every successful
+     * acquire must be followed by a release.
+     *
+     * @return nanoseconds spent waiting in the queue
+     * @throws BulkheadFullException if there's no room in the queue or the wait timed out
+     */
+    public long acquire() throws BulkheadFullException {
+        Waiter waiter;
+        synchronized (this) {
+            if (tryTake()) {
+                return 0;
+            }
+            waiter = enqueue();
+        }
+
+        try {
+            return waiter.future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return abandon(waiter, "timed out after waiting " + maxWaitMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return abandon(waiter, "interrupted while waiting");
+        } catch (ExecutionException e) {
+            // Only asynchronous waiters are completed exceptionally
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Asynchronous acquire; never blocks. Cancelling the returned future
+     * gives up the place in the queue.
+     *
+     * @return future that completes with the nanoseconds spent waiting, or
+     * exceptionally with BulkheadFullException
+     */
+    public CompletableFuture<Long> acquireAsync() {
+        Waiter waiter;
+        synchronized (this) {
+            if (tryTake()) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            try {
+                waiter = enqueue();
+            } catch (BulkheadFullException e) {
+                CompletableFuture<Long> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(e);
+                return rejected;
+            }
+        }
+
+        // If the slot is handed over before the timer is set, expire() finds nothing to do
+        waiter.timeout = DecoratorExecutors.scheduler().schedule(
+                () -> expire(waiter, "timed out after waiting " + maxWaitMillis + " ms"),
+                maxWaitMillis,
+                TimeUnit.MILLISECONDS);
+        waiter.future.whenComplete((waited, throwable) -> {
+            if (waiter.future.isCancelled()) {
+                expire(waiter, null);
+            }
+        });
+        return waiter.future;
+    }
+
+    /** Release a slot, handing it straight to the next queued request if any. */
+    public void release() {
+        while (true) {
+            Waiter waiter;
+            synchronized (this) {
+                waiter = waiters.poll();
+                if (waiter == null) {
+                    active--;
+                    return;
+                }
+            }
+
+            // Complete outside the lock, since an asynchronous waiter's request runs right here
+            if (grant(waiter)) {
+                return;
+            }
+            // The waiter was cancelled in the meantime, so the slot goes to the next one
+        }
+    }
+
+    private boolean tryTake() {
+        // Don't jump ahead of requests that are already waiting
+        if (active < maxConcurrent && waiters.isEmpty()) {
+            active++;
+            return true;
+        }
+        return false;
+    }
+
+    private Waiter enqueue() {
+        if (waiters.size() >= maxQueue) {
+            throw reject(maxQueue == 0 ? "no free slots" : "queue full");
+        }
+        Waiter waiter = new Waiter(System.nanoTime());
+        waiters.add(waiter);
+        queuedCount.increment();
+        return waiter;
+    }
+
+    private boolean grant(Waiter waiter) {
+        ScheduledFuture<?> timeout = waiter.timeout;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+
+        long waited = System.nanoTime() - waiter.start;
+        if (waiter.future.complete(waited)) {
+            queueWaitNanos.add(waited);
+            return true;
+        }
+        return false;
+    }
+
+    /** A synchronous waiter gives up; returns normally if it was handed a slot just in time. */
+    private long abandon(Waiter waiter, String reason) {
+        synchronized (this) {
+            if (waiters.remove(waiter)) {
+                throw reject(reason);
+            }
+        }
+        return waiter.future.join();
+    }
+
+    /** Drop an asynchronous waiter that's still queued, failing it if a reason is given. */
+    private void expire(Waiter waiter, String reason) {
+        synchronized (this) {
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+        }
+        if (reason != null) {
+            waiter.future.completeExceptionally(reject(reason));
+        }
+    }
+
+    private BulkheadFullException reject(String reason) {
+        rejectedCount.increment();
+        return new BulkheadFullException("bulkhead " + name + " rejected request: " + reason
+                + ", maxConcurrent=" + maxConcurrent + ", maxQueue=" + maxQueue);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Requests currently holding a slot. */
+    public synchronized int getActive() {
+        return active;
+    }
+
+    /** Requests currently waiting for a slot. */
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    /** Total requests rejected since creation. */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /** Total requests that had to wait in the queue since creation. */
+    public long getQueuedCount() {
+        return queuedCount.sum();
+    }
+
+    /** Total time all requests spent waiting in the queue since creation. */
+    public long getQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{name=" + name
+                + ", active=" + getActive()
+                + ", queued=" + getQueued()
+                + ", rejected=" + getRejectedCount()
+                + "}";
+    }
+
+    private static final class Waiter {
+        private final long start;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timeout;
+
+        private Waiter(long start) {
+            this.start = start;
+        }
+    }
+}
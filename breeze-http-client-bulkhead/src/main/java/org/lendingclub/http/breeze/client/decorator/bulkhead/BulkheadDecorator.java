@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.bulkhead;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.AsyncDecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+
+/**
+ * Limits concurrent requests per remote service so one slow service can't
+ * take every thread and pooled connection away from the others. Requests
+ * over the limit wait in a bounded queue, or fail fast with
+ * BulkheadFullException when the queue is full or disabled.
+ *
+ * @author Raul Acevedo
+ */
+public class BulkheadDecorator implements BreezeHttpClientDecorator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkheadDecorator.class);
+
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /** Limit every remote service to maxConcurrent requests, rejecting the rest immediately. */
+    public BulkheadDecorator(int maxConcurrent) {
+        this(Collections.singletonList(new AllRequestMatcher()), maxConcurrent, 0, 0);
+    }
+
+    /** See Bulkhead for parameter details. */
+    public BulkheadDecorator(
+            List<BreezeHttpClientRequestMatcher> matchers,
+            int maxConcurrent,
+            int maxQueue,
+            long maxWaitMillis
+    ) {
+        this.matchers.addAll(matchers);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new BulkheadDecoratedClient(client, matchers);
+    }
+
+    /** Return the bulkhead for the request's remote service. */
+    public Bulkhead getBulkhead(BreezeHttpRequest request) {
+        String name = request.getDefaultedRemoteService();
+        Bulkhead bulkhead = bulkheads.get(name);
+        return bulkhead != null ? bulkhead : bulkheads.computeIfAbsent(name, this::createBulkhead);
+    }
+
+    protected Bulkhead createBulkhead(String name) {
+        return new Bulkhead(name, maxConcurrent, maxQueue, maxWaitMillis);
+    }
+
+    public class BulkheadDecoratedClient extends AbstractDecoratedClient {
+        BulkheadDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(BulkheadDecorator.this, client, matchers);
+        }
+
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            Bulkhead bulkhead = getBulkhead(request);
+            logQueueWait(bulkhead, bulkhead.acquire(), request);
+            try {
+                return command.execute(request);
+            } finally {
+                bulkhead.release();
+            }
+        }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            Bulkhead bulkhead = getBulkhead(request);
+            CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+            AtomicReference<CompletableFuture<BreezeHttpResponse<T>>> running = new AtomicReference<>();
+            CompletableFuture<Long> acquired = bulkhead.acquireAsync();
+
+            // Cancelling the returned future gives up the queue slot or cancels the request itself
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    acquired.cancel(false);
+                    cancel(running.get());
+                }
+            });
+
+            acquired.whenComplete((waited, rejected) -> {
+                if (rejected != null) {
+                    future.completeExceptionally(rejected);
+                    return;
+                }
+                if (future.isCancelled()) {
+                    bulkhead.release();
+                    return;
+                }
+
+                logQueueWait(bulkhead, waited, request);
+                try {
+                    CompletableFuture<BreezeHttpResponse<T>> inner = command.execute(request);
+                    running.set(inner);
+                    inner.whenComplete((response, throwable) -> {
+                        bulkhead.release();
+                        if (throwable == null) {
+                            future.complete(response);
+                        } else {
+                            future.completeExceptionally(unwrap(throwable));
+                        }
+                    });
+                    // Cancelled while the request was being started
+                    if (future.isCancelled()) {
+                        cancel(inner);
+                    }
+                } catch (RuntimeException e) {
+                    bulkhead.release();
+                    future.completeExceptionally(e);
+                }
+            });
+
+            return future;
+        }
+
+        private void cancel(CompletableFuture<?> future) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        private void logQueueWait(Bulkhead bulkhead, long waitedNanos, BreezeHttpRequest request) {
+            if (waitedNanos > 0 && LOGGER.isDebugEnabled()) {
+                LOGGER.debug("waited " + TimeUnit.NANOSECONDS.toMillis(waitedNanos) + " ms"
+                        + " in " + bulkhead + " for " + request);
+            }
+        }
+    }
+}
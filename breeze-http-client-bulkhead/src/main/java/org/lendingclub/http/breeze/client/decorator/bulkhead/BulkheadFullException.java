@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.bulkhead;
+
+import org.lendingclub.http.breeze.client.exception.BreezeHttpRejectedException;
+
+/**
+ * Thrown without calling the remote service when its bulkhead has no free
+ * slot and either the queue is full or the request waited too long.
+ *
+ * @author Raul Acevedo
+ */
+public class BulkheadFullException extends BreezeHttpRejectedException {
+    public static final long serialVersionUID = -1;
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.bulkhead.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.bulkhead.BulkheadDecorator;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Bulkhead configuration; limits apply to each remote service separately.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientBulkheadDecoratorConfig {
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientBulkheadDecorator(
+            @Value(value = "${BREEZE_HTTP_BULKHEAD_MAX_CONCURRENT:20}") int maxConcurrent,
+            @Value(value = "${BREEZE_HTTP_BULKHEAD_MAX_QUEUE:20}") int maxQueue,
+            @Value(value = "${BREEZE_HTTP_BULKHEAD_MAX_WAIT:500}") long maxWaitMillis
+    ) {
+        return new BulkheadDecorator(singletonList(new AllRequestMatcher()), maxConcurrent, maxQueue, maxWaitMillis);
+    }
+}
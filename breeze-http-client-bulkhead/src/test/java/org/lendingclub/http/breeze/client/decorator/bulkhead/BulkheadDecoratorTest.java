@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.bulkhead;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for cancelling requests that go through the bulkhead.
+ *
+ * @author Raul Acevedo
+ */
+public class BulkheadDecoratorTest {
+    private final BulkheadDecorator decorator = new BulkheadDecorator(1);
+
+    @Test
+    public void cancelReachesTheRunningRequest() {
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        CompletableFuture<BreezeHttpResponse<String>> future = client.executeAsync(request(), String.class, null);
+        assertEquals(1, decorator.getBulkhead(request()).getActive());
+
+        future.cancel(true);
+        assertTrue(fake.future.isCancelled());
+        assertEquals(0, decorator.getBulkhead(request()).getActive());
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).path("/test").method("GET");
+    }
+
+    private static class FakeClient extends AbstractBaseClient {
+        private final CompletableFuture<BreezeHttpResponse<?>> future = new CompletableFuture<>();
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            return (CompletableFuture<BreezeHttpResponse<T>>) (CompletableFuture<?>) future;
+        }
+
+        @Override
+        public List<BreezeHttpRequestFilter> getRequestFilters() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.bulkhead;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for Bulkhead slot accounting.
+ *
+ * @author Raul Acevedo
+ */
+public class BulkheadTest {
+    @Test
+    public void rejectsWhenFull() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, 0);
+        bulkhead.acquire();
+
+        try {
+            bulkhead.acquire();
+            fail("should have been rejected");
+        } catch (BulkheadFullException e) {
+            assertEquals(1, bulkhead.getRejectedCount());
+        }
+
+        bulkhead.release();
+        bulkhead.acquire();
+        assertEquals(1, bulkhead.getActive());
+    }
+
+    @Test
+    public void asyncWaitersGetReleasedSlots() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 60000);
+        assertTrue(bulkhead.acquireAsync().isDone());
+
+        CompletableFuture<Long> waiter = bulkhead.acquireAsync();
+        assertFalse(waiter.isDone());
+        assertEquals(1, bulkhead.getQueued());
+
+        // Queue is full
+        try {
+            bulkhead.acquireAsync().get();
+            fail("should have been rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BulkheadFullException);
+        }
+
+        // Releasing hands the slot straight to the waiter
+        bulkhead.release();
+        assertTrue(waiter.isDone());
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1, bulkhead.getActive());
+
+        bulkhead.release();
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    public void syncAndAsyncWaitersShareOneQueue() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 2, 60000);
+        bulkhead.acquire();
+
+        CompletableFuture<Long> sync = CompletableFuture.supplyAsync(bulkhead::acquire);
+        while (bulkhead.getQueued() < 1) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<Long> async = bulkhead.acquireAsync();
+        assertEquals(2, bulkhead.getQueued());
+
+        // The synchronous waiter came first, so it gets the first free slot
+        bulkhead.release();
+        sync.get(5, TimeUnit.SECONDS);
+        assertFalse(async.isDone());
+
+        bulkhead.release();
+        assertTrue(async.isDone());
+        assertEquals(1, bulkhead.getActive());
+    }
+
+    @Test
+    public void asyncWaitersTimeOutWithoutRelease() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 50);
+        bulkhead.acquire();
+
+        try {
+            bulkhead.acquireAsync().get(5, TimeUnit.SECONDS);
+            fail("should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BulkheadFullException);
+        }
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    public void cancelledWaitersLeaveTheQueue() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 60000);
+        bulkhead.acquire();
+
+        bulkhead.acquireAsync().cancel(false);
+        assertEquals(0, bulkhead.getQueued());
+
+        bulkhead.release();
+        assertEquals(0, bulkhead.getActive());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.cache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a Cache-Control header that matter to a private client cache.
+ *
+ * @author Raul Acevedo
+ */
+final class CacheControl {
+    static final long NONE = -1;
+
+    private boolean noStore;
+    private boolean noCache;
+    private long maxAgeSeconds = NONE;
+
+    private CacheControl() {
+    }
+
+    static CacheControl parse(Map<String, List<String>> headers) {
+        CacheControl cacheControl = new CacheControl();
+        String value = header(headers, "Cache-Control", ",");
+        if (value == null) {
+            return cacheControl;
+        }
+
+        for (String directive : value.split(",")) {
+            String[] parts = directive.trim().split("=", 2);
+            String name = parts[0].trim().toLowerCase();
+            if ("no-store".equals(name)) {
+                cacheControl.noStore = true;
+            } else if ("no-cache".equals(name)) {
+                cacheControl.noCache = true;
+            } else if ("max-age".equals(name) && parts.length == 2) {
+                cacheControl.maxAgeSeconds = number(parts[1]);
+            }
+        }
+        return cacheControl;
+    }
+
+    /** Header value regardless of name case, multiple values joined by separator; null if missing. */
+    static String header(Map<String, List<String>> headers, String name, String separator) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return String.join(separator, entry.getValue());
+            }
+        }
+        return null;
+    }
+
+    /** Parse a non-negative number such as delta-seconds, NONE if invalid. */
+    static long number(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim().replace("\"", "")));
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+
+    boolean isNoStore() {
+        return noStore;
+    }
+
+    boolean isNoCache() {
+        return noCache;
+    }
+
+    long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+}
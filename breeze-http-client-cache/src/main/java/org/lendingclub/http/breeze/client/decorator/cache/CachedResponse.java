@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.cache;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.RequestKey;
+
+/**
+ * A cached response with what's needed to serve or revalidate it. Instances
+ * are immutable; revalidation replaces the entry.
+ *
+ * @author Raul Acevedo
+ */
+public class CachedResponse {
+    private final BreezeHttpResponse<?> response;
+    private final Type type;
+    private final List<String> varyNames;
+    private final Map<String, List<String>> varyHeaders;
+    private final long expiresAt;
+    private final long weight;
+
+    CachedResponse(
+            BreezeHttpResponse<?> response,
+            Type type,
+            BreezeHttpRequest request,
+            List<String> varyNames,
+            long expiresAt,
+            long weight
+    ) {
+        this.response = response;
+        this.type = type;
+        this.varyNames = varyNames;
+        this.varyHeaders = RequestKey.headers(request, varyNames);
+        this.expiresAt = expiresAt;
+        this.weight = weight;
+    }
+
+    private CachedResponse(CachedResponse cached, long expiresAt) {
+        this.response = cached.response;
+        this.type = cached.type;
+        this.varyNames = cached.varyNames;
+        this.varyHeaders = cached.varyHeaders;
+        this.expiresAt = expiresAt;
+        this.weight = cached.weight;
+    }
+
+    /** Same response, fresh until a new expiration time. */
+    CachedResponse refresh(long expiresAt) {
+        return new CachedResponse(this, expiresAt);
+    }
+
+    /** Whether this entry can answer a request for the given response type. */
+    boolean matches(BreezeHttpRequest request, Type type) {
+        return Objects.equals(this.type, type)
+                && (varyNames.isEmpty() || varyHeaders.equals(RequestKey.headers(request, varyNames)));
+    }
+
+    boolean isFresh(long now) {
+        return now < expiresAt;
+    }
+
+    String getETag() {
+        return CacheControl.header(response.getHeaders(), "ETag", ",");
+    }
+
+    String getLastModified() {
+        return CacheControl.header(response.getHeaders(), "Last-Modified", ",");
+    }
+
+    public BreezeHttpResponse<?> getResponse() {
+        return response;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.cache;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.ToLongFunction;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.RequestKey;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.QueryRequestMatcher;
+
+/**
+ * Private HTTP cache for matched requests, by default GETs. 200 responses
+ * are kept for their Cache-Control max-age; once stale, a response with an
+ * ETag or Last-Modified header is revalidated with If-None-Match or
+ * If-Modified-Since, and a 304 answer serves the cached copy again. Responses
+ * marked no-store, or with neither a max-age nor a validator, aren't cached.
+ *
+ * Responses are keyed by RequestKey, including the configured headers, by
+ * default Accept, Authorization and Cookie so users never see each other's
+ * responses; plus any headers the server lists in Vary, and the response
+ * type, since the same resource can be read into different classes. Cached
+ * entities are shared between callers, so they must not be modified.
+ *
+ * @author Raul Acevedo
+ */
+public class CachingDecorator implements BreezeHttpClientDecorator {
+    private static final long DEFAULT_WEIGHT = 1024;
+
+    private static final List<String> DEFAULT_HEADER_NAMES = Arrays.asList("Accept", "Authorization", "Cookie");
+
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final List<String> headerNames = new ArrayList<>();
+    private final ResponseCache cache;
+    private final ToLongFunction<BreezeHttpResponse<?>> weigher;
+
+    /** Cache GETs, keyed by Accept, Authorization and Cookie headers, up to about 10 MB of payloads. */
+    public CachingDecorator() {
+        this(Collections.singletonList(new QueryRequestMatcher()), 10 * 1024 * 1024);
+    }
+
+    public CachingDecorator(List<BreezeHttpClientRequestMatcher> matchers, long maxWeight) {
+        this(matchers, DEFAULT_HEADER_NAMES, maxWeight);
+    }
+
+    public CachingDecorator(List<BreezeHttpClientRequestMatcher> matchers, Collection<String> headerNames, long maxWeight) {
+        this(matchers, headerNames, maxWeight, CachingDecorator::weigh);
+    }
+
+    /**
+     * @param matchers requests to cache
+     * @param headerNames headers that are part of the cache key, so that
+     * callers with different credentials never share entries
+     * @param maxWeight maximum total weight of cached responses
+     * @param weigher weight of a response, usually its size in bytes
+     */
+    public CachingDecorator(
+            List<BreezeHttpClientRequestMatcher> matchers,
+            Collection<String> headerNames,
+            long maxWeight,
+            ToLongFunction<BreezeHttpResponse<?>> weigher
+    ) {
+        this.matchers.addAll(matchers);
+        this.headerNames.addAll(headerNames);
+        this.cache = new ResponseCache(maxWeight);
+        this.weigher = weigher;
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new CachingDecoratedClient(client, matchers);
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    /** Default weight: Content-Length if present, otherwise an estimate from the entity. */
+    public static long weigh(BreezeHttpResponse<?> response) {
+        String contentLength = CacheControl.header(response.getHeaders(), "Content-Length", ",");
+        if (contentLength != null) {
+            long length = CacheControl.number(contentLength);
+            if (length >= 0) {
+                return length;
+            }
+        }
+
+        Object entity = response.getEntity();
+        if (entity instanceof CharSequence) {
+            return ((CharSequence) entity).length() * 2L;
+        } else if (entity instanceof byte[]) {
+            return ((byte[]) entity).length;
+        }
+        return DEFAULT_WEIGHT;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static boolean isCacheable(BreezeHttpRequest request) {
+        String value = CacheControl.header(request.getHeaders(), "Cache-Control", ",");
+        return value == null || !value.toLowerCase().contains("no-store");
+    }
+
+    private static Type type(BreezeHttpType<?> responseType) {
+        return responseType == null ? null : responseType.getType();
+    }
+
+    public class CachingDecoratedClient extends AbstractDecoratedClient {
+        CachingDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(CachingDecorator.this, client, matchers);
+        }
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload)
+                throws BreezeHttpException {
+            if (!matches(request) || !isCacheable(request)) {
+                return client.execute(request, responseType, payload);
+            }
+
+            RequestKey key = new RequestKey(request, headerNames);
+            CachedResponse cached = lookup(key, request, responseType);
+            if (cached != null && cached.isFresh(now())) {
+                cache.recordHit();
+                return cast(cached);
+            }
+
+            BreezeHttpResponse<T> response;
+            try {
+                response = client.execute(conditional(request, cached), responseType, payload);
+            } catch (BreezeHttpResponseException e) {
+                if (isNotModified(cached, e)) {
+                    return revalidated(key, cached, e.getResponse().getHeaders());
+                }
+                throw e;
+            }
+            return update(key, request, responseType, cached, response);
+        }
+
+        @Override
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            if (!matches(request) || !isCacheable(request)) {
+                return client.executeAsync(request, responseType, payload);
+            }
+
+            RequestKey key = new RequestKey(request, headerNames);
+            CachedResponse cached = lookup(key, request, responseType);
+            if (cached != null && cached.isFresh(now())) {
+                cache.recordHit();
+                return CompletableFuture.completedFuture(cast(cached));
+            }
+
+            return client.executeAsync(conditional(request, cached), responseType, payload).handle((response, throwable) -> {
+                if (throwable == null) {
+                    return update(key, request, responseType, cached, response);
+                }
+
+                Throwable cause = unwrap(throwable);
+                if (isNotModified(cached, cause)) {
+                    return revalidated(key, cached, ((BreezeHttpResponseException) cause).getResponse().getHeaders());
+                }
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+            });
+        }
+
+        /** Matched requests are handled by execute and executeAsync, which know the response type. */
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            return command.execute(request);
+        }
+
+        private CachedResponse lookup(RequestKey key, BreezeHttpRequest request, BreezeHttpType<?> responseType) {
+            CachedResponse cached = cache.get(key);
+            return cached != null && cached.matches(request, type(responseType)) ? cached : null;
+        }
+
+        /** Add validators from the stale cached response, if any. */
+        private BreezeHttpRequest conditional(BreezeHttpRequest request, CachedResponse cached) {
+            if (cached == null) {
+                return request;
+            }
+
+            String etag = cached.getETag();
+            String lastModified = cached.getLastModified();
+            if (etag == null && lastModified == null) {
+                return request;
+            }
+
+            BreezeHttpRequest conditional = new BreezeHttpRequest(request);
+            if (etag != null) {
+                conditional.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                conditional.header("If-Modified-Since", lastModified);
+            }
+            return conditional;
+        }
+
+        private boolean isNotModified(CachedResponse cached, Throwable t) {
+            return cached != null
+                    && t instanceof BreezeHttpResponseException
+                    && ((BreezeHttpResponseException) t).getResponse() != null
+                    && ((BreezeHttpResponseException) t).getHttpStatusCode() == 304;
+        }
+
+        private <T> BreezeHttpResponse<T> update(
+                RequestKey key,
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                CachedResponse cached,
+                BreezeHttpResponse<T> response
+        ) {
+            if (cached != null && response.getHttpStatusCode() == 304) {
+                return revalidated(key, cached, response.getHeaders());
+            }
+
+            cache.recordMiss();
+            if (response.getHttpStatusCode() != 200) {
+                return response;
+            }
+
+            Map<String, List<String>> headers = response.getHeaders();
+            CacheControl cacheControl = CacheControl.parse(headers);
+            String vary = CacheControl.header(headers, "Vary", ",");
+            boolean validated = CacheControl.header(headers, "ETag", ",") != null
+                    || CacheControl.header(headers, "Last-Modified", ",") != null;
+
+            if (cacheControl.isNoStore()
+                    || (vary != null && vary.contains("*"))
+                    || (cacheControl.getMaxAgeSeconds() == CacheControl.NONE && !validated)) {
+                cache.remove(key);
+                return response;
+            }
+
+            List<String> varyNames = new ArrayList<>();
+            if (vary != null) {
+                for (String name : vary.split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        varyNames.add(name.trim());
+                    }
+                }
+            }
+
+            cache.put(key, new CachedResponse(
+                    response,
+                    type(responseType),
+                    request,
+                    varyNames,
+                    expiresAt(cacheControl, headers),
+                    weigher.applyAsLong(response)
+            ));
+            return response;
+        }
+
+        /** The server says our copy is still good; it may also send new freshness headers. */
+        private <T> BreezeHttpResponse<T> revalidated(
+                RequestKey key,
+                CachedResponse cached,
+                Map<String, List<String>> headers
+        ) {
+            cache.recordRevalidation();
+
+            if (CacheControl.header(headers, "Cache-Control", ",") == null) {
+                headers = cached.getResponse().getHeaders();
+            }
+            CacheControl cacheControl = CacheControl.parse(headers);
+            if (cacheControl.isNoStore()) {
+                cache.remove(key);
+            } else {
+                cache.put(key, cached.refresh(expiresAt(cacheControl, headers)));
+            }
+            return cast(cached);
+        }
+
+        private long expiresAt(CacheControl cacheControl, Map<String, List<String>> headers) {
+            long maxAge = cacheControl.getMaxAgeSeconds();
+            if (cacheControl.isNoCache() || maxAge == CacheControl.NONE) {
+                return now();
+            }
+
+            String ageHeader = CacheControl.header(headers, "Age", ",");
+            long age = ageHeader == null ? 0 : Math.max(0, CacheControl.number(ageHeader));
+            return now() + Math.max(0, maxAge - age) * 1000;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> BreezeHttpResponse<T> cast(CachedResponse cached) {
+            // Safe because entries only match requests for the same response type
+            return (BreezeHttpResponse<T>) cached.getResponse();
+        }
+    }
+}
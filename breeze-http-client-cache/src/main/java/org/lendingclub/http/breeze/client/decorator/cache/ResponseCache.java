@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lendingclub.http.breeze.client.decorator.RequestKey;
+
+/**
+ * In-memory response store bounded by total weight, roughly the size of the
+ * cached payloads in bytes. Entries are split across segments by key hash,
+ * each an LRU list under its own lock, so concurrent requests for different
+ * keys rarely contend. Each segment gets an equal share of the maximum
+ * weight; an entry heavier than that share is not stored.
+ *
+ * @author Raul Acevedo
+ */
+public class ResponseCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(long maxWeight) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxWeight / SEGMENTS));
+        }
+    }
+
+    public CachedResponse get(RequestKey key) {
+        return segment(key).get(key);
+    }
+
+    public void put(RequestKey key, CachedResponse response) {
+        segment(key).put(key, response);
+    }
+
+    public void remove(RequestKey key) {
+        segment(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getWeight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    /** Requests answered from the cache without calling the server. */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** Requests that got a full response from the server. */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** Requests answered from the cache after the server replied 304 Not Modified. */
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+
+    /** Entries dropped to stay under the maximum weight. */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordRevalidation() {
+        revalidations.increment();
+    }
+
+    private Segment segment(RequestKey key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{size=" + getSize()
+                + ", weight=" + getWeight()
+                + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount()
+                + ", revalidations=" + getRevalidationCount()
+                + ", evictions=" + getEvictionCount()
+                + '}';
+    }
+
+    private class Segment {
+        private final long maxWeight;
+        private final LinkedHashMap<RequestKey, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized CachedResponse get(RequestKey key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(RequestKey key, CachedResponse response) {
+            remove(key);
+            if (response.getWeight() > maxWeight) {
+                return;
+            }
+
+            entries.put(key, response);
+            weight += response.getWeight();
+
+            Iterator<Map.Entry<RequestKey, CachedResponse>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().getValue().getWeight();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(RequestKey key) {
+            CachedResponse removed = entries.remove(key);
+            if (removed != null) {
+                weight -= removed.getWeight();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+    }
+}
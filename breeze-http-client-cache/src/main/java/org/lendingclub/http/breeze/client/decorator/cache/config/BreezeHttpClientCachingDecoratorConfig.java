@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.cache.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.cache.CachingDecorator;
+import org.lendingclub.http.breeze.client.matcher.QueryRequestMatcher;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Response cache configuration; MAX_SIZE is the total payload size in bytes,
+ * HEADERS the request headers that are part of the cache key.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientCachingDecoratorConfig {
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientCachingDecorator(
+            @Value(value = "${BREEZE_HTTP_CACHE_MAX_SIZE:10485760}") long maxSize,
+            @Value(value = "${BREEZE_HTTP_CACHE_HEADERS:Accept,Authorization,Cookie}") String[] headers
+    ) {
+        return new CachingDecorator(singletonList(new QueryRequestMatcher()), Arrays.asList(headers), maxSize);
+    }
+}
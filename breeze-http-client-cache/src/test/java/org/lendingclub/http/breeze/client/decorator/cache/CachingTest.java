@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.decorator.RequestKey;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for CachingDecorator and ResponseCache.
+ *
+ * @author Raul Acevedo
+ */
+public class CachingTest {
+    private long now = 0;
+
+    @Test
+    public void freshThenRevalidated() {
+        CachingDecorator decorator = decorator(1000000);
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        fake.responses.add(response("first", 200, "Cache-Control", "max-age=10", "ETag", "\"v1\""));
+        BreezeHttpResponse<String> first = client.execute(request(), String.class, null);
+        assertEquals("first", first.getEntity());
+
+        // Fresh: served without calling the server
+        now = 5000;
+        assertSame(first, client.execute(request(), String.class, null));
+        assertEquals(1, fake.requests.size());
+
+        // Stale: revalidated with the ETag, 304 serves the cached copy for another 10 seconds
+        now = 11000;
+        fake.responses.add(response(null, 304));
+        assertSame(first, client.execute(request(), String.class, null));
+        assertEquals(2, fake.requests.size());
+        assertEquals(Collections.singletonList("\"v1\""), fake.requests.get(1).getHeaders().get("If-None-Match"));
+
+        now = 20000;
+        assertSame(first, client.execute(request(), String.class, null));
+        assertEquals(2, fake.requests.size());
+
+        ResponseCache cache = decorator.getCache();
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void noStoreAndVary() {
+        CachingDecorator decorator = decorator(1000000);
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        fake.responses.add(response("private", 200, "Cache-Control", "no-store"));
+        client.execute(request(), String.class, null);
+        assertEquals(0, decorator.getCache().getSize());
+
+        fake.responses.add(response("json", 200, "Cache-Control", "max-age=60", "Vary", "Accept"));
+        client.execute(request().header("Accept", "application/json"), String.class, null);
+        assertEquals("json", client.execute(request().header("accept", "application/json"), String.class, null).getEntity());
+        assertEquals(2, fake.requests.size());
+
+        // Different Accept, or different response type, goes to the server
+        fake.responses.add(response("xml", 200));
+        assertEquals("xml", client.execute(request().header("Accept", "application/xml"), String.class, null).getEntity());
+        fake.responses.add(new BreezeHttpResponse<>(new byte[0], 200));
+        client.execute(request().header("Accept", "application/json"), byte[].class, null);
+        assertEquals(4, fake.requests.size());
+    }
+
+    @Test
+    public void keyedByAuthorization() {
+        CachingDecorator decorator = decorator(1000000);
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        fake.responses.add(response("alice", 200, "Cache-Control", "max-age=60"));
+        assertEquals("alice", client.execute(request().header("Authorization", "Bearer a"), String.class, null).getEntity());
+
+        // Another user's credentials must not get the first user's response
+        fake.responses.add(response("bob", 200, "Cache-Control", "max-age=60"));
+        assertEquals("bob", client.execute(request().header("Authorization", "Bearer b"), String.class, null).getEntity());
+        assertEquals("alice", client.execute(request().header("Authorization", "Bearer a"), String.class, null).getEntity());
+        assertEquals(2, fake.requests.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        // 16 segments of 100 each; keys landing in the same segment evict each other
+        ResponseCache cache = new ResponseCache(1600);
+        List<BreezeHttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            BreezeHttpRequest request = request().queryVariable("id", i);
+            requests.add(request);
+            cache.put(new RequestKey(request), entry(request, 60));
+        }
+
+        assertEquals(100 - cache.getEvictionCount(), cache.getSize());
+        assertEquals(cache.getSize() * 60L, cache.getWeight());
+        assertNull(cache.get(new RequestKey(requests.get(0))));
+        assertSame(
+                requests.get(99).getQueryVariables().get("id").get(0),
+                cache.get(new RequestKey(requests.get(99)))
+                        .getResponse().getEntity()
+        );
+    }
+
+    private CachingDecorator decorator(long maxWeight) {
+        return new CachingDecorator(Collections.singletonList(new AllRequestMatcher()), maxWeight) {
+            @Override
+            protected long now() {
+                return now;
+            }
+        };
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).path("/test").method("GET");
+    }
+
+    private static CachedResponse entry(BreezeHttpRequest request, long weight) {
+        Object entity = request.getQueryVariables().get("id").get(0);
+        return new CachedResponse(
+                new BreezeHttpResponse<>(entity, 200), null, request, Collections.emptyList(), Long.MAX_VALUE, weight
+        );
+    }
+
+    private static <T> BreezeHttpResponse<T> response(T entity, int status, String... headers) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            map.put(headers[i].toLowerCase(), Collections.singletonList(headers[i + 1]));
+        }
+        return new BreezeHttpResponse<>(entity, status, map);
+    }
+
+    private static class FakeClient extends AbstractBaseClient {
+        private final Queue<BreezeHttpResponse<?>> responses = new LinkedList<>();
+        private final List<BreezeHttpRequest> requests = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+            requests.add(request);
+            return (BreezeHttpResponse<T>) responses.remove();
+        }
+
+        @Override
+        public List<BreezeHttpRequestFilter> getRequestFilters() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.circuitbreaker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A single circuit: tracks the failure rate over a sliding time window and
+ * opens once it crosses the threshold. After openMillis it lets a limited
+ * number of probe requests through (half-open); a successful probe closes the
+ * circuit, a failed one opens it again.
+ *
+ * Everything is lock-free: the state is an immutable Status swapped with
+ * compareAndSet, and the window is a ring of time buckets with atomic
+ * counters, so an open circuit rejects requests without contention.
+ *
+ * @author Raul Acevedo
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+    private static final int BUCKETS = 10;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final long bucketMillis;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    private final AtomicReference<Status> status = new AtomicReference<>(new Status(State.CLOSED, 0, 0));
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+    /**
+     * @param name name for logging and exceptions
+     * @param failureRateThreshold failure rate, between 0 and 1, that opens the circuit
+     * @param minimumRequests minimum requests in the window before the failure rate is considered
+     * @param windowMillis length of the sliding window
+     * @param openMillis how long the circuit stays open before probing
+     * @param halfOpenProbes number of concurrent probe requests allowed while half-open
+     */
+    public CircuitBreaker(
+            String name,
+            double failureRateThreshold,
+            int minimumRequests,
+            long windowMillis,
+            long openMillis,
+            int halfOpenProbes
+    ) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * Ask to execute a request.
+     *
+     * @return the status the request was admitted under, to be passed to
+     * onSuccess, onFailure or release; or null if the circuit is open
+     */
+    public Status tryAcquire() {
+        while (true) {
+            long now = now();
+            Status current = status.get();
+            Status next;
+
+            switch (current.state) {
+                case CLOSED:
+                    return current;
+                case OPEN:
+                    if (now - current.since < openMillis) {
+                        return null;
+                    }
+                    next = new Status(State.HALF_OPEN, now, 1);
+                    break;
+                default:
+                    // Probes that never came back shouldn't keep the circuit half-open forever
+                    boolean expired = now - current.since >= openMillis;
+                    if (current.probes >= halfOpenProbes && !expired) {
+                        return null;
+                    }
+                    next = expired ? new Status(State.HALF_OPEN, now, 1)
+                            : new Status(State.HALF_OPEN, current.since, current.probes + 1);
+                    break;
+            }
+
+            if (status.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public void onSuccess(Status admitted) {
+        if (admitted.state == State.HALF_OPEN) {
+            Status current = status.get();
+            if (current.state == State.HALF_OPEN
+                    && status.compareAndSet(current, new Status(State.CLOSED, now(), 0))) {
+                clearWindow();
+                LOGGER.info("circuit breaker " + name + " closed after successful probe");
+            }
+        } else {
+            record(true);
+        }
+    }
+
+    public void onFailure(Status admitted) {
+        if (admitted.state == State.HALF_OPEN) {
+            Status current = status.get();
+            if (current.state == State.HALF_OPEN
+                    && status.compareAndSet(current, new Status(State.OPEN, now(), 0))) {
+                LOGGER.warn("circuit breaker " + name + " probe failed, opened again for " + openMillis + " ms");
+            }
+        } else {
+            record(false);
+            tripIfNeeded();
+        }
+    }
+
+    /**
+     * Give back an admission without recording an outcome, for requests that
+     * say nothing about the service's health, like cancelled ones. Frees the
+     * probe slot if the request was a half-open probe.
+     */
+    public void release(Status admitted) {
+        if (admitted.state != State.HALF_OPEN) {
+            return;
+        }
+        while (true) {
+            Status current = status.get();
+            if (current.state != State.HALF_OPEN || current.since != admitted.since || current.probes == 0) {
+                return;
+            }
+            if (status.compareAndSet(current, new Status(State.HALF_OPEN, current.since, current.probes - 1))) {
+                return;
+            }
+        }
+    }
+
+    public State getState() {
+        return status.get().state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private void record(boolean success) {
+        long index = now() / bucketMillis;
+        int slot = (int) (index % BUCKETS);
+
+        Bucket bucket = buckets.get(slot);
+        if (bucket == null || bucket.index != index) {
+            // Bucket is stale; whoever wins the race installs the fresh one. A
+            // count landing on the stale bucket in between is lost, which is fine.
+            Bucket fresh = new Bucket(index);
+            bucket = buckets.compareAndSet(slot, bucket, fresh) ? fresh : buckets.get(slot);
+        }
+        (success ? bucket.successes : bucket.failures).incrementAndGet();
+    }
+
+    private void tripIfNeeded() {
+        long oldest = now() / bucketMillis - BUCKETS;
+        long successes = 0;
+        long failures = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.index > oldest) {
+                successes += bucket.successes.get();
+                failures += bucket.failures.get();
+            }
+        }
+
+        long total = successes + failures;
+        if (total < minimumRequests || (double) failures / total < failureRateThreshold) {
+            return;
+        }
+
+        Status current = status.get();
+        if (current.state == State.CLOSED
+                && status.compareAndSet(current, new Status(State.OPEN, now(), 0))) {
+            LOGGER.warn("circuit breaker " + name + " opened for " + openMillis + " ms"
+                    + ", failures=" + failures + " out of " + total);
+        }
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, null);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{name=" + name + ", state=" + getState() + "}";
+    }
+
+    /** Immutable circuit state; probes counts admitted half-open requests. */
+    public static final class Status {
+        private final State state;
+        private final long since;
+        private final int probes;
+
+        private Status(State state, long since, int probes) {
+            this.state = state;
+            this.since = since;
+            this.probes = probes;
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+    }
+}
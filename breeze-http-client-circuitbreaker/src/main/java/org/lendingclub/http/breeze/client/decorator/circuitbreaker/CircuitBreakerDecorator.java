@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.circuitbreaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.AsyncDecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpRejectedException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+
+/**
+ * Stops calling a remote service that keeps failing. There is one circuit
+ * per remote service and request name; while it's open, requests fail
+ * immediately with CircuitBreakerOpenException instead of waiting for
+ * connect and read timeouts.
+ *
+ * Network errors and 5xx responses count as failures; 4xx responses mean
+ * the service is up, so they count as successes. Requests rejected locally
+ * by another decorator, such as a concurrency limit, and cancelled requests,
+ * such as the losing attempt of a hedged request, don't count at all.
+ *
+ * @author Raul Acevedo
+ */
+public class CircuitBreakerDecorator implements BreezeHttpClientDecorator {
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final long windowMillis;
+    private final long openMillis;
+    private final int halfOpenProbes;
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /** Open at 50% failures over at least 20 requests in 10 seconds, probe again after 5 seconds. */
+    public CircuitBreakerDecorator() {
+        this(Collections.singletonList(new AllRequestMatcher()), 0.5, 20, 10000, 5000, 1);
+    }
+
+    /** See CircuitBreaker for parameter details. */
+    public CircuitBreakerDecorator(
+            List<BreezeHttpClientRequestMatcher> matchers,
+            double failureRateThreshold,
+            int minimumRequests,
+            long windowMillis,
+            long openMillis,
+            int halfOpenProbes
+    ) {
+        this.matchers.addAll(matchers);
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.windowMillis = windowMillis;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new CircuitBreakerDecoratedClient(client, matchers);
+    }
+
+    /** Return the circuit breaker for the request's remote service and request name. */
+    public CircuitBreaker getCircuitBreaker(BreezeHttpRequest request) {
+        String name = request.getDefaultedRemoteService() + "/" + request.getDefaultedRequestName();
+        CircuitBreaker circuitBreaker = circuitBreakers.get(name);
+        return circuitBreaker != null ? circuitBreaker : circuitBreakers.computeIfAbsent(name, this::createCircuitBreaker);
+    }
+
+    protected CircuitBreaker createCircuitBreaker(String name) {
+        return new CircuitBreaker(name, failureRateThreshold, minimumRequests, windowMillis, openMillis, halfOpenProbes);
+    }
+
+    /** Whether the error means the remote service is unhealthy. */
+    protected boolean isFailure(Throwable t) {
+        if (t instanceof BreezeHttpResponseException) {
+            return ((BreezeHttpResponseException) t).getHttpStatusCode() / 100 == 5;
+        }
+        return true;
+    }
+
+    public class CircuitBreakerDecoratedClient extends AbstractDecoratedClient {
+        CircuitBreakerDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(CircuitBreakerDecorator.this, client, matchers);
+        }
+
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            CircuitBreaker circuitBreaker = getCircuitBreaker(request);
+            CircuitBreaker.Status admitted = acquire(circuitBreaker, request);
+
+            try {
+                BreezeHttpResponse<T> response = command.execute(request);
+                circuitBreaker.onSuccess(admitted);
+                return response;
+            } catch (RuntimeException e) {
+                record(circuitBreaker, admitted, e);
+                throw e;
+            }
+        }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            CircuitBreaker circuitBreaker = getCircuitBreaker(request);
+            CircuitBreaker.Status admitted;
+            CompletableFuture<BreezeHttpResponse<T>> future;
+
+            try {
+                admitted = acquire(circuitBreaker, request);
+            } catch (RuntimeException e) {
+                return failed(e);
+            }
+
+            try {
+                future = command.execute(request);
+            } catch (RuntimeException e) {
+                // Record it like a failed future would be, or a half-open probe would never come back
+                record(circuitBreaker, admitted, e);
+                return failed(e);
+            }
+
+            future.whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    circuitBreaker.onSuccess(admitted);
+                } else {
+                    record(circuitBreaker, admitted, unwrap(throwable));
+                }
+            });
+            return future;
+        }
+
+        private <T> CompletableFuture<T> failed(Throwable t) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(t);
+            return future;
+        }
+
+        private CircuitBreaker.Status acquire(CircuitBreaker circuitBreaker, BreezeHttpRequest request) {
+            CircuitBreaker.Status admitted = circuitBreaker.tryAcquire();
+            if (admitted == null) {
+                throw new CircuitBreakerOpenException(
+                        "circuit breaker " + circuitBreaker.getName() + " open, rejecting " + request,
+                        circuitBreaker.getName()
+                );
+            }
+            return admitted;
+        }
+
+        private void record(CircuitBreaker circuitBreaker, CircuitBreaker.Status admitted, Throwable t) {
+            if (t instanceof BreezeHttpRejectedException || t instanceof CancellationException) {
+                circuitBreaker.release(admitted);
+            } else if (isFailure(t)) {
+                circuitBreaker.onFailure(admitted);
+            } else {
+                circuitBreaker.onSuccess(admitted);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.circuitbreaker;
+
+import org.lendingclub.http.breeze.client.exception.BreezeHttpRejectedException;
+
+/**
+ * Thrown without calling the remote service when its circuit is open.
+ *
+ * @author Raul Acevedo
+ */
+public class CircuitBreakerOpenException extends BreezeHttpRejectedException {
+    public static final long serialVersionUID = -1;
+
+    private final String circuitBreaker;
+
+    public CircuitBreakerOpenException(String message, String circuitBreaker) {
+        super(message);
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /** Name of the circuit breaker that rejected the request. */
+    public String getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.circuitbreaker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreakerDecorator;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Circuit breaker configuration; FAILURE_RATE is a percentage.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientCircuitBreakerDecoratorConfig {
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientCircuitBreakerDecorator(
+            @Value(value = "${BREEZE_HTTP_CIRCUIT_BREAKER_FAILURE_RATE:50}") double failureRate,
+            @Value(value = "${BREEZE_HTTP_CIRCUIT_BREAKER_MINIMUM_REQUESTS:20}") int minimumRequests,
+            @Value(value = "${BREEZE_HTTP_CIRCUIT_BREAKER_WINDOW:10000}") long windowMillis,
+            @Value(value = "${BREEZE_HTTP_CIRCUIT_BREAKER_OPEN_DURATION:5000}") long openMillis,
+            @Value(value = "${BREEZE_HTTP_CIRCUIT_BREAKER_HALF_OPEN_PROBES:1}") int halfOpenProbes
+    ) {
+        return new CircuitBreakerDecorator(
+                singletonList(new AllRequestMatcher()),
+                failureRate / 100,
+                minimumRequests,
+                windowMillis,
+                openMillis,
+                halfOpenProbes
+        );
+    }
+}
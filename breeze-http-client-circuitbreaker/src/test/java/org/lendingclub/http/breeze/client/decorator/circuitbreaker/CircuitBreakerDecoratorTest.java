@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.circuitbreaker;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreaker.State.HALF_OPEN;
+import static org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreaker.State.OPEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Outcomes the decorator records for asynchronous requests.
+ *
+ * @author Raul Acevedo
+ */
+public class CircuitBreakerDecoratorTest {
+    private long now = 1000000;
+
+    private final CircuitBreakerDecorator decorator = new CircuitBreakerDecorator(
+            Collections.singletonList(new AllRequestMatcher()),
+            0.5,
+            1,
+            10000,
+            5000,
+            1
+    ) {
+        @Override
+        protected CircuitBreaker createCircuitBreaker(String name) {
+            return new CircuitBreaker(name, 0.5, 1, 10000, 5000, 1) {
+                @Override
+                protected long now() {
+                    return now;
+                }
+            };
+        }
+    };
+
+    @Test
+    public void probeThrowingSynchronouslyIsRecorded() {
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+        CircuitBreaker circuitBreaker = decorator.getCircuitBreaker(request());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assertEquals(OPEN, circuitBreaker.getState());
+
+        // The probe fails before it returns a future; it must still count, not hold the only probe slot
+        now += 5000;
+        fake.failure = new IllegalStateException("boom");
+        CompletableFuture<BreezeHttpResponse<String>> future = client.executeAsync(request(), String.class, null);
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(OPEN, circuitBreaker.getState());
+
+        now += 5000;
+        fake.failure = null;
+        client.executeAsync(request(), String.class, null);
+        assertEquals(HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void cancelledProbeIsNeutral() {
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+        CircuitBreaker circuitBreaker = decorator.getCircuitBreaker(request());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+
+        // A cancelled probe, like a hedging loser, neither reopens the circuit nor keeps the probe slot
+        now += 5000;
+        client.executeAsync(request(), String.class, null).cancel(true);
+        assertEquals(HALF_OPEN, circuitBreaker.getState());
+        assertNotNull(circuitBreaker.tryAcquire());
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).path("/test").method("GET");
+    }
+
+    private static class FakeClient extends AbstractBaseClient {
+        private RuntimeException failure;
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            if (failure != null) {
+                throw failure;
+            }
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public List<BreezeHttpRequestFilter> getRequestFilters() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.circuitbreaker;
+
+import org.junit.Test;
+
+import static org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreaker.State.CLOSED;
+import static org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreaker.State.HALF_OPEN;
+import static org.lendingclub.http.breeze.client.decorator.circuitbreaker.CircuitBreaker.State.OPEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Walks a circuit breaker through its states using a fake clock.
+ *
+ * @author Raul Acevedo
+ */
+public class CircuitBreakerTest {
+    private long now = 1000000;
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 0.5, 4, 10000, 5000, 1) {
+        @Override
+        protected long now() {
+            return now;
+        }
+    };
+
+    @Test
+    public void opensAndRecovers() {
+        // Below minimumRequests nothing happens
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+        assertEquals(CLOSED, circuitBreaker.getState());
+
+        // 3 failures out of 4 opens it
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assertEquals(OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+
+        // After openMillis, exactly one probe is let through
+        now += 5000;
+        CircuitBreaker.Status probe = circuitBreaker.tryAcquire();
+        assertNotNull(probe);
+        assertEquals(HALF_OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+
+        // Failed probe opens it again
+        circuitBreaker.onFailure(probe);
+        assertEquals(OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+
+        // Successful probe closes it with a clean window
+        now += 5000;
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+        assertEquals(CLOSED, circuitBreaker.getState());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assertEquals(CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void oldFailuresExpire() {
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+
+        // Window has moved on, so these three old failures no longer count
+        now += 11000;
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assertEquals(CLOSED, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.coalescing;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.RequestKey;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.QueryRequestMatcher;
+
+/**
+ * Single-flight for identical concurrent requests: while a matched request
+ * is in flight, identical requests wait for its response instead of calling
+ * the server again. This protects backends when many callers ask for the
+ * same resource at once, for example right after a cached value expires.
+ *
+ * Requests are identical if they have the same RequestKey, including the
+ * configured headers, and the same response type. By default Accept,
+ * Authorization and Cookie are compared, so callers with different
+ * credentials never share a response. Only use it for idempotent requests;
+ * by default it matches GETs. Waiting callers get the same response object,
+ * or the same exception, so entities must not be modified.
+ *
+ * @author Raul Acevedo
+ */
+public class CoalescingDecorator implements BreezeHttpClientDecorator {
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final List<String> headerNames = new ArrayList<>();
+    private final ConcurrentMap<Key, CompletableFuture<BreezeHttpResponse<?>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /** Coalesce GETs, comparing Accept, Authorization and Cookie headers. */
+    public CoalescingDecorator() {
+        this(Collections.singletonList(new QueryRequestMatcher()), Arrays.asList("Accept", "Authorization", "Cookie"));
+    }
+
+    /**
+     * @param matchers requests to coalesce; they must be idempotent
+     * @param headerNames headers that must also match for requests to be identical
+     */
+    public CoalescingDecorator(List<BreezeHttpClientRequestMatcher> matchers, Collection<String> headerNames) {
+        this.matchers.addAll(matchers);
+        this.headerNames.addAll(headerNames);
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new CoalescingDecoratedClient(client, matchers);
+    }
+
+    /** Requests that waited for an identical in-flight request rather than calling the server. */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Number of distinct requests currently in flight. */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public class CoalescingDecoratedClient extends AbstractDecoratedClient {
+        CoalescingDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(CoalescingDecorator.this, client, matchers);
+        }
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload)
+                throws BreezeHttpException {
+            if (!matches(request)) {
+                return client.execute(request, responseType, payload);
+            }
+
+            Key key = new Key(request, responseType);
+            CompletableFuture<BreezeHttpResponse<?>> call = new CompletableFuture<>();
+            CompletableFuture<BreezeHttpResponse<?>> existing = inFlight.putIfAbsent(key, call);
+            if (existing != null) {
+                coalesced.increment();
+                try {
+                    return cast(existing.join());
+                } catch (CompletionException e) {
+                    Throwable cause = unwrap(e);
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+                }
+            }
+
+            BreezeHttpResponse<T> response;
+            try {
+                response = client.execute(request, responseType, payload);
+            } catch (RuntimeException | Error e) {
+                inFlight.remove(key, call);
+                call.completeExceptionally(e);
+                throw e;
+            }
+            inFlight.remove(key, call);
+            call.complete(response);
+            return response;
+        }
+
+        @Override
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            if (!matches(request)) {
+                return client.executeAsync(request, responseType, payload);
+            }
+
+            Key key = new Key(request, responseType);
+            CompletableFuture<BreezeHttpResponse<?>> call = new CompletableFuture<>();
+            CompletableFuture<BreezeHttpResponse<?>> existing = inFlight.putIfAbsent(key, call);
+            if (existing != null) {
+                coalesced.increment();
+                return existing.thenApply(this::cast);
+            }
+
+            CompletableFuture<BreezeHttpResponse<T>> future;
+            try {
+                future = client.executeAsync(request, responseType, payload);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            future.whenComplete((response, throwable) -> {
+                inFlight.remove(key, call);
+                if (throwable == null) {
+                    call.complete(response);
+                } else {
+                    call.completeExceptionally(unwrap(throwable));
+                }
+            });
+
+            // Each caller gets its own future, so cancelling one doesn't affect the others
+            return call.thenApply(this::cast);
+        }
+
+        /** Matched requests are handled by execute and executeAsync, which know the response type. */
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            return command.execute(request);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> BreezeHttpResponse<T> cast(BreezeHttpResponse<?> response) {
+            // Safe because the key includes the response type
+            return (BreezeHttpResponse<T>) response;
+        }
+    }
+
+    private final class Key {
+        private final RequestKey request;
+        private final Type type;
+
+        Key(BreezeHttpRequest request, BreezeHttpType<?> responseType) {
+            this.request = new RequestKey(request, headerNames);
+            this.type = responseType == null ? null : responseType.getType();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+            return request.equals(that.request) && Objects.equals(type, that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * request.hashCode() + (type != null ? type.hashCode() : 0);
+        }
+    }
+}
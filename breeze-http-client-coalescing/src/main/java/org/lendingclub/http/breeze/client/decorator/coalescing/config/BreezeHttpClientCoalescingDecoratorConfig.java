@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.coalescing.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.coalescing.CoalescingDecorator;
+import org.lendingclub.http.breeze.client.matcher.QueryRequestMatcher;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Request coalescing configuration; HEADERS is a comma separated list of
+ * headers that must match for requests to share a response.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientCoalescingDecoratorConfig {
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientCoalescingDecorator(
+            @Value(value = "${BREEZE_HTTP_COALESCING_HEADERS:Accept,Authorization,Cookie}") String[] headers
+    ) {
+        return new CoalescingDecorator(singletonList(new QueryRequestMatcher()), Arrays.asList(headers));
+    }
+}
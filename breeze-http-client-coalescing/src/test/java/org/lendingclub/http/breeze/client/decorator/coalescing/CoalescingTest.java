@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.coalescing;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for CoalescingDecorator.
+ *
+ * @author Raul Acevedo
+ */
+public class CoalescingTest {
+    @Test
+    public void identicalRequestsShareOneCall() {
+        CoalescingDecorator decorator = new CoalescingDecorator();
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        CompletableFuture<BreezeHttpResponse<String>> first = client.executeAsync(request(), String.class, null);
+        CompletableFuture<BreezeHttpResponse<String>> second = client.executeAsync(request(), String.class, null);
+        assertEquals(1, fake.calls.size());
+        assertEquals(1, decorator.getInFlightCount());
+
+        // Cancelling one caller doesn't affect the others
+        second.cancel(true);
+        CompletableFuture<BreezeHttpResponse<String>> third = client.executeAsync(request(), String.class, null);
+
+        BreezeHttpResponse<String> response = new BreezeHttpResponse<>("shared", 200);
+        fake.calls.get(0).complete(response);
+        assertSame(response, first.join());
+        assertSame(response, third.join());
+        assertEquals(2, decorator.getCoalescedCount());
+        assertEquals(0, decorator.getInFlightCount());
+
+        // Once complete, the next request calls the server again
+        client.executeAsync(request(), String.class, null);
+        assertEquals(2, fake.calls.size());
+    }
+
+    @Test
+    public void differentRequestsAreNotShared() {
+        CoalescingDecorator decorator = new CoalescingDecorator();
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        client.executeAsync(request().header("Authorization", "user1"), String.class, null);
+        client.executeAsync(request().header("Authorization", "user2"), String.class, null);
+        client.executeAsync(request().queryVariable("page", 2), String.class, null);
+        client.executeAsync(request(), byte[].class, null);
+        client.executeAsync(request().method("POST"), String.class, null);
+        assertEquals(5, fake.calls.size());
+        assertEquals(0, decorator.getCoalescedCount());
+
+        // Headers that aren't compared don't matter
+        client.executeAsync(request().header("Authorization", "user1").header("X-Trace", "1"), String.class, null);
+        assertEquals(5, fake.calls.size());
+        assertEquals(1, decorator.getCoalescedCount());
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).path("/test").method("GET");
+    }
+
+    private static class FakeClient extends AbstractBaseClient {
+        private final List<CompletableFuture<BreezeHttpResponse<?>>> calls = new ArrayList<>();
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            CompletableFuture<BreezeHttpResponse<?>> call = new CompletableFuture<>();
+            calls.add(call);
+            return (CompletableFuture<BreezeHttpResponse<T>>) (CompletableFuture<?>) call;
+        }
+
+        @Override
+        public List<BreezeHttpRequestFilter> getRequestFilters() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.hedging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.AsyncDecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.DecoratorExecutors;
+import org.lendingclub.http.breeze.client.decorator.TokenBudget;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.QueryRequestMatcher;
+
+/**
+ * Hedged requests: if a matched request hasn't completed after a delay,
+ * send a second copy and use whichever response comes back first, cancelling
+ * the other. This cuts the tail latency caused by a single slow backend
+ * instance. Only use it for idempotent requests; by default it matches GETs.
+ *
+ * The delay is either fixed, or a percentile of the remote service's recent
+ * latency, so only the slowest requests get hedged. A TokenBudget per
+ * remote service caps the extra load hedging can add.
+ *
+ * Only asynchronous requests are hedged; synchronous calls pass straight
+ * through. Cancelling the returned future cancels every attempt.
+ *
+ * @author Raul Acevedo
+ */
+public class HedgingDecorator implements BreezeHttpClientDecorator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgingDecorator.class);
+    private static final long MIN_SAMPLES = 100;
+    private static final long LATENCY_WINDOW_MILLIS = 60000;
+    private static final int BUDGET_MAX_TOKENS = 10;
+
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final long delayMillis;
+    private final double percentile;
+    private final double budgetRatio;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, ServiceState> services = new ConcurrentHashMap<>();
+
+    /** Hedge GETs slower than the 95th percentile, 100 ms until there's enough data, adding at most 5% load. */
+    public HedgingDecorator() {
+        this(Collections.singletonList(new QueryRequestMatcher()), 100, 0.95, 0.05, null);
+    }
+
+    /**
+     * @param matchers requests to hedge; they must be idempotent
+     * @param delayMillis fixed delay before hedging, also used until the percentile estimate has enough samples
+     * @param percentile latency percentile to use as the delay, for example 0.95; 0 to always use delayMillis
+     * @param budgetRatio hedges allowed per request, for example 0.05
+     * @param scheduler scheduler for hedge timers; null for the one shared by all decorators
+     */
+    public HedgingDecorator(
+            List<BreezeHttpClientRequestMatcher> matchers,
+            long delayMillis,
+            double percentile,
+            double budgetRatio,
+            ScheduledExecutorService scheduler
+    ) {
+        this.matchers.addAll(matchers);
+        this.delayMillis = delayMillis;
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.scheduler = scheduler != null ? scheduler : DecoratorExecutors.scheduler();
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new HedgingDecoratedClient(client, matchers);
+    }
+
+    /** How long to wait before hedging the request. */
+    public long getHedgeDelayMillis(BreezeHttpRequest request) {
+        LatencyTracker tracker = state(request).tracker;
+        if (percentile > 0 && tracker.getCount() >= MIN_SAMPLES) {
+            return tracker.percentileMillis(percentile);
+        }
+        return delayMillis;
+    }
+
+    private ServiceState state(BreezeHttpRequest request) {
+        String name = request.getDefaultedRemoteService();
+        ServiceState state = services.get(name);
+        return state != null ? state : services.computeIfAbsent(name, (key) -> new ServiceState(budgetRatio));
+    }
+
+    public class HedgingDecoratedClient extends AbstractDecoratedClient {
+        HedgingDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(HedgingDecorator.this, client, matchers);
+        }
+
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            // A synchronous caller can't race two requests, so it's sent once as usual
+            return command.execute(request);
+        }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            ServiceState state = state(request);
+            state.budget.deposit();
+
+            Hedge<T> hedge = new Hedge<>(request, command, state);
+            hedge.attempt();
+            hedge.result.whenComplete((response, throwable) -> {
+                if (hedge.result.isCancelled()) {
+                    hedge.cancelOthers();
+                }
+            });
+
+            long delay = getHedgeDelayMillis(request);
+            try {
+                // The client below may start requests synchronously, so the timer only hands the hedge off
+                Executor executor = DecoratorExecutors.executor();
+                ScheduledFuture<?> timer = scheduler.schedule(
+                        () -> executor.execute(hedge::hedge),
+                        delay,
+                        TimeUnit.MILLISECONDS
+                );
+                hedge.result.whenComplete((response, throwable) -> timer.cancel(false));
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("could not schedule hedge for " + request, e);
+            }
+
+            return hedge.result;
+        }
+    }
+
+    /** One hedged request: the original attempt plus at most one hedge, racing to complete result. */
+    private static class Hedge<T> {
+        private final BreezeHttpRequest request;
+        private final AsyncDecoratorCommand<T> command;
+        private final ServiceState state;
+        private final CompletableFuture<BreezeHttpResponse<T>> result = new CompletableFuture<>();
+        private final List<CompletableFuture<BreezeHttpResponse<T>>> attempts = new ArrayList<>(2);
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Hedge(BreezeHttpRequest request, AsyncDecoratorCommand<T> command, ServiceState state) {
+            this.request = request;
+            this.command = command;
+            this.state = state;
+        }
+
+        void hedge() {
+            if (result.isDone() || !state.budget.tryWithdraw()) {
+                return;
+            }
+            LOGGER.debug("hedging slow " + request);
+            attempt();
+        }
+
+        private void attempt() {
+            pending.incrementAndGet();
+            long start = System.nanoTime();
+
+            CompletableFuture<BreezeHttpResponse<T>> attempt;
+            try {
+                // Each attempt gets its own copy, execution may modify the request
+                attempt = command.execute(new BreezeHttpRequest(request));
+            } catch (RuntimeException e) {
+                attempt = new CompletableFuture<>();
+                attempt.completeExceptionally(e);
+            }
+
+            synchronized (attempts) {
+                attempts.add(attempt);
+            }
+            if (result.isDone()) {
+                // The result completed while this attempt was starting, after cancelOthers() ran
+                attempt.cancel(true);
+                return;
+            }
+
+            attempt.whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    state.tracker.record(System.nanoTime() - start);
+                    if (result.complete(response)) {
+                        cancelOthers();
+                    }
+                } else if (pending.decrementAndGet() == 0 || !(throwable instanceof Exception)) {
+                    // Only fail if no other attempt can still succeed
+                    result.completeExceptionally(AbstractBaseClient.unwrap(throwable));
+                }
+            });
+        }
+
+        private void cancelOthers() {
+            synchronized (attempts) {
+                attempts.stream().filter(attempt -> !attempt.isDone()).forEach(attempt -> attempt.cancel(true));
+            }
+        }
+    }
+
+    private static class ServiceState {
+        private final LatencyTracker tracker = new LatencyTracker(LATENCY_WINDOW_MILLIS);
+        private final TokenBudget budget;
+
+        ServiceState(double budgetRatio) {
+            this.budget = new TokenBudget(budgetRatio, BUDGET_MAX_TOKENS);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.hedging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.lendingclub.http.breeze.client.decorator.LogLinearHistogram;
+
+/**
+ * Lock-free latency histogram for estimating percentiles of recent requests.
+ *
+ * Buckets are log-linear: 8 per power of two, so any estimate is within
+ * 12.5% of the real value, up to about 50 seconds. Two histograms are kept,
+ * the current and the previous window; estimates use both, and the older
+ * one is dropped every windowMillis so the estimate follows recent latency.
+ *
+ * @author Raul Acevedo
+ */
+public class LatencyTracker {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int RANGES = 17;
+
+    private final long windowMillis;
+    private final AtomicReference<Window> current;
+    private volatile Window previous = new Window(0);
+
+    public LatencyTracker(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.current = new AtomicReference<>(new Window(System.currentTimeMillis()));
+    }
+
+    public void record(long latencyNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        window().counts.record(micros / 100);
+    }
+
+    /** Number of samples in the current and previous windows. */
+    public long getCount() {
+        Window window = window();
+        return window.total() + previous.total();
+    }
+
+    /**
+     * Estimate a percentile of recent latency.
+     *
+     * @param percentile between 0 and 1, for example 0.95
+     * @return the estimate in milliseconds, or -1 if there are no samples
+     */
+    public long percentileMillis(double percentile) {
+        Window window = window();
+        Window old = previous;
+
+        long total = window.total() + old.total();
+        if (total == 0) {
+            return -1;
+        }
+
+        LogLinearHistogram counts = window.counts;
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            seen += counts.getCount(i) + old.counts.getCount(i);
+            if (seen >= target) {
+                return Math.max(1, counts.upperBound(i) / 10);
+            }
+        }
+        return Math.max(1, counts.upperBound(counts.size() - 1) / 10);
+    }
+
+    /** Return the current window, rotating it first if it's expired. */
+    private Window window() {
+        Window window = current.get();
+        long now = System.currentTimeMillis();
+        if (now - window.start >= windowMillis) {
+            Window fresh = new Window(now);
+            if (current.compareAndSet(window, fresh)) {
+                previous = window;
+                return fresh;
+            }
+            return current.get();
+        }
+        return window;
+    }
+
+    private static final class Window {
+        private final long start;
+        private final LogLinearHistogram counts = new LogLinearHistogram(SUB_BUCKET_BITS, RANGES);
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        private long total() {
+            return counts.getTotalCount();
+        }
+    }
+}
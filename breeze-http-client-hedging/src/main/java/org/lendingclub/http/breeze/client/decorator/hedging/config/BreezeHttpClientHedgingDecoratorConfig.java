@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.hedging.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.hedging.HedgingDecorator;
+import org.lendingclub.http.breeze.client.matcher.QueryRequestMatcher;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Hedged request configuration; PERCENTILE of 0 always uses the fixed DELAY.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientHedgingDecoratorConfig {
+    /** Scheduler for hedge timers; if not defined, a shared daemon scheduler is used. */
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientHedgingScheduler")
+    private ScheduledExecutorService scheduler;
+
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientHedgingDecorator(
+            @Value(value = "${BREEZE_HTTP_HEDGING_DELAY:100}") long delayMillis,
+            @Value(value = "${BREEZE_HTTP_HEDGING_PERCENTILE:0.95}") double percentile,
+            @Value(value = "${BREEZE_HTTP_HEDGING_BUDGET_RATIO:0.05}") double budgetRatio
+    ) {
+        return new HedgingDecorator(
+                singletonList(new QueryRequestMatcher()),
+                delayMillis,
+                percentile,
+                budgetRatio,
+                scheduler
+        );
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.hedging;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.TokenBudget;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for HedgingDecorator, LatencyTracker and TokenBudget.
+ *
+ * @author Raul Acevedo
+ */
+public class HedgingTest {
+    @Test
+    public void latencyPercentiles() {
+        LatencyTracker tracker = new LatencyTracker(60000);
+        assertEquals(-1, tracker.percentileMillis(0.5));
+
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(100, tracker.getCount());
+
+        // Buckets are within 12.5% of the recorded value
+        long median = tracker.percentileMillis(0.5);
+        long p99 = tracker.percentileMillis(0.99);
+        assertTrue("median " + median, median >= 50 && median <= 57);
+        assertTrue("p99 " + p99, p99 >= 99 && p99 <= 112);
+    }
+
+    @Test
+    public void slowRequestIsHedged() throws InterruptedException {
+        HedgingDecorator decorator = new HedgingDecorator(
+                Collections.singletonList(new AllRequestMatcher()), 10, 0, 1.0, null
+        );
+        BreezeHttpRequest request = new BreezeHttpRequest(null, "service1", null, null);
+        HedgingDecorator.HedgingDecoratedClient client = decorator.new HedgingDecoratedClient(null, Collections.emptyList());
+
+        // First attempt never completes, the hedge does; the slow one gets cancelled
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<BreezeHttpResponse<String>> slow = new CompletableFuture<>();
+        BreezeHttpResponse<String> fast = new BreezeHttpResponse<>("fast", 200);
+        CompletableFuture<BreezeHttpResponse<String>> result = client.decorateAsync(
+                request,
+                (attempt) -> attempts.incrementAndGet() == 1 ? slow : CompletableFuture.completedFuture(fast)
+        );
+
+        assertSame(fast, result.join());
+        assertEquals(2, attempts.get());
+
+        // Losers are cancelled right after the result completes, on the hedging thread
+        for (int i = 0; i < 100 && !slow.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(slow.isCancelled());
+    }
+
+    @Test
+    public void hedgeStartsOffTheTimerThread() {
+        HedgingDecorator decorator = new HedgingDecorator(
+                Collections.singletonList(new AllRequestMatcher()), 10, 0, 1.0, null
+        );
+        BreezeHttpRequest request = new BreezeHttpRequest(null, "service1", null, null);
+        HedgingDecorator.HedgingDecoratedClient client = decorator.new HedgingDecoratedClient(null, Collections.emptyList());
+
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicReference<String> hedgeThread = new AtomicReference<>();
+        CompletableFuture<BreezeHttpResponse<String>> result = client.decorateAsync(request, (attempt) -> {
+            if (attempts.incrementAndGet() == 1) {
+                return new CompletableFuture<>();
+            }
+            hedgeThread.set(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(new BreezeHttpResponse<>("hedge", 200));
+        });
+
+        assertEquals("hedge", result.join().getEntity());
+        assertTrue(hedgeThread.get(), hedgeThread.get().startsWith("breeze-http-worker"));
+    }
+
+    @Test
+    public void hedgeStartedAfterTheResultIsCancelled() throws InterruptedException {
+        HedgingDecorator decorator = new HedgingDecorator(
+                Collections.singletonList(new AllRequestMatcher()), 10, 0, 1.0, null
+        );
+        BreezeHttpRequest request = new BreezeHttpRequest(null, "service1", null, null);
+        HedgingDecorator.HedgingDecoratedClient client = decorator.new HedgingDecoratedClient(null, Collections.emptyList());
+
+        // The primary completes while the hedge is being started, before the hedge is tracked
+        CompletableFuture<BreezeHttpResponse<String>> primary = new CompletableFuture<>();
+        CompletableFuture<BreezeHttpResponse<String>> hedge = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<BreezeHttpResponse<String>> result = client.decorateAsync(request, (attempt) -> {
+            if (attempts.incrementAndGet() == 1) {
+                return primary;
+            }
+            primary.complete(new BreezeHttpResponse<>("primary", 200));
+            return hedge;
+        });
+
+        assertEquals("primary", result.join().getEntity());
+        for (int i = 0; i < 100 && !hedge.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(hedge.isCancelled());
+    }
+
+    @Test
+    public void cancellingResultCancelsAttempts() {
+        HedgingDecorator decorator = new HedgingDecorator(
+                Collections.singletonList(new AllRequestMatcher()), 60000, 0, 1.0, null
+        );
+        BreezeHttpRequest request = new BreezeHttpRequest(null, "service1", null, null);
+        HedgingDecorator.HedgingDecoratedClient client = decorator.new HedgingDecoratedClient(null, Collections.emptyList());
+
+        CompletableFuture<BreezeHttpResponse<String>> attempt = new CompletableFuture<>();
+        CompletableFuture<BreezeHttpResponse<String>> result = client.decorateAsync(request, (copy) -> attempt);
+
+        result.cancel(true);
+        assertTrue(attempt.isCancelled());
+    }
+
+    @Test
+    public void budgetLimitsHedges() {
+        TokenBudget budget = new TokenBudget(0.5, 1);
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+
+        // Two requests earn one hedge
+        budget.deposit();
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+}
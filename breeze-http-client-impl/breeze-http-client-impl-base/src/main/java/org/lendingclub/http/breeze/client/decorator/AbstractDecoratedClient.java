@@ -18,10 +18,13 @@ package org.lendingclub.http.breeze.client.decorator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
 import org.lendingclub.http.breeze.client.BreezeHttpType;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
@@ -86,6 +89,28 @@ public abstract class AbstractDecoratedClient extends AbstractBaseClient impleme
         return execute(request, (commandRequest) -> client.execute(request, responseType, payload));
     }
 
+    @Override
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> responseType,
+            Object payload
+    ) {
+        return executeAsync(request, (commandRequest) -> client.executeAsync(commandRequest, responseType, payload));
+    }
+
+    /**
+     * Decorates the call up to the response headers; the body is read by the
+     * caller after the decorator has returned.
+     */
+    @Override
+    public BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload)
+            throws BreezeHttpException {
+        return (BreezeHttpStreamingResponse) execute(
+                request,
+                (commandRequest) -> client.executeStreaming(commandRequest, payload)
+        );
+    }
+
     /** See if the request matches any matcher for this decorator. */
     protected boolean matches(BreezeHttpRequest request) {
         return matches(matchers, request);
@@ -105,6 +130,18 @@ public abstract class AbstractDecoratedClient extends AbstractBaseClient impleme
         }
     }
 
+    /** Decorate the async command if the request matches, otherwise execute it normally. */
+    protected <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            AsyncDecoratorCommand<T> command
+    ) {
+        if (matches(request)) {
+            return decorateAsync(request, command);
+        } else {
+            return command.execute(request);
+        }
+    }
+
     /**
      * Execute a decorated client command.
      *
@@ -115,6 +152,38 @@ public abstract class AbstractDecoratedClient extends AbstractBaseClient impleme
      */
     protected abstract <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command);
 
+    /**
+     * Execute a decorated asynchronous client command.
+     *
+     * The default implementation applies the synchronous decorate method on the
+     * calling thread, waiting for each command to complete; decorators should
+     * override it with a non-blocking version.
+     *
+     * @param request original request object
+     * @param command command to execute
+     * @param <T> return type
+     * @return future completing with object of type T
+     */
+    protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+            BreezeHttpRequest request,
+            AsyncDecoratorCommand<T> command
+    ) {
+        CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+        try {
+            future.complete(decorate(request, (commandRequest) -> {
+                try {
+                    return command.execute(commandRequest).join();
+                } catch (CompletionException e) {
+                    Throwable cause = unwrap(e);
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+                }
+            }));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     @Override
     public BreezeHttpClient getClient() {
         return client;
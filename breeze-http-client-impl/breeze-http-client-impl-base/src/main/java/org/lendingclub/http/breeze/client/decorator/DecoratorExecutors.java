@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daemon threads shared by all decorators, created on first use.
+ *
+ * The scheduler is a single timer thread for retry delays, hedge delays and
+ * queue timeouts, so its tasks must return quickly; anything that may block,
+ * such as starting a request on a synchronous client, goes to the executor.
+ *
+ * @author Raul Acevedo
+ */
+public final class DecoratorExecutors {
+    private static ScheduledExecutorService scheduler;
+    private static ExecutorService executor;
+
+    private DecoratorExecutors() {
+    }
+
+    /** Shared timer thread; tasks should only complete futures or hand off to executor(). */
+    public static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("breeze-http-scheduler"));
+        }
+        return scheduler;
+    }
+
+    /** Shared pool for requests started from timers, such as hedges and asynchronous retries. */
+    public static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(daemonThreads("breeze-http-worker"));
+        }
+        return executor;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
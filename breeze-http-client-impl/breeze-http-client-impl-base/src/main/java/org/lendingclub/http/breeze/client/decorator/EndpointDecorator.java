@@ -16,6 +16,8 @@
 
 package org.lendingclub.http.breeze.client.decorator;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 import org.lendingclub.http.breeze.client.BreezeHttpResponse;
@@ -49,6 +51,18 @@ public class EndpointDecorator implements BreezeHttpClientDecorator {
 
         @Override
         protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            return command.execute(setEndpoint(request));
+        }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            return command.execute(setEndpoint(request));
+        }
+
+        private BreezeHttpRequest setEndpoint(BreezeHttpRequest request) {
             if (request.getRootUrl() == null) {
                 request.rootUrl(rootUrl);
             }
@@ -57,7 +71,7 @@ public class EndpointDecorator implements BreezeHttpClientDecorator {
                 request.remoteService(remoteService);
             }
 
-            return command.execute(request);
+            return request;
         }
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative values, in the style of
+ * HdrHistogram: values below 2^subBucketBits get a bucket each, and every
+ * power of two range above that is split into 2^subBucketBits linear
+ * sub-buckets, so a value is known to within 1 / 2^subBucketBits of itself.
+ * Values past the last range land in the last bucket.
+ *
+ * Units are up to the caller; this only counts.
+ *
+ * @author Raul Acevedo
+ */
+public class LogLinearHistogram {
+    private final int subBucketBits;
+    private final int subBuckets;
+    private final AtomicLongArray counts;
+
+    /**
+     * @param subBucketBits log2 of the number of sub-buckets per power of two, for example 5 for about 3% precision
+     * @param ranges number of sub-bucket ranges; values up to about 2^(subBucketBits + ranges - 1) are tracked
+     */
+    public LogLinearHistogram(int subBucketBits, int ranges) {
+        if (subBucketBits < 1 || ranges < 1 || subBucketBits + ranges > 63) {
+            throw new IllegalArgumentException("subBucketBits and ranges must be positive, and add up to at most 63");
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBuckets = 1 << subBucketBits;
+        this.counts = new AtomicLongArray(subBuckets * ranges);
+    }
+
+    public void record(long value) {
+        counts.incrementAndGet(bucket(value));
+    }
+
+    /** Number of buckets. */
+    public int size() {
+        return counts.length();
+    }
+
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /** Return a bucket's count and zero it, so no value is lost between intervals. */
+    public long getAndReset(int bucket) {
+        return counts.getAndSet(bucket, 0);
+    }
+
+    /** Total count across all buckets. */
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /** Bucket for a value; negative values count as 0. */
+    public int bucket(long value) {
+        if (value < subBuckets) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        int subBucket = (int) (value >>> exponent) & (subBuckets - 1);
+        return Math.min(counts.length() - 1, (exponent + 1) * subBuckets + subBucket);
+    }
+
+    /** Largest value that falls in the bucket. */
+    public long upperBound(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int exponent = bucket / subBuckets - 1;
+        long subBucket = bucket % subBuckets;
+        return ((subBuckets + subBucket + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+
+/**
+ * Identifies what a request will fetch: method, root URL, path, path and
+ * query variables, and optionally some headers. Unlike BreezeHttpRequest
+ * equality it ignores the client, filters and logging details, so two
+ * requests built separately for the same resource have equal keys.
+ *
+ * Variable values are compared by their string form; header names are
+ * case insensitive. Keys are immutable and cache their hash code.
+ *
+ * @author Raul Acevedo
+ */
+public final class RequestKey {
+    private final BreezeHttpRequest.Method method;
+    private final String rootUrl;
+    private final String path;
+    private final Map<String, String> pathVariables;
+    private final Map<String, List<String>> queryVariables;
+    private final Map<String, List<String>> headers;
+    private final int hashCode;
+
+    /** Key without any headers. */
+    public RequestKey(BreezeHttpRequest request) {
+        this(request, Collections.emptyList());
+    }
+
+    /**
+     * @param request request to identify
+     * @param headerNames headers that select a different response, for example Accept
+     */
+    public RequestKey(BreezeHttpRequest request, Collection<String> headerNames) {
+        this.method = request.getMethod();
+        this.rootUrl = request.getRootUrl();
+        this.path = request.getPath();
+
+        Map<String, String> pathVariables = new TreeMap<>();
+        request.getPathVariables().forEach((name, value) -> pathVariables.put(name, String.valueOf(value)));
+        this.pathVariables = Collections.unmodifiableMap(pathVariables);
+
+        Map<String, List<String>> queryVariables = new TreeMap<>();
+        request.getQueryVariables().forEach((name, values) -> queryVariables.put(name, strings(values)));
+        this.queryVariables = Collections.unmodifiableMap(queryVariables);
+
+        this.headers = Collections.unmodifiableMap(headers(request, headerNames));
+
+        int result = method != null ? method.hashCode() : 0;
+        result = 31 * result + (rootUrl != null ? rootUrl.hashCode() : 0);
+        result = 31 * result + (path != null ? path.hashCode() : 0);
+        result = 31 * result + this.pathVariables.hashCode();
+        result = 31 * result + this.queryVariables.hashCode();
+        result = 31 * result + this.headers.hashCode();
+        this.hashCode = result;
+    }
+
+    /** Values of the given request headers, keyed by lowercase name; missing headers are left out. */
+    public static Map<String, List<String>> headers(BreezeHttpRequest request, Collection<String> headerNames) {
+        Map<String, List<String>> headers = new TreeMap<>();
+        if (headerNames.isEmpty()) {
+            return headers;
+        }
+
+        for (String name : headerNames) {
+            headers.put(name.toLowerCase(), null);
+        }
+        request.getHeaders().forEach((name, values) -> {
+            String lowercase = name.toLowerCase();
+            if (headers.containsKey(lowercase)) {
+                headers.put(lowercase, Collections.unmodifiableList(new ArrayList<>(values)));
+            }
+        });
+        headers.values().removeIf((values) -> values == null);
+        return headers;
+    }
+
+    private static List<String> strings(List<Object> values) {
+        List<String> strings = new ArrayList<>(values.size());
+        values.forEach((value) -> strings.add(String.valueOf(value)));
+        return Collections.unmodifiableList(strings);
+    }
+
+    public BreezeHttpRequest.Method getMethod() {
+        return method;
+    }
+
+    public String getRootUrl() {
+        return rootUrl;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Map<String, String> getPathVariables() {
+        return pathVariables;
+    }
+
+    public Map<String, List<String>> getQueryVariables() {
+        return queryVariables;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        RequestKey that = (RequestKey) o;
+        return hashCode == that.hashCode
+                && method == that.method
+                && (rootUrl != null ? rootUrl.equals(that.rootUrl) : that.rootUrl == null)
+                && (path != null ? path.equals(that.path) : that.path == null)
+                && pathVariables.equals(that.pathVariables)
+                && queryVariables.equals(that.queryVariables)
+                && headers.equals(that.headers);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestKey{" + method + " " + rootUrl + path
+                + ", pathVariables=" + pathVariables.keySet()
+                + ", queryVariables=" + queryVariables.keySet()
+                + ", headers=" + headers.keySet()
+                + "}";
+    }
+}
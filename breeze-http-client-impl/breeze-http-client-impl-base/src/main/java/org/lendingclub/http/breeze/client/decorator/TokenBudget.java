@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting extra requests, such as retries or hedges, to a
+ * fraction of traffic: every request earns ratio tokens, every extra
+ * request spends one. The bucket starts full, and holds at most maxTokens so
+ * a quiet period can't bank a burst.
+ *
+ * Tokens are kept as thousandths in an AtomicLong so deposits and
+ * withdrawals are lock-free.
+ *
+ * @author Raul Acevedo
+ */
+public class TokenBudget {
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    /**
+     * @param ratio extra requests allowed per request, for example 0.05 for 5% extra load
+     * @param maxTokens maximum (and initial) number of extra requests that can be banked
+     */
+    public TokenBudget(double ratio, int maxTokens) {
+        if (ratio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("ratio and maxTokens must not be negative");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /** Record a request that earns tokens. */
+    public void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+    }
+
+    /** Take a token for an extra request; returns false if the budget is exhausted. */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /** Number of extra requests currently available. */
+    public double getBalance() {
+        return (double) balance.get() / SCALE;
+    }
+
+    public double getRatio() {
+        return (double) deposit / SCALE;
+    }
+
+    public int getMaxTokens() {
+        return (int) (maxBalance / SCALE);
+    }
+}
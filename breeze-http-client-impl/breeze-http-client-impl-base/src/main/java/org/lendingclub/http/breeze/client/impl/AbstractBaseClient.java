@@ -16,14 +16,31 @@
 
 package org.lendingclub.http.breeze.client.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
 import org.lendingclub.http.breeze.client.BreezeHttpType;
 import org.lendingclub.http.breeze.client.decorator.EndpointDecorator;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.DELETE;
 import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.GET;
+import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.HEAD;
+import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.OPTIONS;
 import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.PATCH;
 import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.POST;
 import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.PUT;
@@ -31,11 +48,13 @@ import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.PUT;
 /**
  * Base implementation of BreezeHttpClient; can be used by decorators or real
  * invoking implementations. This class only delegates methods to the main
- * execute method.
+ * execute and executeAsync methods.
  *
  * @author Raul Acevedo
  */
 public abstract class AbstractBaseClient implements BreezeHttpClient {
+    private static final long TRANSFER_SIZE = 1 << 20;
+
     @Override
     public BreezeHttpRequest request() {
         return new BreezeHttpRequest(null, null, this, getRequestFilters());
@@ -107,14 +126,203 @@ public abstract class AbstractBaseClient implements BreezeHttpClient {
         return execute(request.method(PATCH), responseType, payload).getEntity();
     }
 
+    @Override
+    public void delete(BreezeHttpRequest request) throws BreezeHttpException {
+        execute(request.method(DELETE), Void.class, null);
+    }
+
+    @Override
+    public <T> T delete(BreezeHttpRequest request, Class<T> responseClass) throws BreezeHttpException {
+        return execute(request.method(DELETE), responseClass, null).getEntity();
+    }
+
+    @Override
+    public <T> T delete(BreezeHttpRequest request, BreezeHttpType<T> responseType) throws BreezeHttpException {
+        return execute(request.method(DELETE), responseType, null).getEntity();
+    }
+
+    @Override
+    public BreezeHttpResponse<Void> head(BreezeHttpRequest request) throws BreezeHttpException {
+        return execute(request.method(HEAD), Void.class, null);
+    }
+
+    @Override
+    public BreezeHttpResponse<Void> options(BreezeHttpRequest request) throws BreezeHttpException {
+        return execute(request.method(OPTIONS), Void.class, null);
+    }
+
     @Override
     public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, Class<T> responseClass, Object payload)
             throws BreezeHttpException {
         return execute(request, new BreezeHttpType<>(responseClass), payload);
     }
 
+    @Override
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            Class<T> responseClass,
+            Object payload
+    ) {
+        return executeAsync(request, new BreezeHttpType<>(responseClass), payload);
+    }
+
+    /**
+     * Fallback for implementations that can't leave the body on the
+     * connection: reads the whole body into memory and streams it from there.
+     * Implementations should override this with a real streaming invocation.
+     */
+    @Override
+    public BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload)
+            throws BreezeHttpException {
+        BreezeHttpResponse<byte[]> response = execute(request, byte[].class, payload);
+        byte[] body = response.getEntity() != null ? response.getEntity() : new byte[0];
+        return new BreezeHttpStreamingResponse(
+                new ByteArrayInputStream(body),
+                response.getHttpStatusCode(),
+                response.getHeaders(),
+                () -> { }
+        );
+    }
+
+    @Override
+    public <T> T executeStreaming(
+            BreezeHttpRequest request,
+            Object payload,
+            BreezeHttpStreamingResponse.Handler<T> handler
+    ) throws BreezeHttpException {
+        try (BreezeHttpStreamingResponse response = executeStreaming(request, payload)) {
+            return handler.handle(response);
+        } catch (IOException e) {
+            throw new BreezeHttpException("error reading response of " + request, e);
+        }
+    }
+
+    /**
+     * Copies the streaming response body into the file with
+     * FileChannel.transferFrom, in bounded chunks, so memory use doesn't grow
+     * with the size of the body. This is not zero-copy: the channel over the
+     * response InputStream reads through a small heap buffer. If the download
+     * fails partway the target may be left incomplete.
+     */
+    @Override
+    public BreezeHttpResponse<Path> download(BreezeHttpRequest request, Path target) throws BreezeHttpException {
+        return executeStreaming(request.method(GET), null, (response) -> {
+            try (
+                    ReadableByteChannel body = Channels.newChannel(response.getEntity());
+                    FileChannel file = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)
+            ) {
+                long position = 0;
+                long count = file.transferFrom(body, position, TRANSFER_SIZE);
+                while (count > 0) {
+                    position += count;
+                    count = file.transferFrom(body, position, TRANSFER_SIZE);
+                }
+            }
+            return new BreezeHttpResponse<>(target, response.getHttpStatusCode(), response.getHeaders());
+        });
+    }
+
+    /**
+     * Fallback for implementations without a non-blocking transport: executes
+     * the request on the calling thread and returns an already completed
+     * future. Implementations should override this with a real asynchronous
+     * invocation.
+     */
+    @Override
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> responseType,
+            Object payload
+    ) {
+        CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(request, responseType, payload));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(BreezeHttpRequest request, Class<T> responseClass) {
+        return executeAsync(request.method(GET), responseClass, null).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType) {
+        return executeAsync(request.method(GET), responseType, null).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> postAsync(BreezeHttpRequest request, Class<T> responseClass, Object payload) {
+        return executeAsync(request.method(POST), responseClass, payload).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> postAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> responseType,
+            Object payload
+    ) {
+        return executeAsync(request.method(POST), responseType, payload).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> putAsync(BreezeHttpRequest request, Class<T> responseClass, Object payload) {
+        return executeAsync(request.method(PUT), responseClass, payload).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> putAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> responseType,
+            Object payload
+    ) {
+        return executeAsync(request.method(PUT), responseType, payload).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> patchAsync(BreezeHttpRequest request, Class<T> responseClass, Object payload) {
+        return executeAsync(request.method(PATCH), responseClass, payload).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> patchAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> responseType,
+            Object payload
+    ) {
+        return executeAsync(request.method(PATCH), responseType, payload).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> deleteAsync(BreezeHttpRequest request, Class<T> responseClass) {
+        return executeAsync(request.method(DELETE), responseClass, null).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> deleteAsync(BreezeHttpRequest request, BreezeHttpType<T> responseType) {
+        return executeAsync(request.method(DELETE), responseType, null).thenApply(BreezeHttpResponse::getEntity);
+    }
+
+    @Override
+    public CompletableFuture<BreezeHttpResponse<Void>> headAsync(BreezeHttpRequest request) {
+        return executeAsync(request.method(HEAD), Void.class, null);
+    }
+
     @Override
     public BreezeHttpClient forService(String rootUrl, String remoteService) {
         return new EndpointDecorator(rootUrl, remoteService).decorate(this);
     }
+
+    /**
+     * Strip the CompletionException/ExecutionException wrappers that
+     * CompletableFuture adds, so callers see the original BreezeHttpException.
+     */
+    public static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl;
+
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+
+/**
+ * Codec for protobuf generated message classes; needs the optional
+ * com.google.protobuf:protobuf-java dependency. Messages are read with the
+ * parser of the response class' default instance, looked up once per class.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeProtobufCodec implements BreezeHttpCodec {
+    public static final String PROTOBUF = "application/x-protobuf";
+
+    private final Map<Class<?>, Parser<?>> parsers = new ConcurrentHashMap<>();
+
+    @Override
+    public String getMediaType() {
+        return PROTOBUF;
+    }
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return MessageLite.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void write(Object value, OutputStream out) throws IOException {
+        ((MessageLite) value).writeTo(out);
+    }
+
+    @Override
+    public Object read(Type type, InputStream in) throws IOException {
+        if (!(type instanceof Class) || !supports((Class<?>) type)) {
+            throw new IllegalArgumentException(type + " is not a protobuf message class");
+        }
+        return parsers.computeIfAbsent((Class<?>) type, BreezeProtobufCodec::parser).parseFrom(in);
+    }
+
+    private static Parser<?> parser(Class<?> type) {
+        try {
+            return ((MessageLite) type.getMethod("getDefaultInstance").invoke(null)).getParserForType();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(type + " has no default instance", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content encodings clients can compress request bodies with and decompress
+ * responses from. Zstandard needs the optional com.github.luben:zstd-jni
+ * dependency.
+ *
+ * @author Raul Acevedo
+ */
+public enum ContentEncoding {
+    GZIP("gzip") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    ZSTD("zstd") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return ZstdCodec.encode(out);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return ZstdCodec.decode(in);
+        }
+
+        @Override
+        public void checkAvailable() {
+            try {
+                ZstdCodec.load();
+            } catch (LinkageError e) {
+                throw new IllegalStateException("zstd needs the com.github.luben:zstd-jni dependency and its native "
+                        + "library for this platform", e);
+            }
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String name;
+
+    ContentEncoding(String name) {
+        this.name = name;
+    }
+
+    /** Name as used in the Content-Encoding and Accept-Encoding headers. */
+    public String getName() {
+        return name;
+    }
+
+    /** Stream that encodes what is written to it into out; closing it closes out. */
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    /** Stream that decodes what is read from in. */
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    public byte[] encode(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (OutputStream encoder = encode(out)) {
+            encoder.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Fail fast if the encoding can't be used on this JVM, rather than on the
+     * first request; builders and configurations call this.
+     *
+     * @throws IllegalStateException if an optional dependency is missing
+     */
+    public void checkAvailable() {
+    }
+
+    /**
+     * Find the encoding for a configured name, ignoring case.
+     *
+     * @return the encoding, or null if name is null or empty, meaning no compression
+     * @throws IllegalArgumentException if the name isn't a supported encoding
+     */
+    public static ContentEncoding forName(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        ContentEncoding encoding = forHeader(name);
+        if (encoding == null) {
+            throw new IllegalArgumentException("unknown content encoding " + name + ", expected gzip or zstd");
+        }
+        return encoding;
+    }
+
+    /** Find the encoding for a Content-Encoding header value, or null for unknown encodings and identity. */
+    public static ContentEncoding forHeader(String value) {
+        for (ContentEncoding encoding : values()) {
+            if (encoding.name.equalsIgnoreCase(value)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+}
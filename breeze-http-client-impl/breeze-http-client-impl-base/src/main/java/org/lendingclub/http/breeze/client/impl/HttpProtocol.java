@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl;
+
+/**
+ * Wire protocols clients can use through OkHttpTransport, which needs the
+ * optional com.squareup.okhttp3:okhttp dependency.
+ *
+ * HTTP_2 negotiates h2 with ALPN on https URLs and falls back to HTTP/1.1
+ * for servers, or plain http URLs, that don't support it. H2C speaks
+ * cleartext HTTP/2 with prior knowledge, so every server the client talks
+ * to must accept h2c; it is meant for internal plaintext services.
+ *
+ * @author Raul Acevedo
+ */
+public enum HttpProtocol {
+    HTTP_1_1("http/1.1"),
+    HTTP_2("h2"),
+    H2C("h2c");
+
+    private final String name;
+
+    HttpProtocol(String name) {
+        this.name = name;
+    }
+
+    /** Name as used in ALPN and configuration properties. */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Find the protocol for a configuration property value.
+     *
+     * @param name a protocol name like "h2", "h2c" or "http/1.1", ignoring case
+     * @return the protocol, or null if name is null or empty, meaning the default transport
+     * @throws IllegalArgumentException if the name isn't a supported protocol
+     */
+    public static HttpProtocol forName(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        for (HttpProtocol protocol : values()) {
+            if (protocol.name.equalsIgnoreCase(name)) {
+                return protocol;
+            }
+        }
+        throw new IllegalArgumentException("unknown protocol " + name + ", expected h2, h2c or http/1.1");
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Creates OkHttp clients for the RestTemplate and JAX-RS transports, which
+ * use it when an HttpProtocol is configured.
+ *
+ * With HTTP/2 each host gets a single connection carrying many concurrent
+ * streams, and OkHttp only opens another one when the server's advertised
+ * SETTINGS_MAX_CONCURRENT_STREAMS is reached. The client side limit,
+ * maxConcurrentStreams, caps the asynchronous calls in flight per host;
+ * synchronous calls are bounded by the threads making them.
+ *
+ * @author Raul Acevedo
+ */
+public final class OkHttpTransport {
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    private static final int KEEP_ALIVE_MINUTES = 5;
+    private static final int MIN_MAX_REQUESTS = 64;
+
+    private OkHttpTransport() {
+    }
+
+    public static OkHttpClient.Builder builder(HttpProtocol protocol, int maxConcurrentStreams) {
+        return builder(protocol, maxConcurrentStreams, DEFAULT_MAX_IDLE_CONNECTIONS);
+    }
+
+    public static OkHttpClient.Builder builder(HttpProtocol protocol, int maxConcurrentStreams, int maxIdleConnections) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(MIN_MAX_REQUESTS, maxConcurrentStreams));
+        dispatcher.setMaxRequestsPerHost(maxConcurrentStreams);
+
+        return new OkHttpClient.Builder()
+                .protocols(protocols(protocol))
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES));
+    }
+
+    private static List<Protocol> protocols(HttpProtocol protocol) {
+        switch (protocol) {
+            case HTTP_2:
+                return asList(Protocol.HTTP_2, Protocol.HTTP_1_1);
+            case H2C:
+                return singletonList(Protocol.H2_PRIOR_KNOWLEDGE);
+            default:
+                return singletonList(Protocol.HTTP_1_1);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Keeps references to the optional zstd-jni classes out of ContentEncoding,
+ * so they are only loaded when Zstandard is actually used.
+ *
+ * @author Raul Acevedo
+ */
+final class ZstdCodec {
+    private ZstdCodec() {
+    }
+
+    /** Load the native library; throws LinkageError if zstd-jni or its library for this platform is missing. */
+    static void load() {
+        Native.load();
+    }
+
+    static OutputStream encode(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out);
+    }
+
+    static InputStream decode(InputStream in) throws IOException {
+        return new ZstdInputStream(in);
+    }
+}
@@ -16,18 +16,28 @@
 
 package org.lendingclub.http.breeze.client.matcher;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 
 import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method;
 
 /**
- * Matches GET requests.
+ * Matches read-only requests: GET, HEAD and OPTIONS.
  *
  * @author Raul Acevedo
  */
 public class QueryRequestMatcher implements BreezeHttpClientRequestMatcher {
+    private static final Set<Method> QUERY_METHODS = new HashSet<>(Arrays.asList(
+            Method.GET,
+            Method.HEAD,
+            Method.OPTIONS
+    ));
+
     @Override
     public boolean matches(BreezeHttpRequest request) {
-        return Method.GET.equals(request.getMethod());
+        return QUERY_METHODS.contains(request.getMethod());
     }
 }
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.httpasync;
+
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.entity.NFileEntity;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBreezeHttpClient;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeJacksonCodec;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeObjectMapper;
+import org.lendingclub.http.breeze.client.impl.resttemplate.BreezeUriTemplate;
+import org.lendingclub.http.breeze.client.payload.BreezeReplayablePayload;
+import org.lendingclub.http.breeze.client.payload.BreezeRequestForm;
+
+/**
+ * Non-blocking implementation on Apache HttpAsyncClient. Requests are sent
+ * and responses received by the client's I/O dispatcher threads, so any
+ * number of requests can be in flight without a thread each; synchronous
+ * calls simply wait for the asynchronous one.
+ *
+ * Bodies are written and read with BreezeHttpCodecs, chosen by the request's
+ * Content-Type and the response's Content-Type; JSON, through a
+ * BreezeObjectMapper, is the default. byte[], String, InputStream, Path,
+ * replayable and form payloads are sent as they are, except that an
+ * InputStream is read into memory first: reading it while sending would
+ * block an I/O dispatcher thread. URLs are expanded the same way as the
+ * RestTemplate implementation does.
+ *
+ * Responses are buffered in memory before they are decoded, which also
+ * means streaming responses and downloads are read whole first; use another
+ * implementation for bodies too large for that.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpAsyncClient extends AbstractBreezeHttpClient {
+    public static final String JSON = "application/json";
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final ContentType TEXT_PLAIN = ContentType.create("text/plain", Consts.UTF_8);
+    private static final ContentType FORM = ContentType.create("application/x-www-form-urlencoded");
+
+    protected final CloseableHttpAsyncClient httpClient;
+    protected final BreezeHttpCodec jsonCodec;
+    protected final List<BreezeHttpCodec> codecs;
+    protected final Class<?> errorResponseClass;
+
+    /** Client with the default JSON codec and no filters; httpClient must already be started. */
+    public BreezeHttpAsyncClient(CloseableHttpAsyncClient httpClient) {
+        this(
+                httpClient,
+                new BreezeJacksonCodec(BreezeObjectMapper.create(), JSON),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                LoggerFactory.getLogger(BreezeHttpAsyncClient.class),
+                String.class
+        );
+    }
+
+    public BreezeHttpAsyncClient(
+            CloseableHttpAsyncClient httpClient,
+            BreezeHttpCodec jsonCodec,
+            List<BreezeHttpCodec> codecs,
+            List<BreezeHttpRequestFilter> requestFilters,
+            Logger logger,
+            Class<?> errorResponseClass
+    ) {
+        super(requestFilters, logger);
+        this.httpClient = httpClient;
+        this.jsonCodec = jsonCodec;
+        this.codecs = new ArrayList<>(codecs);
+        this.errorResponseClass = errorResponseClass;
+    }
+
+    public CloseableHttpAsyncClient getHttpClient() {
+        return httpClient;
+    }
+
+    @Override
+    public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> genericType, Object payload)
+            throws BreezeHttpException {
+        try {
+            return executeAsync(request, genericType, payload).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BreezeHttpException("interrupted executing " + request, e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof BreezeHttpException) {
+                throw (BreezeHttpException) cause;
+            }
+            throw new BreezeHttpException("error executing " + request, cause);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> genericType,
+            Object payload
+    ) {
+        return invokeAsync(request, genericType == null ? Void.class : genericType.getType(), payload);
+    }
+
+    protected <T> CompletableFuture<BreezeHttpResponse<T>> invokeAsync(
+            BreezeHttpRequest request,
+            Type type,
+            Object payload
+    ) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+
+        try {
+            logRequestStart(request);
+
+            FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    try {
+                        BreezeHttpResponse<T> breezeResponse = createResponse(request, type, response);
+                        logRequestEnd(request, startTime);
+                        future.complete(breezeResponse);
+                    } catch (Exception e) {
+                        future.completeExceptionally(asyncException(request, startTime, e));
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    future.completeExceptionally(asyncException(request, startTime, e));
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            };
+
+            Future<HttpResponse> invocation = httpClient.execute(createRequest(request, payload), callback);
+
+            // Cancelling our future, for example when a hedged request loses, aborts the request
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    invocation.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(asyncException(request, startTime, e));
+        }
+
+        return future;
+    }
+
+    /** Log and convert an asynchronous failure; this must not throw, or the caller's future would never complete. */
+    protected BreezeHttpException asyncException(BreezeHttpRequest request, long startTime, Throwable throwable) {
+        BreezeHttpException breezeException = throwable instanceof BreezeHttpException
+                ? (BreezeHttpException) throwable
+                : new BreezeHttpException("error executing " + request, throwable);
+        logRequestException(
+                request,
+                startTime,
+                throwable instanceof Exception ? (Exception) throwable : breezeException
+        );
+        return breezeException;
+    }
+
+    protected HttpUriRequest createRequest(BreezeHttpRequest request, Object payload) throws IOException {
+        URI uri = BreezeUriTemplate.get(request.getRootUrl(), request.getPath())
+                .expand(request.getPathVariables(), request.getQueryVariables());
+        RequestBuilder builder = RequestBuilder.create(request.getMethod().toString()).setUri(uri);
+
+        // The entity decides the body's length and framing, so those headers aren't copied
+        for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+            String name = entry.getKey();
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                    && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                entry.getValue().forEach((value) -> builder.addHeader(name, value));
+            }
+        }
+        if (firstHeader(request, HttpHeaders.ACCEPT) == null) {
+            builder.addHeader(HttpHeaders.ACCEPT, JSON);
+        }
+
+        builder.setEntity(createEntity(firstHeader(request, HttpHeaders.CONTENT_TYPE), payload));
+        return builder.build();
+    }
+
+    protected HttpEntity createEntity(String contentType, Object payload) throws IOException {
+        if (payload == null) {
+            return null;
+        } else if (payload instanceof BreezeReplayablePayload) {
+            return createEntity(contentType, ((BreezeReplayablePayload) payload).getPayload());
+        } else if (payload instanceof byte[]) {
+            return new NByteArrayEntity((byte[]) payload, contentType(contentType, ContentType.APPLICATION_OCTET_STREAM));
+        } else if (payload instanceof String) {
+            ContentType type = contentType(contentType, TEXT_PLAIN);
+            Charset charset = type.getCharset() == null ? Consts.UTF_8 : type.getCharset();
+            return new NByteArrayEntity(((String) payload).getBytes(charset), type);
+        } else if (payload instanceof InputStream) {
+            return new NByteArrayEntity(
+                    readAll((InputStream) payload),
+                    contentType(contentType, ContentType.APPLICATION_OCTET_STREAM)
+            );
+        } else if (payload instanceof Path) {
+            return new NFileEntity(
+                    ((Path) payload).toFile(),
+                    contentType(contentType, ContentType.APPLICATION_OCTET_STREAM)
+            );
+        } else if (payload instanceof BreezeRequestForm) {
+            List<NameValuePair> params = new ArrayList<>();
+            for (Map.Entry<String, String> param : ((BreezeRequestForm) payload).params().entrySet()) {
+                params.add(new BasicNameValuePair(param.getKey(), param.getValue()));
+            }
+            return new NByteArrayEntity(URLEncodedUtils.format(params, Consts.UTF_8).getBytes(Consts.ASCII), FORM);
+        }
+
+        BreezeHttpCodec codec = codec(contentType, payload.getClass());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        codec.write(payload, body);
+        return new NByteArrayEntity(body.toByteArray(), contentType(contentType, ContentType.create(codec.getMediaType())));
+    }
+
+    /** Read and close a stream payload, on the caller's thread rather than an I/O dispatcher. */
+    private byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int count = stream.read(buffer); count != -1; count = stream.read(buffer)) {
+                body.write(buffer, 0, count);
+            }
+            return body.toByteArray();
+        }
+    }
+
+    private ContentType contentType(String contentType, ContentType defaultType) {
+        return contentType == null ? defaultType : ContentType.parse(contentType);
+    }
+
+    /** The codec for a media type, with or without parameters; JSON if none of the codecs match. */
+    protected BreezeHttpCodec codec(String contentType, Class<?> type) {
+        if (contentType != null) {
+            String mimeType = ContentType.parse(contentType).getMimeType();
+            for (BreezeHttpCodec codec : codecs) {
+                if (codec.getMediaType().equalsIgnoreCase(mimeType) && codec.supports(type)) {
+                    return codec;
+                }
+            }
+        }
+        return jsonCodec;
+    }
+
+    protected <T> BreezeHttpResponse<T> createResponse(BreezeHttpRequest request, Type type, HttpResponse response)
+            throws IOException {
+        int statusCode = response.getStatusLine().getStatusCode();
+        HttpEntity entity = response.getEntity();
+        byte[] body = entity == null ? EMPTY : EntityUtils.toByteArray(entity);
+        String contentType = entity == null || entity.getContentType() == null
+                ? null
+                : entity.getContentType().getValue();
+        Map<String, List<String>> headers = headers(response);
+
+        if (statusCode / 100 != 2) {
+            throw responseException(request, statusCode, contentType, body, headers);
+        }
+
+        @SuppressWarnings("unchecked")
+        T value = (T) read(type, contentType, body);
+        return new BreezeHttpResponse<>(value, statusCode, headers);
+    }
+
+    protected BreezeHttpResponseException responseException(
+            BreezeHttpRequest request,
+            int statusCode,
+            String contentType,
+            byte[] body,
+            Map<String, List<String>> headers
+    ) {
+        int statusFamily = statusCode / 100;
+        String message = null;
+        Object error = null;
+
+        if ((statusFamily == 4 || statusFamily == 5) && body.length > 0) {
+            try {
+                message = "service failed with "
+                        + (statusFamily == 4 ? "client" : "server")
+                        + " error invoking " + request;
+                error = read(errorResponseClass, contentType, body);
+            } catch (Exception e) {
+                logger.warn("error parsing response for " + request, e);
+            }
+        }
+
+        if (message == null) {
+            message = "service failed with unexpected error invoking " + request;
+        }
+
+        return new BreezeHttpResponseException(message, request, new BreezeHttpResponse<>(error, statusCode, headers));
+    }
+
+    /** Decode a body; byte[], String and InputStream are returned as they are, anything else goes to a codec. */
+    protected Object read(Type type, String contentType, byte[] body) throws IOException {
+        if (type == null || type == Void.class || body.length == 0) {
+            return null;
+        } else if (type == byte[].class) {
+            return body;
+        } else if (type == String.class) {
+            Charset charset = contentType == null ? null : ContentType.parse(contentType).getCharset();
+            return new String(body, charset == null ? Consts.UTF_8 : charset);
+        } else if (type == InputStream.class) {
+            return new ByteArrayInputStream(body);
+        }
+
+        return codec(contentType, rawClass(type)).read(type, new ByteArrayInputStream(body));
+    }
+
+    private Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        return Object.class;
+    }
+
+    protected Map<String, List<String>> headers(HttpResponse response) {
+        Map<String, List<String>> headers = new HashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName().toLowerCase(), (name) -> new ArrayList<>()).add(header.getValue());
+        }
+        return headers;
+    }
+
+    private String firstHeader(BreezeHttpRequest request, String name) {
+        List<String> values = request.getHeaders().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
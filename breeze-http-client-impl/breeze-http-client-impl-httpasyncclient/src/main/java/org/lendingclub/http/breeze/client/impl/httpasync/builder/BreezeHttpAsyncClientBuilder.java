@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.httpasync.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.httpasync.BreezeHttpAsyncClient;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeJacksonCodec;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeObjectMapper;
+
+import static java.lang.Boolean.FALSE;
+import static java.util.Arrays.asList;
+
+/**
+ * Builder for the HttpAsyncClient client. Unless an HttpAsyncClient is
+ * given, one is created with the timeouts, proxy, ssl and pooling settings
+ * and started. Its I/O reactor threads keep the JVM running until the
+ * HttpAsyncClient is closed, see BreezeHttpAsyncClient.getHttpClient(), or
+ * create it with buildHttpClient() so its lifecycle can be managed on its
+ * own, as BreezeHttpAsyncClientConfig does.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpAsyncClientBuilder {
+    private static final int SELECT_INTERVAL = 100;
+
+    private final List<BreezeHttpRequestFilter> filters = new ArrayList<>();
+    private final List<BreezeHttpClientDecorator> decorators = new ArrayList<>();
+    private final List<BreezeHttpCodec> codecs = new ArrayList<>();
+    private CloseableHttpAsyncClient httpClient = null;
+    private ObjectMapper objectMapper = null;
+    private Logger logger = LoggerFactory.getLogger(BreezeHttpAsyncClient.class);
+    private Class<?> errorResponseClass = String.class;
+    private Integer connectTimeout = null;
+    private Integer readTimeout = null;
+    private String proxyHost = null;
+    private String proxyPort = null;
+    private SSLContext sslContext = null;
+    private Integer maxConnections = null;
+    private Integer maxConnectionsPerRoute = null;
+    private Integer ioThreads = null;
+    private Boolean httpsAllowAllHosts = null;
+    private Boolean poolStatefulSslConnections = null;
+
+    /** Use the given HttpAsyncClient, starting it if needed; it can't be combined with timeouts, proxy or ssl. */
+    public BreezeHttpAsyncClientBuilder withHttpClient(CloseableHttpAsyncClient httpClient) {
+        this.httpClient = httpClient;
+        return this;
+    }
+
+    /** ObjectMapper for JSON bodies; defaults to one from BreezeObjectMapper. */
+    public BreezeHttpAsyncClientBuilder withObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        return this;
+    }
+
+    /**
+     * Read and write the codec's media type, for requests that ask for it by
+     * Content-Type and Accept; JSON stays the default.
+     */
+    public BreezeHttpAsyncClientBuilder withCodec(BreezeHttpCodec codec) {
+        this.codecs.add(codec);
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withCodecs(List<BreezeHttpCodec> codecs) {
+        this.codecs.addAll(codecs);
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withFilter(BreezeHttpRequestFilter filter) {
+        this.filters.add(filter);
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withDecorator(BreezeHttpClientDecorator decorator) {
+        this.decorators.add(decorator);
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withDecorators(BreezeHttpClientDecorator... decorators) {
+        return withDecorators(asList(decorators));
+    }
+
+    public BreezeHttpAsyncClientBuilder withDecorators(List<BreezeHttpClientDecorator> decorators) {
+        this.decorators.addAll(decorators);
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withLogger(Logger logger) {
+        this.logger = logger;
+        return this;
+    }
+
+    /** Class to read 4xx and 5xx response bodies into; defaults to String. */
+    public BreezeHttpAsyncClientBuilder withErrorResponseClass(Class<?> errorResponseClass) {
+        this.errorResponseClass = errorResponseClass;
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withTimeout(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /** Use the given proxy. Ignored if either values is null or an empty string. */
+    public BreezeHttpAsyncClientBuilder withProxy(String proxyHost, String proxyPort) {
+        this.proxyHost = proxyHost;
+        this.proxyPort = proxyPort;
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withSSLContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withHttpsAllowAllHosts(boolean httpsAllowAllHosts) {
+        this.httpsAllowAllHosts = httpsAllowAllHosts;
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withMaxConnections(Integer maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public BreezeHttpAsyncClientBuilder withMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /** Number of I/O dispatcher threads; defaults to the number of processors. */
+    public BreezeHttpAsyncClientBuilder withIoThreads(Integer ioThreads) {
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /** Same as BreezeHttpRestTemplateClientBuilder.withPoolStatefulSslConnections(). */
+    public BreezeHttpAsyncClientBuilder withPoolStatefulSslConnections(Boolean poolStatefulSslConnections) {
+        this.poolStatefulSslConnections = poolStatefulSslConnections;
+        return this;
+    }
+
+    public BreezeHttpClient build() {
+        if (httpClient == null) {
+            httpClient = createHttpClient();
+        } else if (connectTimeout != null
+                || readTimeout != null
+                || proxyHost != null
+                || proxyPort != null
+                || sslContext != null
+                || httpsAllowAllHosts != null) {
+            throw new IllegalStateException("cannot use httpClient with timeouts, proxy, or ssl config");
+        }
+        if (!httpClient.isRunning()) {
+            httpClient.start();
+        }
+
+        BreezeHttpClient client = new BreezeHttpAsyncClient(
+                httpClient,
+                new BreezeJacksonCodec(
+                        objectMapper == null ? BreezeObjectMapper.create() : objectMapper,
+                        BreezeHttpAsyncClient.JSON
+                ),
+                codecs,
+                filters,
+                logger,
+                errorResponseClass
+        );
+
+        // Add decorators
+        for (BreezeHttpClientDecorator decorator : decorators) {
+            if (decorator != null) {
+                client = decorator.decorate(client);
+            }
+        }
+
+        return client;
+    }
+
+    /** Create and start an HttpAsyncClient with the timeouts, proxy, ssl and pooling settings; the caller closes it. */
+    public CloseableHttpAsyncClient buildHttpClient() {
+        CloseableHttpAsyncClient client = createHttpClient();
+        client.start();
+        return client;
+    }
+
+    private CloseableHttpAsyncClient createHttpClient() {
+        HttpAsyncClientBuilder builder = HttpAsyncClientBuilder.create();
+
+        builder.setMaxConnTotal(maxConnections == null ? 40 : maxConnections);
+        builder.setMaxConnPerRoute(maxConnectionsPerRoute == null ? 40 : maxConnectionsPerRoute);
+
+        if (connectTimeout != null) {
+            builder.setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectTimeout(connectTimeout)
+                    .setSocketTimeout(readTimeout)
+                    .build());
+        }
+
+        // Timeouts are only checked once per select interval, which defaults to a second
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom().setSelectInterval(SELECT_INTERVAL);
+        if (ioThreads != null) {
+            ioReactorConfig.setIoThreadCount(ioThreads);
+        }
+        builder.setDefaultIOReactorConfig(ioReactorConfig.build());
+
+        if (sslContext != null) {
+            builder.setSSLContext(sslContext);
+        }
+
+        if (httpsAllowAllHosts != null) {
+            builder.setSSLHostnameVerifier(
+                    httpsAllowAllHosts ? NoopHostnameVerifier.INSTANCE : new DefaultHostnameVerifier()
+            );
+        }
+
+        if (proxyHost != null && proxyHost.length() > 0 && proxyPort != null && proxyPort.length() > 0) {
+            builder.setProxy(new HttpHost(proxyHost, Integer.parseInt(proxyPort), "http"));
+        }
+
+        if (poolStatefulSslConnections != FALSE) {
+            // Pool SSL connections regardless of the principal that authenticated them
+            builder.setUserTokenHandler(context -> null);
+        }
+
+        return builder.build();
+    }
+}
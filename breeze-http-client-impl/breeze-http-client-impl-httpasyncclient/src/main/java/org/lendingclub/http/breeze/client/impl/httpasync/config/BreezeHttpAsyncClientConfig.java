@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.httpasync.config;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.net.ssl.SSLContext;
+import java.util.List;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.filter.UserAgentRequestFilter;
+import org.lendingclub.http.breeze.client.impl.httpasync.builder.BreezeHttpAsyncClientBuilder;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Configuration class to easily construct HttpAsyncClient client instances.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpAsyncClientConfig {
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientRetryDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientRetryDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientCircuitBreakerDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientCircuitBreakerDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientBulkheadDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientBulkheadDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientLimiterDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientLimiterDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientHedgingDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientHedgingDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientCoalescingDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientCoalescingDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientCachingDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientCachingDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientMetricsDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientMetricsDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientSSLContext")
+    private SSLContext sslContext;
+
+    @Autowired(required = false)
+    private List<BreezeHttpCodec> breezeHttpCodecs = emptyList();
+
+    @Value(value = "${BREEZE_HTTP_ASYNC_CLIENT_IO_THREADS:0}")
+    private int ioThreads;
+
+    /** The underlying HttpAsyncClient, closed with the application context so its reactor threads stop. */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient breezeHttpAsyncHttpClient(
+            @Value(value = "${BREEZE_HTTP_ASYNC_CLIENT_CONNECT_TIMEOUT:10000}") int connectTimeout,
+            @Value(value = "${BREEZE_HTTP_ASYNC_CLIENT_READ_TIMEOUT:10000}") int readTimeout,
+            @Value(value = "${BREEZE_HTTP_PROXY_HOST:}") String proxyHost,
+            @Value(value = "${BREEZE_HTTP_PROXY_PORT:}") String proxyPort,
+            @Value(value = "${BREEZE_HTTP_ENABLE_CLIENT_AUTH:true}") boolean enableClientAuth,
+            @Value(value = "${BREEZE_HTTP_HTTPS_ALLOW_ALL_HOSTS:false}") boolean httpsAllowAllHosts,
+            @Value(value = "${BREEZE_HTTP_ASYNC_CLIENT_MAX_CONNECTIONS:40}") int maxConnections,
+            @Value(value = "${BREEZE_HTTP_ASYNC_CLIENT_MAX_CONNECTIONS_PER_ROUTE:40}") int maxConnectionsPerRoute
+    ) {
+        return new BreezeHttpAsyncClientBuilder()
+                .withTimeout(connectTimeout, readTimeout)
+                .withProxy(proxyHost, proxyPort)
+                .withSSLContext(enableClientAuth ? sslContext : null)
+                .withHttpsAllowAllHosts(httpsAllowAllHosts)
+                .withMaxConnections(maxConnections)
+                .withMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                .withIoThreads(ioThreads > 0 ? ioThreads : null)
+                .buildHttpClient();
+    }
+
+    @Bean
+    public BreezeHttpClient breezeHttpAsyncClient(
+            @Qualifier(value = "breezeHttpAsyncHttpClient") CloseableHttpAsyncClient httpClient,
+            @Value(value = "${BREEZE_HTTP_ASYNC_CLIENT_ERROR_RESPONSE_CLASS:java.lang.String}")
+                    String errorResponseClass
+    ) throws ClassNotFoundException {
+        return new BreezeHttpAsyncClientBuilder()
+                .withHttpClient(httpClient)
+                .withFilter(new UserAgentRequestFilter())
+                // Same decorator order as BreezeHttpRestTemplateClientConfig
+                .withDecorator(breezeHttpClientLimiterDecorator)
+                .withDecorator(breezeHttpClientCircuitBreakerDecorator)
+                .withDecorator(breezeHttpClientBulkheadDecorator)
+                .withDecorator(breezeHttpClientHedgingDecorator)
+                .withDecorator(breezeHttpClientRetryDecorator)
+                .withDecorator(breezeHttpClientCoalescingDecorator)
+                .withDecorator(breezeHttpClientCachingDecorator)
+                .withDecorator(breezeHttpClientMetricsDecorator)
+                .withErrorResponseClass(Class.forName(errorResponseClass))
+                .withCodecs(breezeHttpCodecs)
+                .build();
+    }
+}
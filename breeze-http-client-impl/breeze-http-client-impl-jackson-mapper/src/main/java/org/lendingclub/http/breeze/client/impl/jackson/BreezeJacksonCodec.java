@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+
+/**
+ * Codec for any format Jackson has a data format module for. Smile and CBOR
+ * are binary encodings of the JSON data model, so payload classes work
+ * unchanged, with smaller bodies and cheaper parsing than JSON; they need
+ * the optional com.fasterxml.jackson.dataformat:jackson-dataformat-smile or
+ * jackson-dataformat-cbor dependency.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeJacksonCodec implements BreezeHttpCodec {
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String CBOR = "application/cbor";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final String mediaType;
+
+    public BreezeJacksonCodec(ObjectMapper objectMapper, String mediaType) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.mediaType = mediaType;
+    }
+
+    /** Smile codec with the BreezeObjectMapper settings. */
+    public static BreezeJacksonCodec smile() {
+        return new BreezeJacksonCodec(BreezeObjectMapper.configure(new ObjectMapper(new SmileFactory())), SMILE);
+    }
+
+    /** CBOR codec with the BreezeObjectMapper settings. */
+    public static BreezeJacksonCodec cbor() {
+        return new BreezeJacksonCodec(BreezeObjectMapper.configure(new ObjectMapper(new CBORFactory())), CBOR);
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    @Override
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    @Override
+    public void write(Object value, OutputStream out) throws IOException {
+        writer.writeValue(out, value);
+    }
+
+    @Override
+    public Object read(Type type, InputStream in) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(objectMapper.constructType(type))
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return reader.readValue(in);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+
+/**
+ * Reads a JSON array response one element at a time, so a huge array never
+ * has to fit in memory as a List. Elements are parsed lazily off the
+ * connection as the returned Stream is consumed; close the Stream, for
+ * example with try-with-resources, to release the connection if you stop
+ * early. It is closed automatically once the array has been read to the end.
+ *
+ * A null response body, or a JSON null, reads as an empty Stream.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeJsonArrayReader {
+    private final ObjectMapper objectMapper;
+
+    public BreezeJsonArrayReader() {
+        this(BreezeObjectMapper.create());
+    }
+
+    public BreezeJsonArrayReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** GET the request and stream the elements of the JSON array response. */
+    public <T> Stream<T> get(BreezeHttpRequest request, Class<T> elementClass) throws BreezeHttpException {
+        return get(request, (Type) elementClass);
+    }
+
+    /** GET the request and stream the elements of the JSON array response. */
+    public <T> Stream<T> get(BreezeHttpRequest request, BreezeHttpType<T> elementType) throws BreezeHttpException {
+        return get(request, elementType.getType());
+    }
+
+    /** Stream the elements of a JSON array response; closing the Stream closes the response. */
+    public <T> Stream<T> read(BreezeHttpStreamingResponse response, Class<T> elementClass) throws BreezeHttpException {
+        return read(response, (Type) elementClass);
+    }
+
+    /** Stream the elements of a JSON array response; closing the Stream closes the response. */
+    public <T> Stream<T> read(BreezeHttpStreamingResponse response, BreezeHttpType<T> elementType)
+            throws BreezeHttpException {
+        return read(response, elementType.getType());
+    }
+
+    private <T> Stream<T> get(BreezeHttpRequest request, Type elementType) {
+        if (request.getHeaders().keySet().stream().noneMatch("Accept"::equalsIgnoreCase)) {
+            request.header("Accept", "application/json");
+        }
+        return read(request.getStreaming(), elementType);
+    }
+
+    private <T> Stream<T> read(BreezeHttpStreamingResponse response, Type elementType) {
+        try {
+            JavaType javaType = objectMapper.getTypeFactory().constructType(elementType);
+            ElementIterator<T> iterator = new ElementIterator<>(
+                    response,
+                    objectMapper.getFactory().createParser(response.getEntity()),
+                    objectMapper.readerFor(javaType)
+            );
+            return StreamSupport
+                    .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                    .onClose(iterator::close);
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e instanceof BreezeHttpException
+                    ? (BreezeHttpException) e
+                    : new BreezeHttpException("error reading JSON array", e);
+        }
+    }
+
+    /** Iterates over array elements, reading each one only when asked for it. */
+    private static class ElementIterator<T> implements Iterator<T> {
+        private final BreezeHttpStreamingResponse response;
+        private final JsonParser parser;
+        private final ObjectReader reader;
+        private boolean started = false;
+        private boolean pending = false;
+        private boolean done = false;
+
+        ElementIterator(BreezeHttpStreamingResponse response, JsonParser parser, ObjectReader reader) {
+            this.response = response;
+            this.parser = parser;
+            this.reader = reader;
+        }
+
+        /** Advances the parser to the start of the next element, if it isn't there already. */
+        @Override
+        public boolean hasNext() {
+            if (done || pending) {
+                return !done;
+            }
+            try {
+                JsonToken token = parser.nextToken();
+                if (!started) {
+                    started = true;
+                    if (token == null || token == JsonToken.VALUE_NULL) {
+                        close();
+                        return false;
+                    } else if (token != JsonToken.START_ARRAY) {
+                        throw new BreezeHttpException("expected JSON array but response starts with " + token);
+                    }
+                    token = parser.nextToken();
+                }
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    close();
+                    return false;
+                }
+                pending = true;
+                return true;
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e instanceof BreezeHttpException
+                        ? (BreezeHttpException) e
+                        : new BreezeHttpException("error reading JSON array", e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            pending = false;
+            try {
+                return reader.readValue(parser);
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw new BreezeHttpException("error reading JSON array element", e);
+            }
+        }
+
+        void close() {
+            if (!done) {
+                done = true;
+                try {
+                    parser.close();
+                } catch (IOException e) {
+                    // Closing the response below releases the connection regardless
+                } finally {
+                    response.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs.proxy;
+
+import javax.ws.rs.core.Form;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+
+/**
+ * Superclass of proxy clients generated by BreezeProxyProcessor. Generated
+ * subclasses implement each interface method by binding its arguments
+ * directly, with the same semantics as BreezeWebResourceFactory but without
+ * reflection or argument arrays.
+ *
+ * @author Raul Acevedo
+ */
+public abstract class AbstractBreezeProxyClient {
+    private final Map<String, String> headers = new HashMap<>();
+    private final BreezeHttpClient breezeHttpClient;
+    private final UrlProvider urlProvider;
+
+    protected AbstractBreezeProxyClient(
+            BreezeHttpClient breezeHttpClient,
+            Map<String, String> headers,
+            UrlProvider urlProvider
+    ) {
+        this.breezeHttpClient = breezeHttpClient;
+        if (headers != null) {
+            this.headers.putAll(headers);
+        }
+        this.urlProvider = urlProvider;
+    }
+
+    /** Start a request to the current root URL with the default headers. */
+    protected BreezeHttpRequest request() {
+        return new BreezeHttpRequest(urlProvider.getRootUrl(), breezeHttpClient).headers(headers);
+    }
+
+    protected FormPayloadBuilder form(BreezeHttpRequest request) {
+        return new FormPayloadBuilder(request.form());
+    }
+
+    protected Object execute(
+            BreezeHttpRequest request,
+            BreezeProxyMethod method,
+            Form form,
+            Object entity,
+            FormPayloadBuilder formPayload
+    ) {
+        Object payload = method.prepare(request, form, entity, formPayload);
+        return BreezeProxyMethod.execute(request, method.getResponseType(), method.getGenericReturnType(), payload);
+    }
+
+    protected static void pathVariable(BreezeHttpRequest request, String name, Object value, String defaultValue) {
+        value = (value == null ? defaultValue : value);
+        if (value != null) {
+            request.pathVariable(name, value);
+        }
+    }
+
+    protected static void queryVariable(BreezeHttpRequest request, String name, Object value, String defaultValue) {
+        value = (value == null ? defaultValue : value);
+        if (value != null) {
+            request.queryVariable(name, value);
+        }
+    }
+
+    protected static void header(BreezeHttpRequest request, String name, Object value, String defaultValue) {
+        value = (value == null ? defaultValue : value);
+        if (value != null) {
+            request.header(name, String.valueOf(value));
+        }
+    }
+
+    protected static void formParam(FormPayloadBuilder form, String name, Object value, String defaultValue) {
+        value = (value == null ? defaultValue : value);
+        if (value instanceof Collection) {
+            for (final Object v : ((Collection<?>) value)) {
+                form.param(name, v.toString());
+            }
+        } else if (value != null) {
+            form.param(name, value.toString());
+        }
+    }
+}
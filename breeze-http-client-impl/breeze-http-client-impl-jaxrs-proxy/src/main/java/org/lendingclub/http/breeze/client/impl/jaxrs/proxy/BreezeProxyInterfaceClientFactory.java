@@ -16,16 +16,33 @@
 
 package org.lendingclub.http.breeze.client.impl.jaxrs.proxy;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
+import java.util.Optional;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 
 /**
+ * Creates clients for JAX-RS annotated interfaces. If BreezeProxyProcessor
+ * generated a client class for the interface at compile time that class is
+ * used, otherwise the client is a reflective BreezeWebResourceFactory proxy.
  *
  * @author vreddy
  *
  */
 public class BreezeProxyInterfaceClientFactory {
+    /** Generated client classes are named this followed by the interface name, in the same package. */
+    public static final String GENERATED_PREFIX = "BreezeProxy_";
+
+    private static final ClassValue<Optional<Constructor<?>>> GENERATED = new ClassValue<Optional<Constructor<?>>>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(Class<?> resourceInterface) {
+            return generatedConstructor(resourceInterface);
+        }
+    };
+
     private BreezeHttpClient breezeHttpClient;
 
     public BreezeProxyInterfaceClientFactory(BreezeHttpClient breezeHttpClient) {
@@ -39,8 +56,7 @@ public class BreezeProxyInterfaceClientFactory {
      * @return
      */
     public <T> T createProxyInterfaceClient(Class<T> resourceInterface, Map<String, String> headers, String rootUrl) {
-        return BreezeWebResourceFactory.newResource(resourceInterface, breezeHttpClient, headers,
-                new DefaultUrlProvider(rootUrl));
+        return createProxyInterfaceClient(resourceInterface, headers, new DefaultUrlProvider(rootUrl));
     }
 
     /**
@@ -51,7 +67,36 @@ public class BreezeProxyInterfaceClientFactory {
      */
     public <T> T createProxyInterfaceClient(Class<T> resourceInterface, Map<String, String> headers,
             UrlProvider urlProvider) {
-        return BreezeWebResourceFactory.newResource(resourceInterface, breezeHttpClient, headers, urlProvider);
+        Optional<Constructor<?>> generated = GENERATED.get(resourceInterface);
+        if (!generated.isPresent()) {
+            return BreezeWebResourceFactory.newResource(resourceInterface, breezeHttpClient, headers, urlProvider);
+        }
+        try {
+            return resourceInterface.cast(generated.get().newInstance(breezeHttpClient, headers, urlProvider));
+        } catch (InvocationTargetException e) {
+            throw new BreezeHttpException("error creating client for " + resourceInterface.getName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new BreezeHttpException("error creating client for " + resourceInterface.getName(), e);
+        }
     }
 
+    private static Optional<Constructor<?>> generatedConstructor(Class<?> resourceInterface) {
+        String name = resourceInterface.getName();
+        int dot = name.lastIndexOf('.');
+        String className = name.substring(0, dot + 1) + GENERATED_PREFIX + name.substring(dot + 1).replace('$', '_');
+        try {
+            Class<?> generated = Class.forName(className, false, resourceInterface.getClassLoader());
+            if (!resourceInterface.isAssignableFrom(generated)) {
+                return Optional.empty();
+            }
+            Constructor<?> constructor = generated.getConstructor(
+                    BreezeHttpClient.class,
+                    Map.class,
+                    UrlProvider.class
+            );
+            return Optional.of(constructor);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
 }
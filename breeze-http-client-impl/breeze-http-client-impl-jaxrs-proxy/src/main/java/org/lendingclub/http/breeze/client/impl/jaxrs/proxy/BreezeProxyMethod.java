@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs.proxy;
+
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.HttpHeaders;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+
+/**
+ * Everything about a proxy interface method that does not depend on the
+ * arguments it is called with: HTTP method, path, Content-Type and Accept
+ * headers and the type to convert the response to. Built once per method,
+ * either by BreezeWebResourceFactory from the annotations at runtime, or by
+ * generated proxy clients as a constant.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeProxyMethod {
+    private final String httpMethod;
+    private final String path;
+    private final String contentType;
+    private final String formContentType;
+    private final String accepts;
+    private final Class<?> responseType;
+    private final BreezeHttpType<?> genericReturnType;
+
+    /**
+     * @param httpMethod the HTTP method name
+     * @param path the path template, including the interface path
+     * @param contentType Content-Type to send
+     * @param formContentType Content-Type to send when a Form argument is passed
+     * @param accepts Accept header to send
+     * @param responseType the method return type
+     * @param genericReturnType the generic return type, or null if not generic
+     */
+    public BreezeProxyMethod(
+            String httpMethod,
+            String path,
+            String contentType,
+            String formContentType,
+            String accepts,
+            Class<?> responseType,
+            BreezeHttpType<?> genericReturnType
+    ) {
+        this.httpMethod = httpMethod;
+        this.path = path;
+        this.contentType = contentType;
+        this.formContentType = formContentType;
+        this.accepts = accepts;
+        this.responseType = responseType;
+        this.genericReturnType = genericReturnType;
+    }
+
+    /**
+     * Finish the request once the arguments are bound, and return the
+     * payload to send: the entity argument if there was one, otherwise any
+     * form parameters.
+     */
+    public Object prepare(BreezeHttpRequest request, Form form, Object entity, FormPayloadBuilder formPayload) {
+        if (form != null) {
+            for (Entry<String, List<String>> entrySet : form.asMap().entrySet()) {
+                List<String> multiValue = entrySet.getValue();
+                String key = entrySet.getKey();
+                for (final String v : multiValue) {
+                    formPayload.param(key, v);
+                }
+            }
+        }
+
+        request.header(HttpHeaders.CONTENT_TYPE, form != null ? formContentType : contentType);
+        request.header(HttpHeaders.ACCEPT, accepts);
+        request.method(httpMethod);
+        request.path(path);
+
+        if (null == entity && formPayload != null && formPayload.hasParameters()) {
+            return formPayload;
+        }
+        return entity;
+    }
+
+    /**
+     * Execute the request, returning the converted response or null for void
+     * methods. HEAD and OPTIONS never convert a body; methods returning
+     * BreezeHttpResponse get the status and headers.
+     */
+    public static Object execute(
+            BreezeHttpRequest breezeHttpRequest,
+            Class<?> responseType,
+            BreezeHttpType<?> genericReturnType,
+            Object payLoad
+    ) {
+        Object response = null;
+
+        boolean voidReturnType = responseType == void.class;
+
+        switch (breezeHttpRequest.getMethod()) {
+        case POST:
+            if (voidReturnType) {
+                breezeHttpRequest.post(payLoad);
+            } else if (genericReturnType != null) {
+                response = breezeHttpRequest.post(genericReturnType, payLoad);
+            } else {
+                response = breezeHttpRequest.post(responseType, payLoad);
+            }
+            break;
+
+        case PUT:
+            if (voidReturnType) {
+                breezeHttpRequest.put(payLoad);
+            } else if (genericReturnType != null) {
+                response = breezeHttpRequest.put(genericReturnType, payLoad);
+            } else {
+                response = breezeHttpRequest.put(responseType, payLoad);
+            }
+            break;
+
+        case PATCH:
+            if (voidReturnType) {
+                breezeHttpRequest.patch(payLoad);
+            } else if (genericReturnType != null) {
+                response = breezeHttpRequest.patch(genericReturnType, payLoad);
+            } else {
+                response = breezeHttpRequest.patch(responseType, payLoad);
+            }
+            break;
+
+        case DELETE:
+            if (voidReturnType) {
+                breezeHttpRequest.delete();
+            } else if (genericReturnType != null) {
+                response = breezeHttpRequest.delete(genericReturnType);
+            } else {
+                response = breezeHttpRequest.delete(responseType);
+            }
+            break;
+
+        case HEAD:
+            response = statusOnly(breezeHttpRequest.head(), responseType);
+            break;
+
+        case OPTIONS:
+            response = statusOnly(breezeHttpRequest.options(), responseType);
+            break;
+
+        case GET:
+            if (voidReturnType) {
+                breezeHttpRequest.get();
+            } else if (genericReturnType != null) {
+                response = breezeHttpRequest.get(genericReturnType);
+            } else {
+                response = breezeHttpRequest.get(responseType);
+            }
+            break;
+
+        default:
+            if (voidReturnType) {
+                breezeHttpRequest.execute(Void.class, payLoad);
+            } else if (genericReturnType != null) {
+                response = breezeHttpRequest.execute(genericReturnType, payLoad).getEntity();
+            } else {
+                response = breezeHttpRequest.execute(responseType, payLoad).getEntity();
+            }
+            break;
+        }
+
+        return response;
+    }
+
+    private static Object statusOnly(BreezeHttpResponse<Void> response, Class<?> responseType) {
+        return responseType.isAssignableFrom(BreezeHttpResponse.class) ? response : null;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFormContentType() {
+        return formContentType;
+    }
+
+    public String getAccepts() {
+        return accepts;
+    }
+
+    public Class<?> getResponseType() {
+        return responseType;
+    }
+
+    public BreezeHttpType<?> getGenericReturnType() {
+        return genericReturnType;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs.proxy;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a proxy client class for every interface annotated with @Path,
+ * which BreezeProxyInterfaceClientFactory uses instead of a reflective
+ * java.lang.reflect.Proxy. The generated class is named after the interface
+ * with a BreezeProxy_ prefix, in the same package, and makes exactly the
+ * same requests as BreezeWebResourceFactory would.
+ *
+ * Interfaces the processor cannot implement (generic interfaces or methods,
+ * private nesting) are skipped with a note and keep using the reflective
+ * proxy, so this never breaks a build.
+ *
+ * The processor is not registered as a service, so it only runs when asked
+ * for, with javac -processor or the maven-compiler-plugin
+ * annotationProcessors setting.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeProxyProcessor extends AbstractProcessor {
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(Path.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Path.class))) {
+            if (type.getKind() != ElementKind.INTERFACE) {
+                continue;
+            }
+            String reason = unsupported(type);
+            if (reason != null) {
+                note(type, "not generating a Breeze proxy client for " + type.getQualifiedName() + ": " + reason);
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.WARNING,
+                        "unable to generate Breeze proxy client for " + type.getQualifiedName() + ": " + e,
+                        type
+                );
+            }
+        }
+        return false;
+    }
+
+    private String unsupported(TypeElement type) {
+        if (!type.getTypeParameters().isEmpty()) {
+            return "generic interface";
+        }
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return "private type";
+            }
+        }
+        for (ExecutableElement method : methods(type)) {
+            if (!method.getTypeParameters().isEmpty()) {
+                return "generic method " + method.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    /** Abstract methods to implement, including inherited ones, once per signature. */
+    private List<ExecutableElement> methods(TypeElement type) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            Element owner = method.getEnclosingElement();
+            if (owner.getKind() != ElementKind.INTERFACE
+                    || !method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            String signature = method.getSimpleName() + method.getParameters().stream()
+                    .map(p -> erasure(p.asType()))
+                    .collect(Collectors.joining(",", "(", ")"));
+            if (signatures.add(signature)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String className = BreezeProxyInterfaceClientFactory.GENERATED_PREFIX + flatName(type);
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        StringBuilder constants = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        int index = 0;
+        for (ExecutableElement method : methods(type)) {
+            String constant = "METHOD_" + index++;
+            String httpMethod = httpMethod(method);
+            if (httpMethod != null) {
+                constants.append(constant(type, method, httpMethod, constant));
+            }
+            body.append(method(method, httpMethod, constant));
+        }
+
+        try (Writer out = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            if (!packageName.isEmpty()) {
+                out.write("package " + packageName + ";\n\n");
+            }
+            out.write("/** Breeze proxy client for " + type.getQualifiedName() + ", generated by "
+                    + getClass().getName() + ". */\n");
+            out.write("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"cast\"})\n");
+            out.write("public class " + className
+                    + " extends org.lendingclub.http.breeze.client.impl.jaxrs.proxy.AbstractBreezeProxyClient\n");
+            out.write("        implements " + type.getQualifiedName() + " {\n");
+            out.write(constants.toString());
+            out.write("\n    public " + className + "(\n"
+                    + "            org.lendingclub.http.breeze.client.BreezeHttpClient breezeHttpClient,\n"
+                    + "            java.util.Map<String, String> headers,\n"
+                    + "            org.lendingclub.http.breeze.client.impl.jaxrs.proxy.UrlProvider urlProvider\n"
+                    + "    ) {\n"
+                    + "        super(breezeHttpClient, headers, urlProvider);\n"
+                    + "    }\n");
+            out.write(body.toString());
+            out.write("}\n");
+        }
+    }
+
+    private String constant(TypeElement type, ExecutableElement method, String httpMethod, String constant) {
+        String methodPath = path(method);
+        String classPath = path(type);
+        String path;
+        if (classPath == null) {
+            path = methodPath;
+        } else if (methodPath == null) {
+            path = classPath;
+        } else {
+            path = classPath + methodPath;
+        }
+
+        String contentType = first(method.getAnnotation(Consumes.class), type.getAnnotation(Consumes.class));
+        String accepts = first(method.getAnnotation(Produces.class), type.getAnnotation(Produces.class));
+
+        TypeMirror returnType = method.getReturnType();
+        String genericType = "null";
+        if (!returnType.toString().equals(erasure(returnType))) {
+            genericType = "new org.lendingclub.http.breeze.client.BreezeHttpType<" + returnType + ">() { }";
+        }
+
+        return "\n    private static final org.lendingclub.http.breeze.client.impl.jaxrs.proxy.BreezeProxyMethod "
+                + constant + " =\n"
+                + "            new org.lendingclub.http.breeze.client.impl.jaxrs.proxy.BreezeProxyMethod(\n"
+                + "                    " + literal(httpMethod) + ",\n"
+                + "                    " + literal(path) + ",\n"
+                + "                    " + literal(contentType != null ? contentType : MediaType.APPLICATION_JSON)
+                + ",\n"
+                + "                    " + literal(contentType != null
+                        ? contentType : MediaType.APPLICATION_FORM_URLENCODED) + ",\n"
+                + "                    " + literal(accepts != null ? accepts : MediaType.APPLICATION_JSON) + ",\n"
+                + "                    " + erasure(returnType) + ".class,\n"
+                + "                    " + genericType + "\n"
+                + "            );\n";
+    }
+
+    private String method(ExecutableElement method, String httpMethod, String constant) {
+        StringBuilder b = new StringBuilder();
+        List<? extends VariableElement> parameters = method.getParameters();
+        b.append("\n    @Override\n    public ").append(method.getReturnType()).append(' ')
+                .append(method.getSimpleName()).append('(');
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            // Named by position so they cannot clash with the locals below
+            b.append(i == 0 ? "" : ", ").append("final ").append(parameter.asType()).append(" arg").append(i);
+        }
+        b.append(')');
+        List<? extends TypeMirror> thrown = method.getThrownTypes();
+        if (!thrown.isEmpty()) {
+            b.append(" throws ").append(thrown.stream().map(TypeMirror::toString).collect(Collectors.joining(", ")));
+        }
+        b.append(" {\n");
+
+        if (httpMethod == null) {
+            b.append("        throw new org.lendingclub.http.breeze.client.exception.BreezeHttpException(")
+                    .append(literal("HTTPMethod not found on interface method=" + method.getSimpleName()))
+                    .append(");\n    }\n");
+            return b.toString();
+        }
+
+        boolean forms = false;
+        for (VariableElement parameter : parameters) {
+            forms |= !annotated(parameter) || parameter.getAnnotation(FormParam.class) != null;
+        }
+
+        b.append("        org.lendingclub.http.breeze.client.BreezeHttpRequest request = request();\n");
+        b.append("        org.lendingclub.http.breeze.client.impl.jaxrs.proxy.FormPayloadBuilder formPayload = ")
+                .append(forms ? "form(request)" : "null").append(";\n");
+        b.append("        javax.ws.rs.core.Form form = null;\n");
+        b.append("        Object entity = null;\n");
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            String name = "arg" + i;
+            if (!annotated(parameter)) {
+                b.append("        if (((Object) ").append(name).append(") instanceof javax.ws.rs.core.Form) {\n")
+                        .append("            form = (javax.ws.rs.core.Form) ((Object) ").append(name).append(");\n")
+                        .append("        } else {\n")
+                        .append("            entity = ").append(name).append(";\n")
+                        .append("        }\n");
+                continue;
+            }
+            DefaultValue defaultValue = parameter.getAnnotation(DefaultValue.class);
+            String fallback = defaultValue == null ? "null" : literal(defaultValue.value());
+            String call;
+            if (parameter.getAnnotation(PathParam.class) != null) {
+                call = "pathVariable(request, " + literal(parameter.getAnnotation(PathParam.class).value());
+            } else if (parameter.getAnnotation(QueryParam.class) != null) {
+                call = "queryVariable(request, " + literal(parameter.getAnnotation(QueryParam.class).value());
+            } else if (parameter.getAnnotation(HeaderParam.class) != null) {
+                call = "header(request, " + literal(parameter.getAnnotation(HeaderParam.class).value());
+            } else if (parameter.getAnnotation(FormParam.class) != null) {
+                call = "formParam(formPayload, " + literal(parameter.getAnnotation(FormParam.class).value());
+            } else {
+                continue;
+            }
+            b.append("        ").append(call).append(", ").append(name).append(", ").append(fallback).append(");\n");
+        }
+
+        String execute = "execute(request, " + constant + ", form, entity, formPayload)";
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            b.append("        ").append(execute).append(";\n");
+        } else {
+            b.append("        return (").append(method.getReturnType()).append(") ").append(execute).append(";\n");
+        }
+        b.append("    }\n");
+        return b.toString();
+    }
+
+    private String httpMethod(ExecutableElement method) {
+        HttpMethod httpMethod = method.getAnnotation(HttpMethod.class);
+        if (httpMethod != null) {
+            return httpMethod.value();
+        }
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            httpMethod = annotation.getAnnotationType().asElement().getAnnotation(HttpMethod.class);
+            if (httpMethod != null) {
+                return httpMethod.value();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether a parameter has annotations visible at runtime, which is what
+     * BreezeWebResourceFactory uses to tell entities from bound parameters.
+     */
+    private boolean annotated(VariableElement parameter) {
+        for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+            Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+            if (retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String path(Element element) {
+        Path path = element.getAnnotation(Path.class);
+        return path == null ? null : path.value();
+    }
+
+    private String first(Consumes methodLevel, Consumes classLevel) {
+        if (methodLevel != null && methodLevel.value().length > 0) {
+            return methodLevel.value()[0];
+        } else if (classLevel != null && classLevel.value().length > 0) {
+            return classLevel.value()[0];
+        }
+        return null;
+    }
+
+    private String first(Produces methodLevel, Produces classLevel) {
+        if (methodLevel != null && methodLevel.value().length > 0) {
+            return methodLevel.value()[0];
+        } else if (classLevel != null && classLevel.value().length > 0) {
+            return classLevel.value()[0];
+        }
+        return null;
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String literal(String value) {
+        return value == null ? "null" : processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+
+    /** Outer.Inner becomes Outer_Inner, matching BreezeProxyInterfaceClientFactory. */
+    private static String flatName(TypeElement type) {
+        Element enclosing = type.getEnclosingElement();
+        if (enclosing instanceof TypeElement) {
+            return flatName((TypeElement) enclosing) + "_" + type.getSimpleName();
+        }
+        return type.getSimpleName().toString();
+    }
+}
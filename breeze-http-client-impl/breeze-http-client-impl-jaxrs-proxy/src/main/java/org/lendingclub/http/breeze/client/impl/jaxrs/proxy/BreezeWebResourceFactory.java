@@ -24,20 +24,20 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Form;
-import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
@@ -45,14 +45,25 @@ import org.lendingclub.http.breeze.client.BreezeHttpType;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 
 /**
+ * Invocation handler behind JAX-RS annotated proxy interfaces.
+ *
+ * Annotations are only read once per interface method: the first time a
+ * method is seen (normally when the proxy is created) its path, HTTP method,
+ * headers, return type and parameter bindings are resolved into an
+ * Invocation, and every call after that just binds arguments to a request.
  *
  * @author vreddy
  *
  */
 public class BreezeWebResourceFactory implements InvocationHandler {
+    /** Only used to ask getContentType what to send when a Form argument is passed. */
+    private static final Form FORM = new Form();
+
     private final Map<String, String> headers = new HashMap<String, String>();
     private final BreezeHttpClient breezeHttpClient;
     private final UrlProvider urlProvider;
+    private final ConcurrentMap<Method, Invocation> invocations = new ConcurrentHashMap<>();
+    private final boolean customExecute = overridesExecute(getClass());
 
     private ContentTypeHeaderHelper contentHeaderHelper = new ContentTypeHeaderHelper();
 
@@ -73,8 +84,22 @@ public class BreezeWebResourceFactory implements InvocationHandler {
     @SuppressWarnings("unchecked")
     public static <C> C newResource(final Class<C> clazz, final BreezeHttpClient breezeHttpClient,
             final Map<String, String> headers, UrlProvider urlProvider) {
-        return (C) Proxy.newProxyInstance(clazz.getClassLoader(), new Class[] {clazz},
-                new BreezeWebResourceFactory(breezeHttpClient, headers, urlProvider));
+        BreezeWebResourceFactory factory = new BreezeWebResourceFactory(breezeHttpClient, headers, urlProvider);
+        factory.prepare(clazz);
+        return (C) Proxy.newProxyInstance(clazz.getClassLoader(), new Class[] {clazz}, factory);
+    }
+
+    /**
+     * Resolve the annotations of every method on the interface up front, so
+     * proxy calls never have to. Methods not seen here are resolved on first
+     * call.
+     */
+    public void prepare(Class<?> proxyInterfaceClass) {
+        for (Method method : proxyInterfaceClass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                invocations.computeIfAbsent(method, m -> compile(m, proxyInterfaceClass));
+            }
+        }
     }
 
     @Override
@@ -86,73 +111,102 @@ public class BreezeWebResourceFactory implements InvocationHandler {
         } else if (method.getName().equals("toString")) {
             return proxy.getClass().getName() + '@' + Integer.toHexString(proxy.hashCode());
         }
-        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        // Object entity = null;
+
+        Invocation invocation = invocations.get(method);
+        if (invocation == null) {
+            // get the interface describing the resource
+            final Class<?> proxyInterfaceClass = proxy.getClass().getInterfaces()[0];
+            invocation = invocations.computeIfAbsent(method, m -> compile(m, proxyInterfaceClass));
+        }
+        if (invocation.method.getHttpMethod() == null) {
+            throw new BreezeHttpException(String.format("HTTPMethod not found on interface method=%s", method.getName()));
+        }
+
         Form form = null;
         Object entity = null;
         BreezeHttpRequest breezeHttpRequest = new BreezeHttpRequest(this.urlProvider.getRootUrl(), breezeHttpClient);
+        FormPayloadBuilder formPayloadBuilderRequest = null;
+        if (invocation.formParameters) {
+            formPayloadBuilderRequest = new FormPayloadBuilder(breezeHttpRequest.form());
+        }
 
-        // Pre-allocate this object in case it is needed.
-        FormPayloadBuilder formPayloadBuilderRequest = new FormPayloadBuilder(breezeHttpRequest.form());
-
-        // get the interface describing the resource
-        final Class<?> proxyInterfaceClass = proxy.getClass().getInterfaces()[0];
         breezeHttpRequest.headers(this.headers);
-        for (int i = 0; i < parameterAnnotations.length; i++) {
-            final Map<Class<?>, Annotation> anns = new HashMap<Class<?>, Annotation>();
-            for (final Annotation ann : parameterAnnotations[i]) {
-                anns.put(ann.annotationType(), ann);
-            }
+        for (int i = 0; i < invocation.parameters.length; i++) {
+            final Parameter parameter = invocation.parameters[i];
             Object value = args[i];
-            if (anns.isEmpty()) {
+            if (parameter.binding == Binding.ENTITY) {
                 if (value instanceof Form) {
                     form = (Form) value;
                 } else {
                     entity = value;
                 }
-            } else {
-                if (value == null) {
-                    if (anns.get(DefaultValue.class) != null) {
-                        value = ((DefaultValue) anns.get(DefaultValue.class)).value();
-                    }
-                }
-                if (value != null) {
-                    if (anns.get(PathParam.class) != null) {
-                        breezeHttpRequest.pathVariable(((PathParam) anns.get((PathParam.class))).value(), value);
-                    } else if (anns.get((QueryParam.class)) != null) {
-                        breezeHttpRequest.queryVariable(((QueryParam) anns.get((QueryParam.class))).value(), value);
-                    } else if (anns.get((HeaderParam.class)) != null) {
-                        breezeHttpRequest.header(((HeaderParam) anns.get((HeaderParam.class))).value(),
-                                String.valueOf(value));
-                    } else if (anns.get((FormParam.class)) != null) {
-                        if (value instanceof Collection) {
-                            for (final Object v : ((Collection<?>) value)) {
-                                formPayloadBuilderRequest.param(((FormParam) anns.get((FormParam.class))).value(),
-                                        v.toString());
-                            }
-                        } else {
-                            formPayloadBuilderRequest.param(((FormParam) anns.get((FormParam.class))).value(),
-                                    value.toString());
-                        }
+                continue;
+            }
+            if (value == null) {
+                value = parameter.defaultValue;
+            }
+            if (value == null) {
+                continue;
+            }
+            switch (parameter.binding) {
+            case PATH:
+                breezeHttpRequest.pathVariable(parameter.name, value);
+                break;
+            case QUERY:
+                breezeHttpRequest.queryVariable(parameter.name, value);
+                break;
+            case HEADER:
+                breezeHttpRequest.header(parameter.name, String.valueOf(value));
+                break;
+            case FORM:
+                if (value instanceof Collection) {
+                    for (final Object v : ((Collection<?>) value)) {
+                        formPayloadBuilderRequest.param(parameter.name, v.toString());
                     }
+                } else {
+                    formPayloadBuilderRequest.param(parameter.name, value.toString());
                 }
+                break;
+            default:
+                break;
             }
         }
 
-        if (form != null) {
-            for (Entry<String, List<String>> entrySet : form.asMap().entrySet()) {
-                List<String> multiValue = entrySet.getValue();
-                String key = entrySet.getKey();
-                for (final String v : multiValue) {
-                    formPayloadBuilderRequest.param(key, v);
-                }
-            }
+        Object payload = invocation.method.prepare(breezeHttpRequest, form, entity, formPayloadBuilderRequest);
+        BreezeHttpType<?> genericReturnType = invocation.method.getGenericReturnType();
+        if (!customExecute) {
+            // Use the cached BreezeHttpType as is, rather than rebuilding it from a Type on every call
+            return BreezeProxyMethod.execute(breezeHttpRequest, invocation.method.getResponseType(),
+                    genericReturnType, payload);
         }
 
-        breezeHttpRequest.header(HttpHeaders.CONTENT_TYPE, getContentType(method, form, proxyInterfaceClass));
+        Optional<Object> returnData = execute(breezeHttpRequest, invocation.method.getResponseType(), payload,
+                genericReturnType != null ? genericReturnType.getType() : null);
+        Object response = null;
+        if (returnData.isPresent()) {
+            response = returnData.get();
+        }
+        return response;
+    }
 
-        breezeHttpRequest.header(HttpHeaders.ACCEPT, getAccepts(method, proxyInterfaceClass));
+    /** Whether a subclass overrides execute, which must then still be called for every request. */
+    private static boolean overridesExecute(Class<?> factoryClass) {
+        for (Class<?> c = factoryClass; c != BreezeWebResourceFactory.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("execute", BreezeHttpRequest.class, Class.class, Object.class, Type.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not overridden at this level
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Read everything about an interface method that does not depend on the
+     * arguments it is called with.
+     */
+    private Invocation compile(Method method, Class<?> proxyInterfaceClass) {
         String httpMethod = getHttpMethodName(method);
         if (httpMethod == null) {
             for (final Annotation ann : method.getAnnotations()) {
@@ -162,23 +216,26 @@ public class BreezeWebResourceFactory implements InvocationHandler {
                 }
             }
         }
-        if (httpMethod == null) {
-            throw new BreezeHttpException(String.format("HTTPMethod not found on interface method=%s", method.getName()));
-        }
-        breezeHttpRequest.method(httpMethod);
+
         String methodUri = addPathFromAnnotation(method);
-        String pathUri = methodUri;
-        String classPathUri = null;
-        Path path = proxyInterfaceClass.getAnnotation(Path.class);
-        if (path != null) {
-            classPathUri = path.value();
-        }
-        if (classPathUri != null) {
-            pathUri = new StringBuffer().append(classPathUri).append(methodUri).toString();
-        } else {
+        String classPathUri = addPathFromAnnotation(proxyInterfaceClass);
+        String pathUri;
+        if (classPathUri == null) {
             pathUri = methodUri;
+        } else if (methodUri == null) {
+            pathUri = classPathUri;
+        } else {
+            pathUri = classPathUri + methodUri;
+        }
+
+        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        Parameter[] parameters = new Parameter[parameterAnnotations.length];
+        boolean formParameters = false;
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            parameters[i] = new Parameter(parameterAnnotations[i]);
+            formParameters |= parameters[i].binding == Binding.ENTITY || parameters[i].binding == Binding.FORM;
         }
-        breezeHttpRequest.path(pathUri);
+
         Class<?> responseType = method.getReturnType();
         /**
          * Support for generics in response type . #getGenericReturnType() will
@@ -189,16 +246,16 @@ public class BreezeWebResourceFactory implements InvocationHandler {
             genericReturnType = null;
         }
 
-        if (null == entity && formPayloadBuilderRequest.hasParameters()) {
-            entity = formPayloadBuilderRequest;
-        }
-
-        Optional<Object> returnData = execute(breezeHttpRequest, responseType, entity, genericReturnType);
-        Object response = null;
-        if (returnData.isPresent()) {
-            response = returnData.get();
-        }
-        return response;
+        BreezeProxyMethod proxyMethod = new BreezeProxyMethod(
+                httpMethod,
+                pathUri,
+                getContentType(method, null, proxyInterfaceClass),
+                getContentType(method, FORM, proxyInterfaceClass),
+                getAccepts(method, proxyInterfaceClass),
+                responseType,
+                genericReturnType == null ? null : new BreezeHttpType<>(genericReturnType)
+        );
+        return new Invocation(proxyMethod, parameters, formParameters);
     }
 
     /**
@@ -237,53 +294,17 @@ public class BreezeWebResourceFactory implements InvocationHandler {
         return contentType;
     }
 
+    /**
+     * Execute a proxy call. Subclasses can override this to customize
+     * execution; when they don't, invoke skips it and calls
+     * BreezeProxyMethod.execute directly.
+     */
     protected Optional<Object> execute(BreezeHttpRequest breezeHttpRequest, Class<?> responseType, Object payLoad,
                                        Type parameterizedType) {
-        Object response = null;
-
         BreezeHttpType<?> genericReturnType = (null != parameterizedType ? new BreezeHttpType<>(parameterizedType)
                 : null);
-
-        boolean voidReturnType = responseType.getName().equalsIgnoreCase("void");
-
-        switch (breezeHttpRequest.getMethod()) {
-        case POST:
-            if (voidReturnType) {
-                breezeHttpRequest.post(payLoad);
-            } else if (genericReturnType != null) {
-                response = breezeHttpRequest.post(genericReturnType, payLoad);
-            } else {
-                response = breezeHttpRequest.post(responseType, payLoad);
-            }
-            break;
-
-        case PUT:
-            if (voidReturnType) {
-                breezeHttpRequest.put(payLoad);
-            } else if (genericReturnType != null) {
-                response = breezeHttpRequest.put(genericReturnType, payLoad);
-            } else {
-                response = breezeHttpRequest.put(responseType, payLoad);
-            }
-            break;
-
-        case GET:
-        default:
-            if (voidReturnType) {
-                breezeHttpRequest.get();
-            } else if (genericReturnType != null) {
-                response = breezeHttpRequest.get(genericReturnType);
-            } else {
-                response = breezeHttpRequest.get(responseType);
-            }
-            break;
-        }
-
-        if (response != null) {
-            return Optional.of(response);
-        }
-
-        return Optional.empty();
+        return Optional.ofNullable(BreezeProxyMethod.execute(breezeHttpRequest, responseType, genericReturnType,
+                payLoad));
     }
 
     private String getHttpMethodName(final AnnotatedElement ae) {
@@ -296,4 +317,57 @@ public class BreezeWebResourceFactory implements InvocationHandler {
         return p == null ? null : p.value();
     }
 
+    private enum Binding {
+        ENTITY, PATH, QUERY, HEADER, FORM, NONE
+    }
+
+    /** How one argument of an interface method ends up in the request. */
+    private static class Parameter {
+        private final Binding binding;
+        private final String name;
+        private final String defaultValue;
+
+        private Parameter(Annotation[] annotations) {
+            Map<Class<?>, Annotation> anns = new HashMap<Class<?>, Annotation>();
+            for (final Annotation ann : annotations) {
+                anns.put(ann.annotationType(), ann);
+            }
+
+            DefaultValue defaultValue = (DefaultValue) anns.get(DefaultValue.class);
+            this.defaultValue = defaultValue == null ? null : defaultValue.value();
+
+            if (anns.isEmpty()) {
+                binding = Binding.ENTITY;
+                name = null;
+            } else if (anns.get(PathParam.class) != null) {
+                binding = Binding.PATH;
+                name = ((PathParam) anns.get(PathParam.class)).value();
+            } else if (anns.get(QueryParam.class) != null) {
+                binding = Binding.QUERY;
+                name = ((QueryParam) anns.get(QueryParam.class)).value();
+            } else if (anns.get(HeaderParam.class) != null) {
+                binding = Binding.HEADER;
+                name = ((HeaderParam) anns.get(HeaderParam.class)).value();
+            } else if (anns.get(FormParam.class) != null) {
+                binding = Binding.FORM;
+                name = ((FormParam) anns.get(FormParam.class)).value();
+            } else {
+                binding = Binding.NONE;
+                name = null;
+            }
+        }
+    }
+
+    /** A compiled interface method: the request it makes plus how its arguments are bound. */
+    private static class Invocation {
+        private final BreezeProxyMethod method;
+        private final Parameter[] parameters;
+        private final boolean formParameters;
+
+        private Invocation(BreezeProxyMethod method, Parameter[] parameters, boolean formParameters) {
+            this.method = method;
+            this.parameters = parameters;
+            this.formParameters = formParameters;
+        }
+    }
 }
@@ -17,20 +17,32 @@
 package org.lendingclub.http.breeze.client.impl.jaxrs.proxy;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import javax.ws.rs.core.Form;
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -170,4 +182,102 @@ public class BreezeWebResourceFactoryTest {
 
         mockService.noHttpMethod();
     }
+
+    @Test
+    public void testGeneratedClient() {
+        BreezeHttpClient breezeHttpClient = mock(BreezeHttpClient.class);
+
+        BreezeProxyInterfaceClientFactory clientFactory = new BreezeProxyInterfaceClientFactory(breezeHttpClient);
+
+        MockService mockService = clientFactory.createProxyInterfaceClient(MockService.class, null, "http://dummy");
+        assertFalse(Proxy.isProxyClass(mockService.getClass()));
+        assertRequests(mockService, breezeHttpClient);
+        assertMethods(mockService, breezeHttpClient);
+
+        // No interface @Path, so nothing generated
+        MockService2 mockService2 = clientFactory.createProxyInterfaceClient(MockService2.class, null, "http://dummy");
+        assertTrue(Proxy.isProxyClass(mockService2.getClass()));
+    }
+
+    @Test
+    public void testRepeatedInvocations() {
+        BreezeHttpClient breezeHttpClient = mock(BreezeHttpClient.class);
+
+        MockService mockService = BreezeWebResourceFactory.newResource(MockService.class, breezeHttpClient, null,
+                new DefaultUrlProvider("http://dummy"));
+        assertTrue(Proxy.isProxyClass(mockService.getClass()));
+        assertRequests(mockService, breezeHttpClient);
+        assertMethods(mockService, breezeHttpClient);
+    }
+
+    @Test
+    public void testSubclassExecuteIsCalled() {
+        BreezeHttpClient breezeHttpClient = mock(BreezeHttpClient.class);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Subclasses customize execution by overriding the Type overload
+        BreezeWebResourceFactory factory = new BreezeWebResourceFactory(breezeHttpClient, null,
+                new DefaultUrlProvider("http://dummy")) {
+            @Override
+            protected Optional<Object> execute(BreezeHttpRequest breezeHttpRequest, Class<?> responseType,
+                                               Object payLoad, Type parameterizedType) {
+                calls.incrementAndGet();
+                return super.execute(breezeHttpRequest, responseType, payLoad, parameterizedType);
+            }
+        };
+        MockService mockService = (MockService) Proxy.newProxyInstance(MockService.class.getClassLoader(),
+                new Class[] {MockService.class}, factory);
+
+        mockService.getStatus();
+        assertEquals(1, calls.get());
+    }
+
+    private void assertRequests(MockService mockService, BreezeHttpClient breezeHttpClient) {
+        mockService.getBarfu("barfu", "first", "test", null, null, null, null);
+        mockService.getBarfu(null, "second", null, null, "explicit", null, null);
+        mockService.noPath();
+
+        ArgumentCaptor<BreezeHttpRequest> captor = ArgumentCaptor.forClass(BreezeHttpRequest.class);
+        verify(breezeHttpClient, times(2)).get(captor.capture(), eq(MockResponse.class));
+        BreezeHttpRequest first = captor.getAllValues().get(0);
+        BreezeHttpRequest second = captor.getAllValues().get(1);
+
+        assertEquals("/fubar/barfu/{pathParam}", first.getPath());
+        assertEquals("first", first.getPathVariables().get("pathParam"));
+        assertEquals("barfu", first.getHeaders().get("x-fubar").get(0));
+        assertEquals("fubar", first.getQueryVariables().get("arg3").get(0));
+        assertEquals("application/json", first.getHeaders().get("Accept").get(0));
+
+        assertEquals("second", second.getPathVariables().get("pathParam"));
+        assertNull(second.getHeaders().get("x-fubar"));
+        assertEquals("explicit", second.getQueryVariables().get("arg3").get(0));
+
+        verify(breezeHttpClient).get(captor.capture(), eq(Response.class));
+        assertEquals("/fubar", captor.getValue().getPath());
+    }
+
+    private void assertMethods(MockService mockService, BreezeHttpClient breezeHttpClient) {
+        BreezeHttpResponse<Void> head = new BreezeHttpResponse<>(null, 200, new HashMap<>());
+        when(breezeHttpClient.head(any(BreezeHttpRequest.class))).thenReturn(head);
+
+        mockService.deleteBarfu("gone");
+        assertEquals(head, mockService.headBarfu("here"));
+        mockService.optionsBarfu();
+        MockRequest patch = new MockRequest();
+        mockService.patchBarfu(patch);
+
+        ArgumentCaptor<BreezeHttpRequest> captor = ArgumentCaptor.forClass(BreezeHttpRequest.class);
+        verify(breezeHttpClient).delete(captor.capture());
+        assertEquals(BreezeHttpRequest.Method.DELETE, captor.getValue().getMethod());
+        assertEquals("gone", captor.getValue().getPathVariables().get("pathParam"));
+
+        verify(breezeHttpClient).head(captor.capture());
+        assertEquals(BreezeHttpRequest.Method.HEAD, captor.getValue().getMethod());
+
+        verify(breezeHttpClient).options(captor.capture());
+        assertEquals("/fubar/barfu", captor.getValue().getPath());
+
+        verify(breezeHttpClient).patch(captor.capture(), eq(MockResponse.class), eq(patch));
+        assertEquals(BreezeHttpRequest.Method.PATCH, captor.getValue().getMethod());
+    }
 }
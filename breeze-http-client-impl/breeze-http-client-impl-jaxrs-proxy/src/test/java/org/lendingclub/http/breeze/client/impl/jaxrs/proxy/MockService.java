@@ -17,10 +17,13 @@
 package org.lendingclub.http.breeze.client.impl.jaxrs.proxy;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.OPTIONS;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -29,6 +32,8 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 import java.util.List;
 
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+
 /**
  * 
  * @author salbin
@@ -83,4 +88,19 @@ public interface MockService {
     @Path("/postform")
     public MockResponse postForm(Object obj);
 
+    @DELETE
+    @Path("/barfu/{pathParam}")
+    public void deleteBarfu(@PathParam("pathParam") String pathParam);
+
+    @HEAD
+    @Path("/barfu/{pathParam}")
+    public BreezeHttpResponse<Void> headBarfu(@PathParam("pathParam") String pathParam);
+
+    @OPTIONS
+    @Path("/barfu")
+    public BreezeHttpResponse<Void> optionsBarfu();
+
+    @PATCH
+    @Path("/barfu")
+    public MockResponse patchBarfu(MockRequest request);
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Adapts BreezeHttpCodecs to a JAX-RS entity provider; register it on the
+ * JAX-RS client. It only reads and writes the codecs' own media types, so
+ * JSON stays the default. JAX-RS clients ignore a second registration of the
+ * same provider class, so register one provider with all the codecs.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeCodecProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private final List<BreezeHttpCodec> codecs;
+    private final List<MediaType> mediaTypes = new ArrayList<>();
+
+    public BreezeCodecProvider(BreezeHttpCodec... codecs) {
+        this(asList(codecs));
+    }
+
+    public BreezeCodecProvider(List<BreezeHttpCodec> codecs) {
+        this.codecs = new ArrayList<>(codecs);
+        for (BreezeHttpCodec codec : codecs) {
+            mediaTypes.add(MediaType.valueOf(codec.getMediaType()));
+        }
+    }
+
+    public List<BreezeHttpCodec> getCodecs() {
+        return codecs;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return codec(type, mediaType) != null;
+    }
+
+    @Override
+    public Object readFrom(
+            Class<Object> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders,
+            InputStream entityStream
+    ) throws IOException {
+        return codec(type, mediaType).read(genericType != null ? genericType : type, entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return codec(type, mediaType) != null;
+    }
+
+    @Override
+    public long getSize(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(
+            Object value,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream entityStream
+    ) throws IOException {
+        codec(type, mediaType).write(value, entityStream);
+    }
+
+    private BreezeHttpCodec codec(Class<?> type, MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        for (int i = 0; i < codecs.size(); i++) {
+            MediaType codecMediaType = mediaTypes.get(i);
+            if (codecMediaType.getType().equalsIgnoreCase(mediaType.getType())
+                    && codecMediaType.getSubtype().equalsIgnoreCase(mediaType.getSubtype())
+                    && codecs.get(i).supports(type)) {
+                return codecs.get(i);
+            }
+        }
+        return null;
+    }
+}
@@ -22,36 +22,58 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.SyncInvoker;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
 
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
 import org.lendingclub.http.breeze.client.BreezeHttpType;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
 import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
 import org.lendingclub.http.breeze.client.impl.AbstractBreezeHttpClient;
+import org.lendingclub.http.breeze.client.payload.BreezeReplayablePayload;
 import org.lendingclub.http.breeze.client.payload.BreezeRequestForm;
 
 /**
  * General JAX-RS client, using a supplied Client instance; defaults to
- * whatever ClientBuilder.newClient() provides.
+ * whatever ClientBuilder.newClient() provides. Asynchronous requests use the
+ * JAX-RS AsyncInvoker, so they run on the Client's own async machinery.
+ * <p>
+ * The WebTarget for each root URL and path is built once and reused, up to
+ * MAX_CACHED_TARGETS of them; only templates and query parameters are
+ * resolved per request. A WebTarget takes a snapshot of its Client's
+ * configuration, so register providers on the Client before using it here.
  *
  * @author Raul Acevedo
  */
 public class BreezeHttpJaxRsClient extends AbstractBreezeHttpClient {
+    public static final int MAX_CACHED_TARGETS = 1024;
+
     private final Client client;
     private final Class<?> errorResponseClass;
+    private final ConcurrentMap<String, WebTarget> targets = new ConcurrentHashMap<>();
 
     public BreezeHttpJaxRsClient() {
         this(null, null, null, null);
@@ -95,7 +117,7 @@ public class BreezeHttpJaxRsClient extends AbstractBreezeHttpClient {
         try {
             logRequestStart(request);
 
-            response = buildInvoker(request).method(request.getMethod().toString(), createEntity(payload));
+            response = buildInvoker(request, payload).method(request.getMethod().toString(), createEntity(request, payload));
             validateResponse(request, response);
             BreezeHttpResponse<T> breezeResponse = createResponse(genericType, response, response.getStatus());
 
@@ -114,10 +136,145 @@ public class BreezeHttpJaxRsClient extends AbstractBreezeHttpClient {
         }
     }
 
-    protected SyncInvoker buildInvoker(BreezeHttpRequest request) {
-        WebTarget target = getClient()
-                .target(request.getRootUrl())
-                .path(request.getPath())
+    /** Returns the response without reading the body; closing it closes the JAX-RS Response. */
+    @Override
+    public BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload)
+            throws BreezeHttpException {
+        long startTime = System.currentTimeMillis();
+        Response response = null;
+
+        try {
+            logRequestStart(request);
+
+            response = buildInvoker(request, payload).method(request.getMethod().toString(), createEntity(request, payload));
+            validateResponse(request, response);
+            InputStream body = response.hasEntity()
+                    ? response.readEntity(InputStream.class)
+                    : new ByteArrayInputStream(new byte[0]);
+            BreezeHttpStreamingResponse breezeResponse = new BreezeHttpStreamingResponse(
+                    body,
+                    response.getStatus(),
+                    headers(response),
+                    response::close
+            );
+
+            logRequestEnd(request, startTime);
+            return breezeResponse;
+        } catch (BreezeHttpException e) {
+            close(response);
+            logRequestException(request, startTime, e);
+            throw e;
+        } catch (Exception e) {
+            close(response);
+            logRequestException(request, startTime, e);
+            throw new BreezeHttpException("error executing " + request, e);
+        }
+    }
+
+    private void close(Response response) {
+        if (response != null) {
+            response.close();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> genericType,
+            Object payload
+    ) {
+        return invokeAsync(
+                request,
+                new GenericType<>(genericType == null ? Void.class : genericType.getType()),
+                payload
+        );
+    }
+
+    protected <T> CompletableFuture<BreezeHttpResponse<T>> invokeAsync(
+            BreezeHttpRequest request,
+            GenericType<T> genericType,
+            Object payload
+    ) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+
+        try {
+            logRequestStart(request);
+
+            InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+                @Override
+                public void completed(Response response) {
+                    try {
+                        validateResponse(request, response);
+                        BreezeHttpResponse<T> breezeResponse = createResponse(genericType, response, response.getStatus());
+
+                        logRequestEnd(request, startTime);
+                        future.complete(breezeResponse);
+                    } catch (Exception e) {
+                        future.completeExceptionally(asyncException(request, startTime, e));
+                    } finally {
+                        response.close();
+                    }
+                }
+
+                @Override
+                public void failed(Throwable throwable) {
+                    future.completeExceptionally(asyncException(request, startTime, throwable));
+                }
+            };
+
+            Future<Response> invocation = buildInvocation(request, payload)
+                    .async()
+                    .method(request.getMethod().toString(), createEntity(request, payload), callback);
+
+            // Cancelling our future, for example when a hedged request loses, aborts the request
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    invocation.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(asyncException(request, startTime, e));
+        }
+
+        return future;
+    }
+
+    /** Log and convert an asynchronous failure the same way invoke does for synchronous ones. */
+    protected BreezeHttpException asyncException(BreezeHttpRequest request, long startTime, Throwable throwable) {
+        BreezeHttpException breezeException = throwable instanceof BreezeHttpException
+                ? (BreezeHttpException) throwable
+                : new BreezeHttpException("error executing " + request, throwable);
+        logRequestException(
+                request,
+                startTime,
+                throwable instanceof Exception ? (Exception) throwable : breezeException
+        );
+        return breezeException;
+    }
+
+    protected SyncInvoker buildInvoker(BreezeHttpRequest request, Object payload) throws IOException {
+        return buildInvocation(request, payload);
+    }
+
+    /**
+     * File and replayable payloads get their size as Content-Length, so a
+     * connector that supports fixed length streaming, like Jersey's
+     * HttpUrlConnector with USE_FIXED_LENGTH_STREAMING, sends them from disk
+     * without buffering.
+     */
+    protected Invocation.Builder buildInvocation(BreezeHttpRequest request, Object payload) throws IOException {
+        Invocation.Builder invoker = buildInvocation(request);
+        if (payload instanceof Path) {
+            invoker.header(HttpHeaders.CONTENT_LENGTH, Files.size((Path) payload));
+        } else if (payload instanceof BreezeReplayablePayload) {
+            invoker.header(HttpHeaders.CONTENT_LENGTH, ((BreezeReplayablePayload) payload).length());
+        }
+        return invoker;
+    }
+
+    protected Invocation.Builder buildInvocation(BreezeHttpRequest request) {
+        WebTarget target = target(request.getRootUrl(), request.getPath())
                 .resolveTemplates(request.getPathVariables());
 
         // Add query string variables
@@ -125,22 +282,87 @@ public class BreezeHttpJaxRsClient extends AbstractBreezeHttpClient {
             target = target.queryParam(queryVariable.getKey(), queryVariable.getValue().toArray());
         }
 
-        // Add HTTP headers
-        Invocation.Builder invoker = target.request(MediaType.APPLICATION_JSON_TYPE);
+        // Add HTTP headers; accept JSON unless the request says otherwise
+        Invocation.Builder invoker = target.request();
         for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
             for (String value : entry.getValue()) {
                 invoker.header(entry.getKey(), value);
             }
         }
+        if (firstHeader(request, HttpHeaders.ACCEPT) == null) {
+            invoker.accept(MediaType.APPLICATION_JSON_TYPE);
+        }
 
         return invoker;
     }
 
+    /**
+     * Returns the unresolved WebTarget for a root URL and path. Targets are
+     * only cached for the Client this instance was created with, since a
+     * subclass may return a different Client from getClient().
+     */
+    protected WebTarget target(String rootUrl, String path) {
+        Client current = getClient();
+        if (current != client) {
+            return current.target(rootUrl).path(path);
+        }
+
+        String key = rootUrl + '\n' + path;
+        WebTarget target = targets.get(key);
+        if (target == null) {
+            target = client.target(rootUrl).path(path);
+            if (targets.size() < MAX_CACHED_TARGETS) {
+                targets.putIfAbsent(key, target);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * JAX-RS sets Content-Type and Content-Encoding from the entity's variant,
+     * which would drop the headers set on the request. A Content-Type on the
+     * request replaces the JSON default, so objects are written by whichever
+     * provider handles it, such as a BreezeCodecProvider.
+     */
+    protected Entity<?> createEntity(BreezeHttpRequest request, Object payload) {
+        Entity<?> entity = createEntity(payload);
+        if (entity == null) {
+            return null;
+        }
+
+        String contentType = firstHeader(request, HttpHeaders.CONTENT_TYPE);
+        String contentEncoding = firstHeader(request, HttpHeaders.CONTENT_ENCODING);
+        MediaType mediaType = contentType != null && MediaType.APPLICATION_JSON_TYPE.equals(entity.getMediaType())
+                ? MediaType.valueOf(contentType)
+                : entity.getMediaType();
+        if (contentEncoding == null && mediaType.equals(entity.getMediaType())) {
+            return entity;
+        }
+        return Entity.entity(entity.getEntity(), new Variant(mediaType, (String) null, contentEncoding));
+    }
+
+    private String firstHeader(BreezeHttpRequest request, String name) {
+        for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
     protected Entity<?> createEntity(Object payload) {
         Entity<?> entity = null;
 
         if (payload instanceof InputStream) {
             entity = Entity.entity(payload, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+        } else if (payload instanceof Path) {
+            entity = Entity.entity(((Path) payload).toFile(), MediaType.APPLICATION_OCTET_STREAM_TYPE);
+        } else if (payload instanceof BreezeReplayablePayload) {
+            Object spooled = ((BreezeReplayablePayload) payload).getPayload();
+            entity = Entity.entity(
+                    spooled instanceof Path ? ((Path) spooled).toFile() : spooled,
+                    MediaType.APPLICATION_OCTET_STREAM_TYPE
+            );
         } else if (payload instanceof BreezeRequestForm) {
             Form form = new Form();
             BreezeRequestForm breezeForm = (BreezeRequestForm) payload;
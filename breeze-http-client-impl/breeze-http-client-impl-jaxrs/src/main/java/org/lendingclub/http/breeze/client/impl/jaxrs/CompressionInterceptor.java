@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+
+/**
+ * Compresses request bodies larger than the threshold, and asks for and
+ * decompresses compressed responses; register it on the JAX-RS client.
+ *
+ * Bodies are compressed as they are written, once they pass the threshold,
+ * so the whole body is never held in memory. Requests that already have a
+ * Content-Encoding, for example "identity" to opt a request out, or a
+ * Content-Length, such as file uploads, are sent as is.
+ *
+ * @author Raul Acevedo
+ */
+public class CompressionInterceptor implements ClientRequestFilter, WriterInterceptor, ReaderInterceptor {
+    private final ContentEncoding encoding;
+    private final int threshold;
+    private final String acceptEncoding;
+
+    public CompressionInterceptor(ContentEncoding encoding, int threshold) {
+        encoding.checkAvailable();
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.acceptEncoding = encoding == ContentEncoding.GZIP
+                ? encoding.getName()
+                : encoding.getName() + ", " + ContentEncoding.GZIP.getName();
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        MultivaluedMap<String, Object> headers = requestContext.getHeaders();
+        if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            headers.putSingle(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream out = new ThresholdOutputStream(context);
+        context.setOutputStream(out);
+        context.proceed();
+        out.close();
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        ContentEncoding contentEncoding = ContentEncoding.forHeader(
+                context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)
+        );
+        if (contentEncoding != null) {
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+            context.setInputStream(contentEncoding.decode(context.getInputStream()));
+        }
+        return context.proceed();
+    }
+
+    /**
+     * Buffers the body until it is larger than the threshold, then sets
+     * Content-Encoding, before anything reaches the connection and the
+     * headers are committed, and compresses the rest as it is written.
+     */
+    private class ThresholdOutputStream extends OutputStream {
+        private final WriterInterceptorContext context;
+        private final OutputStream out;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream encoded = null;
+        private boolean closed = false;
+
+        ThresholdOutputStream(WriterInterceptorContext context) {
+            this.context = context;
+            this.out = context.getOutputStream();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (encoded == null) {
+                buffer.write(bytes, offset, length);
+                if (buffer.size() > threshold) {
+                    context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding.getName());
+                    encoded = encoding.encode(out);
+                    buffer.writeTo(encoded);
+                    buffer = null;
+                }
+            } else {
+                encoded.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (encoded == null) {
+                buffer.writeTo(out);
+                out.close();
+            } else {
+                encoded.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs.jersey;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Sends Jersey requests with OkHttp; see OkHttpConnectorProvider.
+ *
+ * @author Raul Acevedo
+ */
+class OkHttpConnector implements Connector {
+    private static final byte[] EMPTY = {};
+
+    private final OkHttpClient client;
+
+    OkHttpConnector(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public ClientResponse apply(ClientRequest request) {
+        try {
+            return createResponse(request, newCall(request).execute());
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+        Call call;
+        try {
+            call = newCall(request);
+        } catch (IOException | RuntimeException e) {
+            ProcessingException failure = e instanceof ProcessingException
+                    ? (ProcessingException) e
+                    : new ProcessingException(e);
+            callback.failure(failure);
+            CompletableFuture<ClientResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(failure);
+            return failed;
+        }
+
+        CompletableFuture<ClientResponse> future = new CompletableFuture<ClientResponse>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                call.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                ClientResponse clientResponse = createResponse(request, response);
+                future.complete(clientResponse);
+                callback.response(clientResponse);
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                ProcessingException failure = new ProcessingException(e);
+                future.completeExceptionally(failure);
+                callback.failure(failure);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public String getName() {
+        return "OkHttp";
+    }
+
+    /** The OkHttp client belongs to whoever created the provider, and may be shared between Jersey clients. */
+    @Override
+    public void close() {
+    }
+
+    private Call newCall(ClientRequest request) throws IOException {
+        return client.newCall(createRequest(request));
+    }
+
+    private static Request createRequest(ClientRequest request) throws IOException {
+        RequestBody body = null;
+        if (request.hasEntity()) {
+            // Headers are final only once the entity, and any interceptors, have been written
+            ByteArrayOutputStream entity = new ByteArrayOutputStream(1024);
+            request.setStreamProvider(contentLength -> entity);
+            request.writeEntity();
+            String contentType = request.getHeaderString(HttpHeaders.CONTENT_TYPE);
+            body = RequestBody.create(contentType == null ? null : MediaType.parse(contentType), entity.toByteArray());
+        } else if (HttpMethod.POST.equals(request.getMethod())
+                || HttpMethod.PUT.equals(request.getMethod())
+                || "PATCH".equals(request.getMethod())) {
+            body = RequestBody.create(null, EMPTY);
+        }
+
+        Request.Builder builder = new Request.Builder().url(request.getUri().toString());
+        for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+            // OkHttp sets the framing headers from the body, and HTTP/2 doesn't allow Transfer-Encoding at all
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())
+                    || "Transfer-Encoding".equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.addHeader(header.getKey(), value);
+            }
+        }
+        return builder.method(request.getMethod(), body).build();
+    }
+
+    private static ClientResponse createResponse(ClientRequest request, Response response) {
+        // HTTP/2 has no reason phrase, so fall back to the standard one
+        ClientResponse clientResponse = new ClientResponse(
+                response.message().isEmpty()
+                        ? Statuses.from(response.code())
+                        : Statuses.from(response.code(), response.message()),
+                request
+        );
+        Headers headers = response.headers();
+        for (int i = 0; i < headers.size(); i++) {
+            clientResponse.getHeaders().add(headers.name(i), headers.value(i));
+        }
+        clientResponse.setEntityStream(response.body().byteStream());
+        return clientResponse;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.jaxrs.jersey;
+
+import okhttp3.OkHttpClient;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Jersey connector provider that sends requests with the given OkHttp
+ * client, for example one from OkHttpTransport to speak HTTP/2. Entities
+ * are buffered in memory before they are sent.
+ *
+ * Set timeouts on the OkHttp client. The JAX-RS client's CONNECT_TIMEOUT
+ * and READ_TIMEOUT properties and HostnameVerifier are applied once, when
+ * the connector is created; per-request timeout properties are ignored. An
+ * SSLContext must be set on the OkHttp client together with its trust
+ * manager, so one set on the JAX-RS client is rejected.
+ *
+ * @author Raul Acevedo
+ */
+public class OkHttpConnectorProvider implements ConnectorProvider {
+    private final OkHttpClient client;
+
+    public OkHttpConnectorProvider(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Connector getConnector(Client jaxRsClient, Configuration runtimeConfig) {
+        if (jaxRsClient instanceof JerseyClient && !((JerseyClient) jaxRsClient).isDefaultSslContext()) {
+            throw new IllegalStateException("cannot use the JAX-RS client's SSLContext with OkHttp, "
+                    + "set it and its X509TrustManager on the OkHttp client instead");
+        }
+
+        Integer connectTimeout = ClientProperties.getValue(
+                runtimeConfig.getProperties(), ClientProperties.CONNECT_TIMEOUT, Integer.class
+        );
+        Integer readTimeout = ClientProperties.getValue(
+                runtimeConfig.getProperties(), ClientProperties.READ_TIMEOUT, Integer.class
+        );
+        HostnameVerifier hostnameVerifier = jaxRsClient.getHostnameVerifier();
+        if ((connectTimeout == null || connectTimeout == client.connectTimeoutMillis())
+                && (readTimeout == null || readTimeout == client.readTimeoutMillis())
+                && hostnameVerifier == null) {
+            return new OkHttpConnector(client);
+        }
+
+        // The derived client shares the connection pool and dispatcher
+        OkHttpClient.Builder builder = client.newBuilder();
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout, MILLISECONDS);
+        }
+        if (readTimeout != null) {
+            builder.readTimeout(readTimeout, MILLISECONDS);
+        }
+        if (hostnameVerifier != null) {
+            builder.hostnameVerifier(hostnameVerifier);
+        }
+        return new OkHttpConnector(builder.build());
+    }
+}
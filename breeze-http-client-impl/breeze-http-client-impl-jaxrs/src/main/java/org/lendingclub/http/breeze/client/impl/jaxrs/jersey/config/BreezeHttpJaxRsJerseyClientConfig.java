@@ -21,16 +21,28 @@ import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.client.HttpUrlConnectorProvider;
 import org.glassfish.jersey.client.JerseyClient;
 import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
 import org.lendingclub.http.breeze.client.filter.UserAgentRequestFilter;
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+import org.lendingclub.http.breeze.client.impl.HttpProtocol;
+import org.lendingclub.http.breeze.client.impl.OkHttpTransport;
+import org.lendingclub.http.breeze.client.impl.jaxrs.BreezeCodecProvider;
 import org.lendingclub.http.breeze.client.impl.jaxrs.BreezeHttpJaxRsClient;
+import org.lendingclub.http.breeze.client.impl.jaxrs.CompressionInterceptor;
+import org.lendingclub.http.breeze.client.impl.jaxrs.jersey.OkHttpConnectorProvider;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Easy way configure a JAX-RS Jersey client.
@@ -39,21 +51,48 @@ import static java.util.Collections.singletonList;
  */
 @Configuration
 public class BreezeHttpJaxRsJerseyClientConfig {
+    @Autowired(required = false)
+    private List<BreezeHttpCodec> breezeHttpCodecs = emptyList();
+
     @Bean
     public BreezeHttpJaxRsClient breezeHttpJaxRsJerseyClient(
             @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_CONNECT_TIMEOUT:10000}") int connectTimeout,
             @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_READ_TIMEOUT:10000}") int readTimeout,
             @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_ERROR_RESPONSE_CLASS:java.lang.String}")
-                    String errorResponseClass
+                    String errorResponseClass,
+            @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_COMPRESSION:}") String compression,
+            @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_COMPRESSION_THRESHOLD:1024}") int compressionThreshold,
+            @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_PROTOCOL:}") String protocol,
+            @Value(value = "${BREEZE_HTTP_JAXRS_JERSEY_CLIENT_MAX_CONCURRENT_STREAMS:100}") int maxConcurrentStreams
     ) throws ClassNotFoundException {
         // jackson sucks
         ClientConfig clientConfig = new ClientConfig(
                 new JacksonJaxbJsonProvider().configure(FAIL_ON_UNKNOWN_PROPERTIES, false)
         );
+
+        // Sending over OkHttp, e.g. for HTTP/2, needs the optional com.squareup.okhttp3:okhttp dependency
+        HttpProtocol httpProtocol = HttpProtocol.forName(protocol);
+        if (httpProtocol != null) {
+            clientConfig.connectorProvider(new OkHttpConnectorProvider(
+                    OkHttpTransport.builder(httpProtocol, maxConcurrentStreams)
+                            .connectTimeout(connectTimeout, MILLISECONDS)
+                            .readTimeout(readTimeout, MILLISECONDS)
+                            .build()
+            ));
+        }
         JerseyClient client = JerseyClientBuilder.createClient(clientConfig)
                 .property(ClientProperties.CONNECT_TIMEOUT, connectTimeout)
                 .property(ClientProperties.READ_TIMEOUT, readTimeout)
-                .property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true);
+                .property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true)
+                .property(HttpUrlConnectorProvider.USE_FIXED_LENGTH_STREAMING, true);
+
+        ContentEncoding encoding = ContentEncoding.forName(compression);
+        if (encoding != null) {
+            client.register(new CompressionInterceptor(encoding, compressionThreshold));
+        }
+        if (!breezeHttpCodecs.isEmpty()) {
+            client.register(new BreezeCodecProvider(breezeHttpCodecs));
+        }
 
         return new BreezeHttpJaxRsClient(
                 client,
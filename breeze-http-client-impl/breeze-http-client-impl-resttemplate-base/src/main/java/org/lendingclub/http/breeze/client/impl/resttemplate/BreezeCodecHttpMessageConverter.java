@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+
+/**
+ * Adapts a BreezeHttpCodec to Spring's message converters. Register it after
+ * the JSON converter, so JSON stays the default for requests without a
+ * Content-Type; it works on the server side too.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeCodecHttpMessageConverter extends AbstractHttpMessageConverter<Object>
+        implements GenericHttpMessageConverter<Object> {
+    private final BreezeHttpCodec codec;
+
+    public BreezeCodecHttpMessageConverter(BreezeHttpCodec codec) {
+        super(MediaType.parseMediaType(codec.getMediaType()));
+        this.codec = codec;
+    }
+
+    public BreezeHttpCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return codec.supports(clazz);
+    }
+
+    /**
+     * Only read responses that are in the codec's media type; RestTemplate
+     * asks with no media type to build the default Accept header, which
+     * shouldn't offer every codec to every service.
+     */
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && super.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(rawClass(type), mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return codec.read(type, inputMessage.getBody());
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return codec.read(clazz, inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        codec.write(value, outputMessage.getBody());
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        return Object.class;
+    }
+}
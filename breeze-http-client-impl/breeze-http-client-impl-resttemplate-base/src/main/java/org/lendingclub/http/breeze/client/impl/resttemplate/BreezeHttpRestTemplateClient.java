@@ -19,35 +19,58 @@ package org.lendingclub.http.breeze.client.impl.resttemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRequestCallback;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
 import org.lendingclub.http.breeze.client.BreezeHttpType;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
 import org.lendingclub.http.breeze.client.impl.AbstractBreezeHttpClient;
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
 import org.lendingclub.http.breeze.client.impl.resttemplate.error.ClientErrorHandler;
+import org.lendingclub.http.breeze.client.payload.BreezeReplayablePayload;
 import org.lendingclub.http.breeze.client.payload.BreezeRequestForm;
 
 /**
@@ -55,6 +78,18 @@ import org.lendingclub.http.breeze.client.payload.BreezeRequestForm;
  * so we can do special things like have the request object handy when we
  * process errors.
  *
+ * If an AsyncRestTemplate is supplied, asynchronous requests are executed
+ * through it without blocking the calling thread; otherwise they fall back to
+ * executing synchronously.
+ *
+ * File (Path) payloads are sent through the optional fileRequestFactory,
+ * which should stream the body rather than buffer it in memory first; the
+ * file size is sent as the Content-Length.
+ *
+ * With a compression encoding, asynchronous and streaming request bodies are
+ * compressed in writeEntity() the same way CompressionRequestInterceptor
+ * does for synchronous ones; files are never compressed.
+ *
  * @author Raul Acevedo
  */
 public class BreezeHttpRestTemplateClient extends AbstractBreezeHttpClient {
@@ -62,7 +97,11 @@ public class BreezeHttpRestTemplateClient extends AbstractBreezeHttpClient {
     protected static final ThreadLocal<BreezeHttpRequest> REQUEST_CONTEXT = new ThreadLocal<>();
 
     protected final RestTemplate restTemplate;
+    protected final AsyncRestTemplate asyncRestTemplate;
+    protected final RestTemplate fileRestTemplate;
     protected final ClientErrorHandler clientErrorHandler;
+    protected final ContentEncoding compression;
+    protected final int compressionThreshold;
 
     public BreezeHttpRestTemplateClient(
             RestTemplate restTemplate,
@@ -80,13 +119,78 @@ public class BreezeHttpRestTemplateClient extends AbstractBreezeHttpClient {
             ClientErrorHandler clientErrorHandler,
             List<BreezeHttpRequestFilter> requestFilters,
             Logger logger
+    ) {
+        this(restTemplate, null, clientErrorHandler, requestFilters, logger);
+    }
+
+    public BreezeHttpRestTemplateClient(
+            RestTemplate restTemplate,
+            AsyncRestTemplate asyncRestTemplate,
+            ClientErrorHandler clientErrorHandler,
+            List<BreezeHttpRequestFilter> requestFilters,
+            Logger logger
+    ) {
+        this(restTemplate, asyncRestTemplate, null, clientErrorHandler, requestFilters, logger);
+    }
+
+    public BreezeHttpRestTemplateClient(
+            RestTemplate restTemplate,
+            AsyncRestTemplate asyncRestTemplate,
+            ClientHttpRequestFactory fileRequestFactory,
+            ClientErrorHandler clientErrorHandler,
+            List<BreezeHttpRequestFilter> requestFilters,
+            Logger logger
+    ) {
+        this(restTemplate, asyncRestTemplate, fileRequestFactory, clientErrorHandler, requestFilters, logger, null, 0);
+    }
+
+    /**
+     * @param compression encoding for request bodies larger than compressionThreshold, or null; restTemplate's
+     * request factory should compress the same way, see CompressionRequestInterceptor
+     */
+    public BreezeHttpRestTemplateClient(
+            RestTemplate restTemplate,
+            AsyncRestTemplate asyncRestTemplate,
+            ClientHttpRequestFactory fileRequestFactory,
+            ClientErrorHandler clientErrorHandler,
+            List<BreezeHttpRequestFilter> requestFilters,
+            Logger logger,
+            ContentEncoding compression,
+            int compressionThreshold
     ) {
         super(requestFilters, logger);
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
         this.restTemplate = restTemplate;
         this.restTemplate.setErrorHandler(new RestTemplateErrorHandler());
+        this.asyncRestTemplate = asyncRestTemplate;
+        if (asyncRestTemplate != null) {
+            this.asyncRestTemplate.setErrorHandler(new AsyncRestTemplateErrorHandler());
+        }
+        this.fileRestTemplate = fileRestTemplate(fileRequestFactory);
         this.clientErrorHandler = clientErrorHandler;
     }
 
+    /** Same as restTemplate, but with the given request factory; interceptors will still buffer the body. */
+    private RestTemplate fileRestTemplate(ClientHttpRequestFactory fileRequestFactory) {
+        if (fileRequestFactory == null) {
+            return restTemplate;
+        }
+        RestTemplate template = new RestTemplate(fileRequestFactory);
+        template.setMessageConverters(restTemplate.getMessageConverters());
+        template.setInterceptors(restTemplate.getInterceptors());
+        template.setErrorHandler(restTemplate.getErrorHandler());
+        return template;
+    }
+
+    /** The RestTemplate to send the payload with. */
+    protected RestTemplate restTemplate(Object payload) {
+        if (payload instanceof BreezeReplayablePayload) {
+            return restTemplate(((BreezeReplayablePayload) payload).getPayload());
+        }
+        return payload instanceof Path ? fileRestTemplate : restTemplate;
+    }
+
     @Override
     public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> genericType, Object payload)
             throws BreezeHttpException {
@@ -113,6 +217,123 @@ public class BreezeHttpRestTemplateClient extends AbstractBreezeHttpClient {
         }
     }
 
+    /**
+     * Executes the request through the RestTemplate's request factory, so its
+     * interceptors still apply, and returns the response without reading the
+     * body; closing it closes the underlying ClientHttpResponse.
+     */
+    @Override
+    public BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload)
+            throws BreezeHttpException {
+        long startTime = System.currentTimeMillis();
+        ClientHttpResponse response = null;
+        try {
+            logRequestStart(request);
+            ClientHttpRequest clientRequest = restTemplate(payload).getRequestFactory().createRequest(
+                    buildURI(request),
+                    HttpMethod.valueOf(request.getMethod().toString())
+            );
+            writeEntity(createEntity(request, payload), Void.class, clientRequest);
+            response = clientRequest.execute();
+
+            int statusCode = response.getRawStatusCode();
+            if (clientErrorHandler.isErrorCode(statusCode)) {
+                throw clientErrorHandler.handleError(request, statusCode, response);
+            }
+
+            BreezeHttpStreamingResponse streamingResponse = new BreezeHttpStreamingResponse(
+                    response.getBody(),
+                    statusCode,
+                    headers(response.getHeaders()),
+                    response::close
+            );
+            logRequestEnd(request, startTime);
+            return streamingResponse;
+        } catch (BreezeHttpException e) {
+            close(response);
+            logRequestException(request, startTime, e);
+            throw e;
+        } catch (Exception e) {
+            close(response);
+            BreezeHttpException remoteException = clientErrorHandler.handleError(request, e);
+            logRequestException(request, startTime, remoteException);
+            throw remoteException;
+        }
+    }
+
+    private void close(ClientHttpResponse response) {
+        if (response != null) {
+            response.close();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+            BreezeHttpRequest request,
+            BreezeHttpType<T> genericType,
+            Object payload
+    ) {
+        if (asyncRestTemplate == null) {
+            return super.executeAsync(request, genericType, payload);
+        }
+        return invokeAsync(request, genericType == null ? null : genericType.getType(), payload);
+    }
+
+    protected <T> CompletableFuture<BreezeHttpResponse<T>> invokeAsync(
+            BreezeHttpRequest request,
+            Type type,
+            Object payload
+    ) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+
+        try {
+            logRequestStart(request);
+            ListenableFuture<BreezeHttpResponse<T>> exchange = asyncRestTemplate.execute(
+                    buildURI(request),
+                    HttpMethod.valueOf(request.getMethod().toString()),
+                    new EntityRequestCallback(createEntity(request, payload), type),
+                    new BreezeResponseExtractor<T>(request, type)
+            );
+            exchange.addCallback(
+                    (response) -> {
+                        logRequestEnd(request, startTime);
+                        future.complete(response);
+                    },
+                    (throwable) -> future.completeExceptionally(asyncException(request, startTime, throwable))
+            );
+
+            // Cancelling our future, for example when a hedged request loses, aborts the request
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(asyncException(request, startTime, e));
+        }
+
+        return future;
+    }
+
+    /**
+     * Log and convert an asynchronous failure the same way invoke does for
+     * synchronous ones. This must not throw, or the caller's future would
+     * never complete; so without an error handler the failure is wrapped.
+     */
+    protected BreezeHttpException asyncException(BreezeHttpRequest request, long startTime, Throwable throwable) {
+        BreezeHttpException breezeException;
+        if (throwable instanceof BreezeHttpException) {
+            breezeException = (BreezeHttpException) throwable;
+        } else if (throwable instanceof Exception && clientErrorHandler != null) {
+            breezeException = clientErrorHandler.handleError(request, (Exception) throwable);
+        } else {
+            breezeException = new BreezeHttpException("error invoking " + request, throwable);
+        }
+        logRequestException(request, startTime, breezeException);
+        return breezeException;
+    }
+
     protected <T> BreezeHttpResponse<T> exchange(BreezeHttpRequest request, Type type, Object payload) {
         // Clever hack to pass generics type information which is normally erased at runtime
         ParameterizedTypeReference<T> typeReference = new ParameterizedTypeReference<T>() {
@@ -122,38 +343,37 @@ public class BreezeHttpRestTemplateClient extends AbstractBreezeHttpClient {
             }
         };
 
-        ResponseEntity<T> entity = restTemplate.exchange(
+        ResponseEntity<T> entity = restTemplate(payload).exchange(
                 buildURI(request),
                 HttpMethod.valueOf(request.getMethod().toString()),
                 createEntity(request, payload),
                 typeReference
         );
 
-        Map<String, List<String>> headers = new HashMap<>();
-        entity.getHeaders().forEach((key, value) -> headers.put(key.toLowerCase(), new ArrayList<>(value)));
+        return new BreezeHttpResponse<>(entity.getBody(), entity.getStatusCode().value(), headers(entity.getHeaders()));
+    }
 
-        return new BreezeHttpResponse<>(entity.getBody(), entity.getStatusCode().value(), headers);
+    protected Map<String, List<String>> headers(HttpHeaders httpHeaders) {
+        Map<String, List<String>> headers = new HashMap<>();
+        httpHeaders.forEach((key, value) -> headers.put(key.toLowerCase(), new ArrayList<>(value)));
+        return headers;
     }
 
     protected URI buildURI(BreezeHttpRequest request) {
-        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(request.getRootUrl()).path(request.getPath());
-
-        // Add query string variables
-        if (!request.getQueryVariables().isEmpty()) {
-            for (Map.Entry<String, List<Object>> queryVariable : request.getQueryVariables().entrySet()) {
-                builder.queryParam(queryVariable.getKey(), queryVariable.getValue().toArray());
-            }
-        }
-
-        return builder.buildAndExpand(request.getPathVariables()).encode().toUri();
+        return BreezeUriTemplate.get(request.getRootUrl(), request.getPath())
+                .expand(request.getPathVariables(), request.getQueryVariables());
     }
 
-    private HttpEntity<?> createEntity(BreezeHttpRequest request, Object payload) {
+    protected HttpEntity<?> createEntity(BreezeHttpRequest request, Object payload) {
         HttpHeaders headers = new HttpHeaders();
-        headers.putAll(request.getHeaders());
+        request.getHeaders().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
 
         if (payload instanceof InputStream) {
             return new HttpEntity<>(new InputStreamResource((InputStream) payload), headers);
+        } else if (payload instanceof Path) {
+            return new HttpEntity<>(new FileSystemResource(((Path) payload).toFile()), headers);
+        } else if (payload instanceof BreezeReplayablePayload) {
+            return createEntity(request, ((BreezeReplayablePayload) payload).getPayload());
         } else if (payload instanceof BreezeRequestForm) {
             BreezeRequestForm form = (BreezeRequestForm) payload;
             MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
@@ -164,6 +384,170 @@ public class BreezeHttpRestTemplateClient extends AbstractBreezeHttpClient {
         }
     }
 
+    /**
+     * Write the entity headers and body to the outgoing message using the
+     * RestTemplate's message converters, the same way RestTemplate itself
+     * does for synchronous requests. Also sets the Accept header from the
+     * converters able to read the response type, unless the request set one,
+     * and compresses the body if a compression encoding was given.
+     */
+    protected void writeEntity(HttpEntity<?> entity, Type responseType, HttpOutputMessage message) throws IOException {
+        HttpHeaders headers = message.getHeaders();
+        headers.putAll(entity.getHeaders());
+
+        if (headers.getAccept().isEmpty()) {
+            List<MediaType> accept = acceptableMediaTypes(responseType);
+            if (!accept.isEmpty()) {
+                headers.setAccept(accept);
+            }
+        }
+
+        Object body = entity.getBody();
+        if (body == null) {
+            return;
+        }
+
+        if (compression == null
+                || body instanceof FileSystemResource
+                || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            writeBody(body, headers.getContentType(), message);
+            return;
+        }
+
+        // Same rules as CompressionRequestInterceptor, which only sees synchronous requests
+        BufferedOutputMessage buffered = new BufferedOutputMessage(headers);
+        writeBody(body, headers.getContentType(), buffered);
+        byte[] bytes = buffered.body.toByteArray();
+        if (bytes.length > compressionThreshold) {
+            bytes = compression.encode(bytes);
+            headers.set(HttpHeaders.CONTENT_ENCODING, compression.getName());
+            if (headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                headers.setContentLength(bytes.length);
+            }
+        }
+        message.getBody().write(bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeBody(Object body, MediaType contentType, HttpOutputMessage message) throws IOException {
+        for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+            if (converter.canWrite(body.getClass(), contentType)) {
+                ((HttpMessageConverter<Object>) converter).write(body, contentType, message);
+                return;
+            }
+        }
+
+        throw new RestClientException("no HttpMessageConverter found for request type [" + body.getClass().getName()
+                + "] and content type [" + contentType + "]");
+    }
+
+    private List<MediaType> acceptableMediaTypes(Type responseType) {
+        Set<MediaType> mediaTypes = new LinkedHashSet<>();
+        Class<?> responseClass = rawClass(responseType);
+
+        if (responseClass != null && Void.class != responseClass) {
+            for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+                boolean canRead = converter instanceof GenericHttpMessageConverter
+                        ? ((GenericHttpMessageConverter<?>) converter).canRead(responseType, null, null)
+                        : converter.canRead(responseClass, null);
+                if (canRead) {
+                    mediaTypes.addAll(converter.getSupportedMediaTypes());
+                }
+            }
+        }
+
+        List<MediaType> result = new ArrayList<>(mediaTypes);
+        MediaType.sortBySpecificity(result);
+        return result;
+    }
+
+    private Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        return null;
+    }
+
+    /** Collects a body before it is compressed; headers are the real message's. */
+    private static class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+        BufferedOutputMessage(HttpHeaders headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    /** Request callback that writes a request entity for AsyncRestTemplate. */
+    protected class EntityRequestCallback implements AsyncRequestCallback {
+        private final HttpEntity<?> entity;
+        private final Type responseType;
+
+        public EntityRequestCallback(HttpEntity<?> entity, Type responseType) {
+            this.entity = entity;
+            this.responseType = responseType;
+        }
+
+        @Override
+        public void doWithRequest(AsyncClientHttpRequest request) throws IOException {
+            writeEntity(entity, responseType, request);
+        }
+    }
+
+    /**
+     * Converts the raw response into a BreezeHttpResponse, delegating errors
+     * to our ClientErrorHandler. Unlike the synchronous path, the original
+     * request is available here directly, no thread local required.
+     */
+    protected class BreezeResponseExtractor<T> implements ResponseExtractor<BreezeHttpResponse<T>> {
+        private final BreezeHttpRequest request;
+        private final Type type;
+
+        public BreezeResponseExtractor(BreezeHttpRequest request, Type type) {
+            this.request = request;
+            this.type = type;
+        }
+
+        @Override
+        public BreezeHttpResponse<T> extractData(ClientHttpResponse response) throws IOException {
+            int statusCode = response.getRawStatusCode();
+            if (clientErrorHandler.isErrorCode(statusCode)) {
+                throw clientErrorHandler.handleError(request, statusCode, response);
+            }
+
+            T body = null;
+            if (type != null && Void.class != type) {
+                body = new HttpMessageConverterExtractor<T>(type, restTemplate.getMessageConverters()).extractData(response);
+            }
+
+            return new BreezeHttpResponse<>(body, statusCode, headers(response.getHeaders()));
+        }
+    }
+
+    /**
+     * Error responses for asynchronous requests are handled by the
+     * BreezeResponseExtractor, which has the request at hand; this handler
+     * just keeps AsyncRestTemplate from handling them first.
+     */
+    protected class AsyncRestTemplateErrorHandler extends DefaultResponseErrorHandler {
+        @Override
+        public boolean hasError(ClientHttpResponse response) {
+            return false;
+        }
+    }
+
     /**
      * A custom RestTemplate error handler allows us to delegate all of our
      * error handling to a single class, and to pass in the original request
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A root URL and path template parsed once, then expanded and percent-encoded
+ * straight into one StringBuilder per request. The result is the same as
+ * UriComponentsBuilder.fromHttpUrl(rootUrl).path(path).queryParam(...)
+ * .buildAndExpand(pathVariables).encode(), which parses the URL, the path
+ * template and every query parameter again on each call.
+ *
+ * Templates are cached per root URL and path, up to MAX_CACHED of them, so
+ * paths built by concatenating ids rather than with path variables don't
+ * grow the cache forever; once it's full, new paths are built with
+ * UriComponentsBuilder without compiling them first. The few URLs the fast path doesn't handle, such
+ * as a root URL with a query string or variables in the host, are built
+ * with UriComponentsBuilder as before.
+ *
+ * @author Raul Acevedo
+ */
+public final class BreezeUriTemplate {
+    public static final int MAX_CACHED = 4096;
+
+    /** Same as UriComponents uses for template variables. */
+    private static final Pattern NAMES_PATTERN = Pattern.compile("\\{([^/]+?)\\}");
+
+    private static final ConcurrentMap<String, ConcurrentMap<String, BreezeUriTemplate>> CACHE =
+            new ConcurrentHashMap<>();
+    private static final AtomicInteger CACHED = new AtomicInteger();
+
+    /** ASCII characters left as is in paths and query parameters, per HierarchicalUriComponents.Type. */
+    private static final boolean[] PATH = new boolean[128];
+    private static final boolean[] QUERY_PARAM = new boolean[128];
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    static {
+        String unreserved = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~";
+        String pchar = unreserved + "!$&'()*+,;=" + ":@";
+        for (char c : (pchar + "/").toCharArray()) {
+            PATH[c] = true;
+            QUERY_PARAM[c] = true;
+        }
+        QUERY_PARAM['?'] = true;
+        QUERY_PARAM['='] = false;
+        QUERY_PARAM['+'] = false;
+        QUERY_PARAM['&'] = false;
+    }
+
+    private final String rootUrl;
+    private final String path;
+
+    /** Encoded scheme and authority; null if this template isn't compiled and falls back to UriComponentsBuilder. */
+    private final String prefix;
+
+    /** Encoded literal path segments around the variables; literals.length == names.length + 1. */
+    private final String[] literals;
+    private final String[] names;
+    private final int length;
+
+    private BreezeUriTemplate(String rootUrl, String path, String prefix, String[] literals, String[] names) {
+        this.rootUrl = rootUrl;
+        this.path = path;
+        this.prefix = prefix;
+        this.literals = literals;
+        this.names = names;
+
+        int length = prefix == null ? 0 : prefix.length();
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.length = length;
+    }
+
+    /** Cached template for rootUrl and path. */
+    public static BreezeUriTemplate get(String rootUrl, String path) {
+        if (rootUrl == null || path == null) {
+            return compile(rootUrl, path);
+        }
+
+        ConcurrentMap<String, BreezeUriTemplate> templates = CACHE.get(rootUrl);
+        BreezeUriTemplate template = templates == null ? null : templates.get(path);
+        if (template != null) {
+            return template;
+        }
+
+        if (CACHED.get() >= MAX_CACHED) {
+            // Compiling costs more than a single build(), so only do it for templates that get reused
+            return uncompiled(rootUrl, path);
+        }
+
+        template = compile(rootUrl, path);
+        templates = CACHE.computeIfAbsent(rootUrl, (key) -> new ConcurrentHashMap<>());
+        if (templates.putIfAbsent(path, template) == null) {
+            CACHED.incrementAndGet();
+        }
+        return template;
+    }
+
+    static BreezeUriTemplate compile(String rootUrl, String path) {
+        UriComponents components = UriComponentsBuilder.fromHttpUrl(rootUrl).path(path).build();
+        String template = components.getPath() == null ? "" : components.getPath();
+        if (!components.getQueryParams().isEmpty()
+                || components.getFragment() != null
+                || hasVariable(components.getScheme())
+                || hasVariable(components.getUserInfo())
+                || hasVariable(components.getHost())
+                || (hasVariable(template) && template.indexOf(':') != -1)) {
+            // Regular expressions in variables, like {id:\d+}, need UriComponents' own parsing
+            return uncompiled(rootUrl, path);
+        }
+
+        String prefix = UriComponentsBuilder.newInstance()
+                .scheme(components.getScheme())
+                .userInfo(components.getUserInfo())
+                .host(components.getHost())
+                .port(components.getPort())
+                .build()
+                .encode()
+                .toUriString();
+
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Matcher matcher = NAMES_PATTERN.matcher(template);
+        int start = 0;
+        while (matcher.find()) {
+            literals.add(encode(template.substring(start, matcher.start()), PATH, new StringBuilder()).toString());
+            names.add(matcher.group(1));
+            start = matcher.end();
+        }
+        literals.add(encode(template.substring(start), PATH, new StringBuilder()).toString());
+
+        return new BreezeUriTemplate(
+                rootUrl,
+                path,
+                prefix,
+                literals.toArray(new String[literals.size()]),
+                names.toArray(new String[names.size()])
+        );
+    }
+
+    /** Template that always expands with UriComponentsBuilder. */
+    private static BreezeUriTemplate uncompiled(String rootUrl, String path) {
+        return new BreezeUriTemplate(rootUrl, path, null, new String[] {""}, new String[0]);
+    }
+
+    /** Expand and encode path and query variables. */
+    public URI expand(Map<String, Object> pathVariables, Map<String, List<Object>> queryVariables) {
+        if (prefix == null) {
+            return build(pathVariables, queryVariables);
+        }
+
+        StringBuilder uri = new StringBuilder(length + 16 * names.length + 32 * queryVariables.size());
+        uri.append(prefix);
+
+        int pathStart = uri.length();
+        uri.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            if (!pathVariables.containsKey(names[i])) {
+                throw new IllegalArgumentException("Map has no value for '" + names[i] + "'");
+            }
+            Object value = pathVariables.get(names[i]);
+            if (value != null) {
+                encode(value.toString(), PATH, uri);
+            }
+            uri.append(literals[i + 1]);
+        }
+        if (uri.length() > pathStart && uri.charAt(pathStart) != '/') {
+            uri.insert(pathStart, '/');
+        }
+
+        if (!queryVariables.isEmpty()) {
+            uri.append('?');
+            int queryStart = uri.length();
+            for (Map.Entry<String, List<Object>> entry : queryVariables.entrySet()) {
+                String name = entry.getKey();
+                if (hasVariable(name)) {
+                    return build(pathVariables, queryVariables);
+                }
+
+                List<Object> values = entry.getValue();
+                if (values.isEmpty()) {
+                    if (uri.length() > queryStart) {
+                        uri.append('&');
+                    }
+                    encode(name, QUERY_PARAM, uri);
+                }
+                for (Object value : values) {
+                    if (uri.length() > queryStart) {
+                        uri.append('&');
+                    }
+                    encode(name, QUERY_PARAM, uri);
+                    if (value != null) {
+                        String string = value.toString();
+                        if (hasVariable(string)) {
+                            // UriComponents expands variables in query parameters too
+                            return build(pathVariables, queryVariables);
+                        }
+                        encode(string, QUERY_PARAM, uri.append('='));
+                    }
+                }
+            }
+        }
+
+        return URI.create(uri.toString());
+    }
+
+    /** The UriComponentsBuilder equivalent of expand(). */
+    URI build(Map<String, Object> pathVariables, Map<String, List<Object>> queryVariables) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(rootUrl).path(path);
+        for (Map.Entry<String, List<Object>> queryVariable : queryVariables.entrySet()) {
+            builder.queryParam(queryVariable.getKey(), queryVariable.getValue().toArray());
+        }
+        return builder.buildAndExpand(pathVariables).encode().toUri();
+    }
+
+    private static boolean hasVariable(String source) {
+        return source != null && source.indexOf('{') != -1;
+    }
+
+    /** Percent-encode UTF-8 bytes of characters not allowed as is into out. */
+    private static StringBuilder encode(String source, boolean[] allowed, StringBuilder out) {
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c < 128) {
+                if (allowed[c]) {
+                    out.append(c);
+                } else {
+                    appendEscaped(out, c);
+                }
+                i++;
+            } else {
+                int end = i + 1;
+                while (end < length && source.charAt(end) >= 128) {
+                    end++;
+                }
+                for (byte b : source.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscaped(out, b & 0xFF);
+                }
+                i = end;
+            }
+        }
+        return out;
+    }
+
+    private static void appendEscaped(StringBuilder out, int b) {
+        out.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+
+/**
+ * Compresses request bodies larger than the threshold and sets
+ * Content-Encoding. Requests that already have a Content-Encoding, for
+ * example "identity" to opt a request out, are sent as is.
+ *
+ * Decompressing responses is up to the request factory; Apache HttpClient
+ * advertises and decodes gzip and deflate by itself.
+ *
+ * @author Raul Acevedo
+ */
+public class CompressionRequestInterceptor implements ClientHttpRequestInterceptor {
+    private final ContentEncoding encoding;
+    private final int threshold;
+
+    public CompressionRequestInterceptor(ContentEncoding encoding, int threshold) {
+        this.encoding = encoding;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpHeaders headers = request.getHeaders();
+        if (body.length > threshold && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            byte[] encoded = encoding.encode(body);
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding.getName());
+            if (headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                headers.setContentLength(encoded.length);
+            }
+            return execution.execute(request, encoded);
+        }
+        return execution.execute(request, body);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers the body and sends it with OkHttp, either blocking or as an
+ * OkHttp asynchronous call; cancelling the returned future cancels the call.
+ *
+ * @author Raul Acevedo
+ */
+class OkHttpClientHttpRequest extends AbstractClientHttpRequest implements AsyncClientHttpRequest {
+    private final OkHttpClient client;
+    private final URI uri;
+    private final HttpMethod method;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    OkHttpClientHttpRequest(OkHttpClient client, URI uri, HttpMethod method) {
+        this.client = client;
+        this.uri = uri;
+        this.method = method;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    @Override
+    protected OutputStream getBodyInternal(HttpHeaders headers) {
+        return body;
+    }
+
+    @Override
+    protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+        return new OkHttpClientHttpResponse(client.newCall(createRequest(headers)).execute());
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> executeAsync() {
+        assertNotExecuted();
+        Call call = client.newCall(createRequest(getHeaders()));
+        SettableListenableFuture<ClientHttpResponse> future = new SettableListenableFuture<ClientHttpResponse>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                call.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!future.set(new OkHttpClientHttpResponse(response))) {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.setException(e);
+            }
+        });
+        return future;
+    }
+
+    private Request createRequest(HttpHeaders headers) {
+        Request.Builder builder = new Request.Builder().url(uri.toString());
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            // OkHttp sets the framing headers from the body, and HTTP/2 doesn't allow Transfer-Encoding at all
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())
+                    || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.addHeader(header.getKey(), value);
+            }
+        }
+
+        byte[] bytes = body.toByteArray();
+        RequestBody requestBody = null;
+        if (bytes.length > 0 || method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+            String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+            requestBody = RequestBody.create(contentType == null ? null : MediaType.parse(contentType), bytes);
+        }
+        return builder.method(method.name(), requestBody).build();
+    }
+}
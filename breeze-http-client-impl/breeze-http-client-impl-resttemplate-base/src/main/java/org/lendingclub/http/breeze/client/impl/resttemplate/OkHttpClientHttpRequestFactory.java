@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+import java.net.URI;
+
+/**
+ * Request factory for RestTemplate and AsyncRestTemplate backed by an
+ * OkHttp 3 client, which Spring only supports from 4.3 on; see
+ * OkHttpTransport for creating one that speaks HTTP/2. Request bodies are
+ * buffered in memory, so this factory can't stream file uploads.
+ *
+ * @author Raul Acevedo
+ */
+public class OkHttpClientHttpRequestFactory
+        implements ClientHttpRequestFactory, AsyncClientHttpRequestFactory, DisposableBean {
+    private final OkHttpClient client;
+
+    public OkHttpClientHttpRequestFactory(OkHttpClient client) {
+        this.client = client;
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new OkHttpClientHttpRequest(client, uri, httpMethod);
+    }
+
+    @Override
+    public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) {
+        return new OkHttpClientHttpRequest(client, uri, httpMethod);
+    }
+
+    @Override
+    public void destroy() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+}
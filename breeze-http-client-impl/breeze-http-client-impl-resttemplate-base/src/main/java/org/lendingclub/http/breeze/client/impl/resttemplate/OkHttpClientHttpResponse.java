@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import okhttp3.Headers;
+import okhttp3.Response;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.AbstractClientHttpResponse;
+
+import java.io.InputStream;
+
+/**
+ * Spring view of an OkHttp response; closing it releases the stream, and
+ * with HTTP/1.1 the connection, back to OkHttp.
+ *
+ * @author Raul Acevedo
+ */
+class OkHttpClientHttpResponse extends AbstractClientHttpResponse {
+    private final Response response;
+    private HttpHeaders headers;
+
+    OkHttpClientHttpResponse(Response response) {
+        this.response = response;
+    }
+
+    @Override
+    public int getRawStatusCode() {
+        return response.code();
+    }
+
+    @Override
+    public String getStatusText() {
+        return response.message();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        if (headers == null) {
+            Headers responseHeaders = response.headers();
+            HttpHeaders httpHeaders = new HttpHeaders();
+            for (int i = 0; i < responseHeaders.size(); i++) {
+                httpHeaders.add(responseHeaders.name(i), responseHeaders.value(i));
+            }
+            headers = httpHeaders;
+        }
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+        return response.body().byteStream();
+    }
+
+    @Override
+    public void close() {
+        response.close();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Client behavior that doesn't need a server.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpRestTemplateClientTest {
+    /** Nothing listens on port 1, so connections are refused right away. */
+    private static final String UNREACHABLE_URL = "http://localhost:1";
+
+    @Test
+    public void asyncErrorWithoutErrorHandler() {
+        BreezeHttpClient client = new BreezeHttpRestTemplateClient(
+                new RestTemplate(),
+                new AsyncRestTemplate(),
+                null,
+                null,
+                emptyList(),
+                LoggerFactory.getLogger(BreezeHttpRestTemplateClientTest.class)
+        );
+
+        CompletableFuture<String> future = client.request(UNREACHABLE_URL).getAsync(String.class);
+        try {
+            future.join();
+            fail("request to " + UNREACHABLE_URL + " succeeded");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof BreezeHttpException);
+        }
+    }
+}
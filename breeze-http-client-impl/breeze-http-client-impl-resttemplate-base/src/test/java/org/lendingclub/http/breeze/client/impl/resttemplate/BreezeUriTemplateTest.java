@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Compiled templates must build exactly the URIs UriComponentsBuilder does.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeUriTemplateTest {
+    private static final String MAGIC = "[!@ +?&]/%20\u00e9\u4e2d\ud83d\ude00={x";
+
+    @Test
+    public void sameAsUriComponentsBuilder() {
+        List<String> rootUrls = asList(
+                "http://localhost:8888/test",
+                "http://localhost:8888/test/",
+                "https://user:pw@example.com",
+                "http://example.com/a%20b/[c]",
+                "http://example.com/api?key=value",
+                "http://{host}/api"
+        );
+        List<String> paths = asList(
+                "",
+                "/get/{pathVariable}",
+                "get/{pathVariable}",
+                "//double//slash/",
+                "/{a}/{b}/literal {c}",
+                "/{id:\\d+}",
+                "/\u00e9t\u00e9/{a}"
+        );
+
+        Map<String, Object> pathVariables = new HashMap<>();
+        pathVariables.put("pathVariable", "path" + MAGIC);
+        pathVariables.put("a", 42);
+        pathVariables.put("b", null);
+        pathVariables.put("c", "");
+        pathVariables.put("id", "7");
+        pathVariables.put("host", "example.com");
+
+        List<Map<String, List<Object>>> queries = new ArrayList<>();
+        queries.add(emptyMap());
+        Map<String, List<Object>> query = new LinkedHashMap<>();
+        query.put("queryVariable", singletonList("query" + MAGIC.replace("{", "")));
+        query.put("query multiple", asList("one", 2, "three & four"));
+        query.put("empty", emptyList());
+        queries.add(query);
+        Map<String, List<Object>> braces = new HashMap<>();
+        braces.put("braces", singletonList("{a}"));
+        queries.add(braces);
+
+        for (String rootUrl : rootUrls) {
+            for (String path : paths) {
+                for (Map<String, List<Object>> queryVariables : queries) {
+                    BreezeUriTemplate template = BreezeUriTemplate.compile(rootUrl, path);
+                    assertEquals(
+                            rootUrl + " " + path + " " + queryVariables,
+                            template.build(pathVariables, queryVariables),
+                            template.expand(pathVariables, queryVariables)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void missingPathVariable() {
+        try {
+            BreezeUriTemplate.get("http://localhost", "/{missing}").expand(emptyMap(), emptyMap());
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Map has no value for 'missing'", e.getMessage());
+        }
+    }
+
+    @Test
+    public void cached() {
+        assertSame(BreezeUriTemplate.get("http://localhost", "/{a}"), BreezeUriTemplate.get("http://localhost", "/{a}"));
+    }
+}
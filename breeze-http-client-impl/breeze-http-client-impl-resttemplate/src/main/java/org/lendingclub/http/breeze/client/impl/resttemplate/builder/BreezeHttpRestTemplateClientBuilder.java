@@ -16,34 +16,59 @@
 
 package org.lendingclub.http.breeze.client.impl.resttemplate.builder;
 
+import okhttp3.OkHttpClient;
 import org.apache.http.HttpHost;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509TrustManager;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
 import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
 import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+import org.lendingclub.http.breeze.client.impl.HttpProtocol;
+import org.lendingclub.http.breeze.client.impl.OkHttpTransport;
 import org.lendingclub.http.breeze.client.impl.jackson.BreezeObjectMapper;
+import org.lendingclub.http.breeze.client.impl.resttemplate.BreezeCodecHttpMessageConverter;
 import org.lendingclub.http.breeze.client.impl.resttemplate.BreezeHttpRestTemplateClient;
+import org.lendingclub.http.breeze.client.impl.resttemplate.CompressionRequestInterceptor;
+import org.lendingclub.http.breeze.client.impl.resttemplate.OkHttpClientHttpRequestFactory;
 import org.lendingclub.http.breeze.client.impl.resttemplate.error.BreeezeHttpRestTemplateErrorHandler;
 import org.lendingclub.http.breeze.client.impl.resttemplate.error.ClientErrorHandler;
 
 import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Builder for the RestTemplate client.
@@ -51,18 +76,29 @@ import static java.util.Arrays.asList;
  * @author Raul Acevedo
  */
 public class BreezeHttpRestTemplateClientBuilder {
+    private static final int SELECT_INTERVAL = 100;
+
     private final List<BreezeHttpRequestFilter> filters = new ArrayList<>();
     private final List<BreezeHttpClientDecorator> decorators = new ArrayList<>();
+    private final List<BreezeHttpCodec> codecs = new ArrayList<>();
     private RestTemplate restTemplate = new RestTemplate();
     private Logger logger = LoggerFactory.getLogger(BreezeHttpRestTemplateClient.class);
     private ClientErrorHandler errorHandler = null;
     private boolean useBreezeObjectMapperSettings = true;
     private ClientHttpRequestFactory requestFactory = null;
+    private AsyncClientHttpRequestFactory asyncRequestFactory = null;
+    private CloseableHttpAsyncClient asyncHttpClient = null;
+    private ClientHttpRequestFactory fileRequestFactory = null;
+    private ContentEncoding compression = null;
+    private int compressionThreshold = 0;
+    private HttpProtocol protocol = null;
+    private int maxConcurrentStreams = OkHttpTransport.DEFAULT_MAX_CONCURRENT_STREAMS;
     private Integer connectTimeout = null;
     private Integer readTimeout = null;
     private String proxyHost = null;
     private String proxyPort = null;
     private SSLContext sslContext = null;
+    private X509TrustManager trustManager = null;
     private Integer maxConnections = null;
     private Integer maxConnectionsPerRoute = null;
     private Boolean httpsAllowAllHosts = null;
@@ -83,6 +119,26 @@ public class BreezeHttpRestTemplateClientBuilder {
         return this;
     }
 
+    /**
+     * Read and write the codec's media type, for requests that ask for it by
+     * Content-Type and Accept; JSON stays the default.
+     */
+    public BreezeHttpRestTemplateClientBuilder withCodec(BreezeHttpCodec codec) {
+        this.codecs.add(codec);
+        return this;
+    }
+
+    public BreezeHttpRestTemplateClientBuilder withCodecs(List<BreezeHttpCodec> codecs) {
+        this.codecs.addAll(codecs);
+        return this;
+    }
+
+    /**
+     * Spring 4.1's AsyncRestTemplate doesn't support interceptors, so with
+     * interceptors asynchronous requests go through the RestTemplate as well,
+     * executing synchronously; combining them with an asyncRequestFactory is
+     * an error.
+     */
     public BreezeHttpRestTemplateClientBuilder withInterceptors(List<ClientHttpRequestInterceptor> interceptors) {
         this.restTemplate.setInterceptors(interceptors);
         return this;
@@ -117,6 +173,69 @@ public class BreezeHttpRestTemplateClientBuilder {
         return this;
     }
 
+    /**
+     * Use the given request factory for asynchronous requests. Without one,
+     * or an HttpAsyncClient from withAsyncHttpClient(), asynchronous
+     * requests are executed synchronously and build() logs a warning; with
+     * a protocol, OkHttp serves both.
+     */
+    public BreezeHttpRestTemplateClientBuilder withAsyncRequestFactory(AsyncClientHttpRequestFactory asyncRequestFactory) {
+        this.asyncRequestFactory = asyncRequestFactory;
+        return this;
+    }
+
+    /**
+     * Send asynchronous requests with the given HttpAsyncClient, with the
+     * same timeouts as synchronous ones; buildAsyncHttpClient() creates one
+     * with this builder's proxy, ssl and pooling settings. Its I/O reactor
+     * threads keep the JVM running until it is closed, so the caller owns
+     * it; BreezeHttpRestTemplateClientConfig closes it with the application
+     * context. Ignored with a custom requestFactory, interceptors or a
+     * protocol.
+     */
+    public BreezeHttpRestTemplateClientBuilder withAsyncHttpClient(CloseableHttpAsyncClient asyncHttpClient) {
+        this.asyncHttpClient = asyncHttpClient;
+        return this;
+    }
+
+    /**
+     * Compress request bodies larger than threshold bytes with the given
+     * encoding; null turns compression off. File uploads, which stream from
+     * disk with their own request factory, are never compressed.
+     *
+     * Only GZIP is supported: Apache HttpClient asks for and decodes gzip
+     * responses, but nothing here could decode zstd ones.
+     */
+    public BreezeHttpRestTemplateClientBuilder withCompression(ContentEncoding compression, int threshold) {
+        if (compression == ContentEncoding.ZSTD) {
+            throw new IllegalArgumentException("the RestTemplate client cannot decode zstd responses, use gzip");
+        }
+        this.compression = compression;
+        this.compressionThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Send requests with OkHttp over the given protocol instead of Apache
+     * HttpClient; null keeps HttpClient. HTTP/2 multiplexes up to
+     * maxConcurrentStreams asynchronous requests per host over a single
+     * connection, see OkHttpTransport. Needs the optional
+     * com.squareup.okhttp3:okhttp dependency.
+     *
+     * With OkHttp, file uploads are buffered in memory, maxConnections is
+     * the number of idle connections kept alive, and maxConnectionsPerRoute
+     * and poolStatefulSslConnections don't apply. OkHttp needs the trust
+     * manager an SSLContext was initialized with, so an SSLContext has to be
+     * given with withSSLContext(SSLContext, X509TrustManager). HTTP_2 over
+     * TLS relies on ALPN support in the JVM, and is not covered by the tests;
+     * only H2C is.
+     */
+    public BreezeHttpRestTemplateClientBuilder withProtocol(HttpProtocol protocol, int maxConcurrentStreams) {
+        this.protocol = protocol;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
     public BreezeHttpRestTemplateClientBuilder withTimeout(int connectTimeout, int readTimeout) {
         this.connectTimeout = connectTimeout;
         this.readTimeout = readTimeout;
@@ -135,6 +254,13 @@ public class BreezeHttpRestTemplateClientBuilder {
         return this;
     }
 
+    /** SSLContext together with the trust manager it was initialized with, which OkHttp needs as well. */
+    public BreezeHttpRestTemplateClientBuilder withSSLContext(SSLContext sslContext, X509TrustManager trustManager) {
+        this.sslContext = sslContext;
+        this.trustManager = trustManager;
+        return this;
+    }
+
     public BreezeHttpRestTemplateClientBuilder withHttpsAllowAllHosts(boolean httpsAllowAllHosts) {
         this.httpsAllowAllHosts = httpsAllowAllHosts;
         return this;
@@ -191,12 +317,24 @@ public class BreezeHttpRestTemplateClientBuilder {
     }
 
     public BreezeHttpClient build() {
+        if (asyncRequestFactory != null && !restTemplate.getInterceptors().isEmpty()) {
+            throw new IllegalStateException("cannot use asyncRequestFactory with interceptors, which it ignores");
+        }
+        if (compression != null) {
+            compression.checkAvailable();
+        }
+
         // Setup the RestTemplate request factory: timeouts, proxy and connection pooling
         setupRequestFactory();
 
         // Fix ObjectCrapper so it's not retarded
         setBreezeObjectMapperSettings();
 
+        // Codecs go last, after the JSON converter, so JSON is still used for requests without a Content-Type
+        for (BreezeHttpCodec codec : codecs) {
+            restTemplate.getMessageConverters().add(new BreezeCodecHttpMessageConverter(codec));
+        }
+
         // Create the client with its decorators, filters, and other bells and whistles
         return createClient();
     }
@@ -208,21 +346,21 @@ public class BreezeHttpRestTemplateClientBuilder {
                     || proxyHost != null
                     || proxyPort != null
                     || sslContext != null
-                    || httpsAllowAllHosts != null) {
-                throw new IllegalStateException("cannot use requestFactory with timeouts, proxy, or ssl config");
+                    || httpsAllowAllHosts != null
+                    || protocol != null) {
+                throw new IllegalStateException("cannot use requestFactory with timeouts, proxy, ssl or protocol config");
             }
-            restTemplate.setRequestFactory(requestFactory);
+            restTemplate.setRequestFactory(compress(requestFactory));
+        } else if (protocol != null) {
+            setupOkHttpRequestFactory();
         } else {
             HttpClientBuilder builder = HttpClientBuilder.create();
 
             builder.setMaxConnTotal(maxConnections == null ? 40 : maxConnections);
             builder.setMaxConnPerRoute(maxConnectionsPerRoute == null ? 40 : maxConnectionsPerRoute);
 
-            if (connectTimeout != null) {
-                RequestConfig requestConfig = RequestConfig.custom()
-                        .setConnectTimeout(connectTimeout)
-                        .setSocketTimeout(readTimeout)
-                        .build();
+            RequestConfig requestConfig = createRequestConfig();
+            if (requestConfig != null) {
                 builder.setDefaultRequestConfig(requestConfig);
             }
 
@@ -248,10 +386,116 @@ public class BreezeHttpRestTemplateClientBuilder {
                 builder.setUserTokenHandler(context -> null);
             }
 
-            restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(builder.build()));
+            CloseableHttpClient httpClient = builder.build();
+            restTemplate.setRequestFactory(compress(new HttpComponentsClientHttpRequestFactory(httpClient)));
+
+            // Stream file payloads straight from disk; the default factory copies every body into memory first
+            HttpComponentsClientHttpRequestFactory streamingFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+            streamingFactory.setBufferRequestBody(false);
+            fileRequestFactory = streamingFactory;
+
+            if (asyncRequestFactory == null && asyncHttpClient != null && restTemplate.getInterceptors().isEmpty()) {
+                asyncRequestFactory = new AsyncRequestFactory(httpClient, asyncHttpClient, requestConfig);
+            }
         }
     }
 
+    private void setupOkHttpRequestFactory() {
+        OkHttpClient.Builder builder = OkHttpTransport.builder(
+                protocol,
+                maxConcurrentStreams,
+                maxConnections == null ? OkHttpTransport.DEFAULT_MAX_IDLE_CONNECTIONS : maxConnections
+        );
+
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout, MILLISECONDS).readTimeout(readTimeout, MILLISECONDS);
+        }
+
+        if (sslContext != null) {
+            // OkHttp checks certificates itself, so pairing the context with any other trust manager would be wrong
+            if (trustManager == null) {
+                throw new IllegalStateException("OkHttp needs the SSLContext's trust manager, "
+                        + "use withSSLContext(SSLContext, X509TrustManager)");
+            }
+            builder.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+        }
+
+        if (httpsAllowAllHosts == TRUE) {
+            builder.hostnameVerifier(NoopHostnameVerifier.INSTANCE);
+        }
+
+        if (proxyHost != null && proxyHost.length() > 0 && proxyPort != null && proxyPort.length() > 0) {
+            builder.proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, Integer.parseInt(proxyPort))));
+        }
+
+        // One factory serves both; it buffers bodies, so there is no separate one for file uploads
+        OkHttpClientHttpRequestFactory okHttpRequestFactory = new OkHttpClientHttpRequestFactory(builder.build());
+        restTemplate.setRequestFactory(compress(okHttpRequestFactory));
+        if (asyncRequestFactory == null && restTemplate.getInterceptors().isEmpty()) {
+            asyncRequestFactory = okHttpRequestFactory;
+        }
+    }
+
+    /**
+     * Compression is part of the request factory rather than the
+     * RestTemplate's interceptors, which the file upload RestTemplate shares.
+     */
+    private ClientHttpRequestFactory compress(ClientHttpRequestFactory requestFactory) {
+        if (compression == null) {
+            return requestFactory;
+        }
+        return new InterceptingClientHttpRequestFactory(
+                requestFactory,
+                singletonList(new CompressionRequestInterceptor(compression, compressionThreshold))
+        );
+    }
+
+    private RequestConfig createRequestConfig() {
+        if (connectTimeout == null) {
+            return null;
+        }
+        return RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+    }
+
+    /**
+     * Create an HttpAsyncClient with the proxy, ssl and pooling settings, for
+     * withAsyncHttpClient(); it starts with the first asynchronous request,
+     * and the caller closes it.
+     */
+    public CloseableHttpAsyncClient buildAsyncHttpClient() {
+        HttpAsyncClientBuilder builder = HttpAsyncClientBuilder.create();
+
+        // Timeouts are only checked once per select interval, which defaults to a second
+        builder.setDefaultIOReactorConfig(IOReactorConfig.custom().setSelectInterval(SELECT_INTERVAL).build());
+
+        builder.setMaxConnTotal(maxConnections == null ? 40 : maxConnections);
+        builder.setMaxConnPerRoute(maxConnectionsPerRoute == null ? 40 : maxConnectionsPerRoute);
+
+        if (sslContext != null) {
+            builder.setSSLContext(sslContext);
+        }
+
+        if (httpsAllowAllHosts != null) {
+            builder.setSSLHostnameVerifier(
+                    httpsAllowAllHosts ? NoopHostnameVerifier.INSTANCE : new DefaultHostnameVerifier()
+            );
+        }
+
+        if (proxyHost != null && proxyHost.length() > 0 && proxyPort != null && proxyPort.length() > 0) {
+            builder.setProxy(new HttpHost(proxyHost, Integer.parseInt(proxyPort), "http"));
+        }
+
+        if (poolStatefulSslConnections != FALSE) {
+            // Same as the synchronous client, see setupRequestFactory()
+            builder.setUserTokenHandler(context -> null);
+        }
+
+        return builder.build();
+    }
+
     private void setBreezeObjectMapperSettings() {
         if (useBreezeObjectMapperSettings) {
             restTemplate.getMessageConverters().stream()
@@ -264,7 +508,29 @@ public class BreezeHttpRestTemplateClientBuilder {
     }
 
     private BreezeHttpClient createClient() {
-        BreezeHttpClient client = new BreezeHttpRestTemplateClient(restTemplate, errorHandler, filters, logger);
+        AsyncRestTemplate asyncRestTemplate = null;
+        if (asyncRequestFactory != null) {
+            // AsyncRestTemplate keeps its error handler in the RestTemplate it wraps, so it must not
+            // share ours; the client reads and writes bodies with restTemplate's converters anyway.
+            asyncRestTemplate = new AsyncRestTemplate(asyncRequestFactory, new RestTemplate());
+        } else if (requestFactory != null || !restTemplate.getInterceptors().isEmpty()) {
+            logger.warn("no asynchronous request factory with a custom requestFactory or interceptors, "
+                    + "asynchronous requests will execute synchronously on the calling thread");
+        } else {
+            logger.info("no asynchronous request factory or HttpAsyncClient, "
+                    + "asynchronous requests will execute synchronously on the calling thread");
+        }
+
+        BreezeHttpClient client = new BreezeHttpRestTemplateClient(
+                restTemplate,
+                asyncRestTemplate,
+                fileRequestFactory,
+                errorHandler,
+                filters,
+                logger,
+                compression,
+                compressionThreshold
+        );
 
         // Add decorators
         for (BreezeHttpClientDecorator decorator : decorators) {
@@ -275,4 +541,31 @@ public class BreezeHttpRestTemplateClientBuilder {
 
         return client;
     }
+
+    /**
+     * Spring's async request factory ignores the HttpAsyncClient's default
+     * RequestConfig and uses RequestConfig.DEFAULT (no timeouts) instead,
+     * unless the request itself carries a config; so we set it on every
+     * request.
+     */
+    private static class AsyncRequestFactory extends HttpComponentsAsyncClientHttpRequestFactory {
+        private final RequestConfig requestConfig;
+
+        AsyncRequestFactory(
+                CloseableHttpClient httpClient,
+                CloseableHttpAsyncClient httpAsyncClient,
+                RequestConfig requestConfig
+        ) {
+            super(httpClient, httpAsyncClient);
+            this.requestConfig = requestConfig;
+        }
+
+        @Override
+        protected void postProcessHttpRequest(HttpUriRequest request) {
+            if (requestConfig != null && request instanceof HttpRequestBase
+                    && ((Configurable) request).getConfig() == null) {
+                ((HttpRequestBase) request).setConfig(requestConfig);
+            }
+        }
+    }
 }
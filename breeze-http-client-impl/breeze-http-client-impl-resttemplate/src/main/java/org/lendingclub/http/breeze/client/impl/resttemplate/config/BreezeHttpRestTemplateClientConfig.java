@@ -16,6 +16,7 @@
 
 package org.lendingclub.http.breeze.client.impl.resttemplate.config;
 
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,12 +24,19 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509TrustManager;
+import java.util.List;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
 import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
 import org.lendingclub.http.breeze.client.filter.UserAgentRequestFilter;
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+import org.lendingclub.http.breeze.client.impl.HttpProtocol;
 import org.lendingclub.http.breeze.client.impl.resttemplate.builder.BreezeHttpRestTemplateClientBuilder;
 
+import static java.util.Collections.emptyList;
+
 /**
  * Configuration class to easily construct client instances.
  *
@@ -40,12 +48,80 @@ public class BreezeHttpRestTemplateClientConfig {
     @Qualifier(value = "breezeHttpClientRetryDecorator")
     private BreezeHttpClientDecorator breezeHttpClientRetryDecorator;
 
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientCircuitBreakerDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientCircuitBreakerDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientBulkheadDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientBulkheadDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientLimiterDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientLimiterDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientHedgingDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientHedgingDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientCoalescingDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientCoalescingDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientCachingDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientCachingDecorator;
+
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientMetricsDecorator")
+    private BreezeHttpClientDecorator breezeHttpClientMetricsDecorator;
+
     @Autowired(required = false)
     @Qualifier(value = "breezeHttpClientSSLContext")
     private SSLContext sslContext;
 
+    /** The trust manager breezeHttpClientSSLContext was initialized with; needed with a protocol set. */
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientTrustManager")
+    private X509TrustManager trustManager;
+
+    @Autowired(required = false)
+    private List<BreezeHttpCodec> breezeHttpCodecs = emptyList();
+
+    @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_COMPRESSION:}")
+    private String compression;
+
+    @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_COMPRESSION_THRESHOLD:1024}")
+    private int compressionThreshold;
+
+    @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_PROTOCOL:}")
+    private String protocol;
+
+    @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_MAX_CONCURRENT_STREAMS:100}")
+    private int maxConcurrentStreams;
+
+    /** HttpAsyncClient for asynchronous requests, closed with the application context so its reactor threads stop. */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient breezeHttpRestTemplateAsyncHttpClient(
+            @Value(value = "${BREEZE_HTTP_PROXY_HOST:}") String proxyHost,
+            @Value(value = "${BREEZE_HTTP_PROXY_PORT:}") String proxyPort,
+            @Value(value = "${BREEZE_HTTP_ENABLE_CLIENT_AUTH:true}") boolean enableClientAuth,
+            @Value(value = "${BREEZE_HTTP_HTTPS_ALLOW_ALL_HOSTS:false}") boolean httpsAllowAllHosts,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_MAX_CONNECTIONS:40}") int maxConnections,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_MAX_CONNECTIONS_PER_ROUTE:40}") int maxConnectionsPerRoute
+    ) {
+        return new BreezeHttpRestTemplateClientBuilder()
+                .withProxy(proxyHost, proxyPort)
+                .withSSLContext(enableClientAuth ? sslContext : null)
+                .withHttpsAllowAllHosts(httpsAllowAllHosts)
+                .withMaxConnections(maxConnections)
+                .withMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                .buildAsyncHttpClient();
+    }
+
     @Bean
     public BreezeHttpClient breezeHttpRestTemplateClient(
+            @Qualifier(value = "breezeHttpRestTemplateAsyncHttpClient") CloseableHttpAsyncClient asyncHttpClient,
             @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_CONNECT_TIMEOUT:10000}") int connectTimeout,
             @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_READ_TIMEOUT:10000}") int readTimeout,
             @Value(value = "${BREEZE_HTTP_PROXY_HOST:}") String proxyHost,
@@ -59,14 +135,29 @@ public class BreezeHttpRestTemplateClientConfig {
     ) throws ClassNotFoundException {
         return new BreezeHttpRestTemplateClientBuilder()
                 .withFilter(new UserAgentRequestFilter())
+                // Decorators wrap in order: the limiter is innermost so it times only the remote call,
+                // and each hedge or retry goes back through the bulkhead, circuit breaker and limiter;
+                // cache misses for the same resource are coalesced, and the cache skips all of them on a hit;
+                // metrics are outermost so they measure what callers see
+                .withDecorator(breezeHttpClientLimiterDecorator)
+                .withDecorator(breezeHttpClientCircuitBreakerDecorator)
+                .withDecorator(breezeHttpClientBulkheadDecorator)
+                .withDecorator(breezeHttpClientHedgingDecorator)
                 .withDecorator(breezeHttpClientRetryDecorator)
+                .withDecorator(breezeHttpClientCoalescingDecorator)
+                .withDecorator(breezeHttpClientCachingDecorator)
+                .withDecorator(breezeHttpClientMetricsDecorator)
                 .withErrorResponseClass(Class.forName(errorResponseClass))
                 .withTimeout(connectTimeout, readTimeout)
                 .withProxy(proxyHost, proxyPort)
-                .withSSLContext(enableClientAuth ? sslContext : null)
+                .withSSLContext(enableClientAuth ? sslContext : null, trustManager)
                 .withHttpsAllowAllHosts(httpsAllowAllHosts)
                 .withMaxConnections(maxConnections)
                 .withMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                .withCompression(ContentEncoding.forName(compression), compressionThreshold)
+                .withProtocol(HttpProtocol.forName(protocol), maxConcurrentStreams)
+                .withAsyncHttpClient(asyncHttpClient)
+                .withCodecs(breezeHttpCodecs)
                 .build();
     }
 }
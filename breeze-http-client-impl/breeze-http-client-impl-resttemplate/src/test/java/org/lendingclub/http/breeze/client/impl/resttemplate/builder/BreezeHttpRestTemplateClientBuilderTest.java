@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.impl.resttemplate.builder;
+
+import org.junit.Test;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+import org.lendingclub.http.breeze.client.impl.HttpProtocol;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Builder checks that don't need a server.
+ *
+ * @author Raul Acevedo
+ */
+public class BreezeHttpRestTemplateClientBuilderTest {
+    @Test
+    public void asyncRequestsGoThroughInterceptors() {
+        AtomicInteger intercepted = new AtomicInteger();
+        ClientHttpRequestInterceptor interceptor = (request, body, execution) -> {
+            intercepted.incrementAndGet();
+            throw new IOException("intercepted");
+        };
+        BreezeHttpClient client = new BreezeHttpRestTemplateClientBuilder()
+                .withInterceptors(singletonList(interceptor))
+                .withErrorResponseClass(String.class)
+                .build();
+
+        CompletableFuture<String> future = client.request("http://localhost:1").getAsync(String.class);
+        try {
+            future.join();
+            fail("interceptor did not fail the request");
+        } catch (CompletionException e) {
+            assertEquals(1, intercepted.get());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void interceptorsWithAsyncRequestFactory() {
+        new BreezeHttpRestTemplateClientBuilder()
+                .withInterceptors(singletonList((request, body, execution) -> execution.execute(request, body)))
+                .withAsyncRequestFactory(new SimpleClientHttpRequestFactory())
+                .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void okHttpNeedsTrustManager() throws NoSuchAlgorithmException {
+        new BreezeHttpRestTemplateClientBuilder()
+                .withProtocol(HttpProtocol.HTTP_2, 100)
+                .withSSLContext(SSLContext.getDefault())
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zstdIsRejected() {
+        new BreezeHttpRestTemplateClientBuilder().withCompression(ContentEncoding.ZSTD, 1024);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one remote service that adjusts itself with a
+ * LimitAlgorithm. Acquiring is a single compareAndSet, so requests over the
+ * limit are rejected immediately.
+ *
+ * @author Raul Acevedo
+ */
+public class AdaptiveLimiter {
+    private final String name;
+    private final LimitAlgorithm algorithm;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public AdaptiveLimiter(String name, LimitAlgorithm algorithm) {
+        this.name = name;
+        this.algorithm = algorithm;
+        this.limit = new AtomicInteger(algorithm.getInitialLimit());
+    }
+
+    /**
+     * Take a slot.
+     *
+     * @return requests in flight including this one, to be passed to release; or -1 if over the limit
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Give back the slot and feed the sample to the algorithm.
+     *
+     * @param acquiredInFlight value returned by tryAcquire
+     * @param rttNanos how long the request took
+     * @param dropped whether the request failed with an overload signal
+     */
+    public void release(int acquiredInFlight, long rttNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        algorithm.sample(rttNanos, acquiredInFlight, dropped);
+
+        int current;
+        int next;
+        do {
+            current = limit.get();
+            next = algorithm.update(current, rttNanos, acquiredInFlight, dropped);
+        } while (next != current && !limit.compareAndSet(current, next));
+    }
+
+    /**
+     * Give back the slot without a sample, for requests whose outcome says
+     * nothing about the service, like cancelled ones.
+     */
+    public void abandon() {
+        inFlight.decrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveLimiter{name=" + name + ", limit=" + getLimit() + ", inFlight=" + getInFlight() + "}";
+    }
+}
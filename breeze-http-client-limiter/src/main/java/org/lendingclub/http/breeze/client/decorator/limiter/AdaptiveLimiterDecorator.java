@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.limiter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.AsyncDecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpRejectedException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+
+/**
+ * Self-tuning concurrency limit per remote service: measures the round trip
+ * time of every request and lets a LimitAlgorithm raise or lower the number
+ * of requests allowed in flight. Requests over the limit fail immediately
+ * with LimitExceededException.
+ *
+ * This should be the innermost decorator so the measured time is the time
+ * spent talking to the remote service, not sleeping in retries.
+ *
+ * @author Raul Acevedo
+ */
+public class AdaptiveLimiterDecorator implements BreezeHttpClientDecorator {
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final Supplier<LimitAlgorithm> algorithmFactory;
+    private final ConcurrentMap<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    /** Use GradientLimit defaults for all requests. */
+    public AdaptiveLimiterDecorator() {
+        this(Collections.singletonList(new AllRequestMatcher()), GradientLimit::new);
+    }
+
+    /**
+     * @param matchers requests to limit
+     * @param algorithmFactory creates the algorithm for each remote service's limiter
+     */
+    public AdaptiveLimiterDecorator(
+            List<BreezeHttpClientRequestMatcher> matchers,
+            Supplier<LimitAlgorithm> algorithmFactory
+    ) {
+        this.matchers.addAll(matchers);
+        this.algorithmFactory = algorithmFactory;
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new AdaptiveLimiterDecoratedClient(client, matchers);
+    }
+
+    /** Return the limiter for the request's remote service. */
+    public AdaptiveLimiter getLimiter(BreezeHttpRequest request) {
+        String name = request.getDefaultedRemoteService();
+        AdaptiveLimiter limiter = limiters.get(name);
+        return limiter != null
+                ? limiter
+                : limiters.computeIfAbsent(name, (key) -> new AdaptiveLimiter(key, algorithmFactory.get()));
+    }
+
+    /**
+     * Whether the error means the remote service is overloaded: network
+     * errors (including timeouts), 429 and 503. Other errors are answers from
+     * a service that kept up, so they count as normal samples. Cancelled
+     * requests aren't samples at all.
+     */
+    protected boolean isDropped(Throwable t) {
+        if (t instanceof BreezeHttpResponseException) {
+            int status = ((BreezeHttpResponseException) t).getHttpStatusCode();
+            return status == 429 || status == 503;
+        }
+        return !(t instanceof BreezeHttpRejectedException);
+    }
+
+    public class AdaptiveLimiterDecoratedClient extends AbstractDecoratedClient {
+        AdaptiveLimiterDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(AdaptiveLimiterDecorator.this, client, matchers);
+        }
+
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            AdaptiveLimiter limiter = getLimiter(request);
+            int inFlight = acquire(limiter, request);
+            long start = System.nanoTime();
+
+            RuntimeException failure = null;
+            try {
+                return command.execute(request);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            } finally {
+                release(limiter, inFlight, start, failure);
+            }
+        }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            AdaptiveLimiter limiter = getLimiter(request);
+            CompletableFuture<BreezeHttpResponse<T>> future;
+
+            try {
+                int inFlight = acquire(limiter, request);
+                long start = System.nanoTime();
+                try {
+                    future = command.execute(request);
+                } catch (RuntimeException e) {
+                    release(limiter, inFlight, start, e);
+                    throw e;
+                }
+                future.whenComplete((response, throwable) -> release(
+                        limiter,
+                        inFlight,
+                        start,
+                        throwable != null ? unwrap(throwable) : null
+                ));
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            return future;
+        }
+
+        private void release(AdaptiveLimiter limiter, int inFlight, long start, Throwable t) {
+            if (t instanceof CancellationException) {
+                // Typically the losing attempt of a hedged request; its latency means nothing
+                limiter.abandon();
+            } else {
+                limiter.release(inFlight, System.nanoTime() - start, t != null && isDropped(t));
+            }
+        }
+
+        private int acquire(AdaptiveLimiter limiter, BreezeHttpRequest request) {
+            int inFlight = limiter.tryAcquire();
+            if (inFlight < 0) {
+                throw new LimitExceededException(limiter + " rejected " + request);
+            }
+            return inFlight;
+        }
+    }
+}
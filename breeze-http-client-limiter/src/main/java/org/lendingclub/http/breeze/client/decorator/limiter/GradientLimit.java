@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.limiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency gradient limit, in the spirit of TCP Vegas: compares each round
+ * trip time with the lowest recently seen. While latency stays near the
+ * minimum the limit grows by about sqrt(limit); once requests start queueing
+ * at the server, latency rises and the limit shrinks proportionally.
+ *
+ * The minimum RTT is forgotten every probeInterval samples so the limiter
+ * adapts when the service's baseline latency changes.
+ *
+ * @author Raul Acevedo
+ */
+public class GradientLimit implements LimitAlgorithm {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final long probeInterval;
+
+    private final AtomicLong minRttNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong samples = new AtomicLong();
+
+    /** Start at 20, between 1 and 200, tolerate twice the minimum RTT. */
+    public GradientLimit() {
+        this(20, 1, 200, 2.0, 0.2, 1000);
+    }
+
+    /**
+     * @param initialLimit starting limit
+     * @param minLimit lowest the limit can go
+     * @param maxLimit highest the limit can go
+     * @param rttTolerance how much slower than the minimum RTT is still considered healthy
+     * @param smoothing weight of each new estimate, between 0 and 1
+     * @param probeInterval number of samples after which the minimum RTT is reset
+     */
+    public GradientLimit(
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            double rttTolerance,
+            double smoothing,
+            long probeInterval
+    ) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.probeInterval = probeInterval;
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public void sample(long rttNanos, int inFlight, boolean dropped) {
+        if (samples.incrementAndGet() % probeInterval == 0) {
+            minRttNanos.set(rttNanos);
+        } else {
+            minRttNanos.accumulateAndGet(rttNanos, Math::min);
+        }
+    }
+
+    @Override
+    public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+        long minRtt = Math.min(minRttNanos.get(), rttNanos);
+
+        double newLimit;
+        if (dropped) {
+            newLimit = limit / 2.0;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * minRtt / Math.max(1, rttNanos)));
+            newLimit = limit * gradient + Math.sqrt(limit);
+            // Don't grow unless the limit was actually being used
+            if (newLimit > limit && inFlight * 2 < limit) {
+                newLimit = limit;
+            }
+            newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        }
+
+        // Round away from the current limit so small limits can still move
+        int rounded = (int) (newLimit > limit ? Math.ceil(newLimit) : Math.floor(newLimit));
+        return Math.max(minLimit, Math.min(maxLimit, rounded));
+    }
+
+    @Override
+    public String toString() {
+        return "GradientLimit{minLimit=" + minLimit + ", maxLimit=" + maxLimit + ", rttTolerance=" + rttTolerance + "}";
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.limiter;
+
+/**
+ * Algorithm that adjusts a concurrency limit based on each completed request.
+ * Instances may keep state, so each AdaptiveLimiter gets its own.
+ *
+ * @author Raul Acevedo
+ */
+public interface LimitAlgorithm {
+    int getInitialLimit();
+
+    /**
+     * Record a completed request; called exactly once per request, before
+     * update. Algorithms that learn from samples keep that state here.
+     *
+     * @param rttNanos round trip time of the completed request
+     * @param inFlight requests in flight when the request started, including itself
+     * @param dropped true if the request failed in a way that signals overload
+     */
+    default void sample(long rttNanos, int inFlight, boolean dropped) {
+    }
+
+    /**
+     * Compute the new limit after a request completed. May be called
+     * concurrently, and more than once for the same request since the caller
+     * retries if the limit changed in the meantime, so it must not change any
+     * state.
+     *
+     * @param limit current limit
+     * @param rttNanos round trip time of the completed request
+     * @param inFlight requests in flight when the request started, including itself
+     * @param dropped true if the request failed in a way that signals overload
+     * @return the new limit
+     */
+    int update(int limit, long rttNanos, int inFlight, boolean dropped);
+}
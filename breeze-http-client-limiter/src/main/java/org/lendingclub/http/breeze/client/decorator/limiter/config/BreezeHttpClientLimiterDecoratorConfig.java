@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.limiter.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Supplier;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.limiter.AdaptiveLimiterDecorator;
+import org.lendingclub.http.breeze.client.decorator.limiter.AimdLimit;
+import org.lendingclub.http.breeze.client.decorator.limiter.GradientLimit;
+import org.lendingclub.http.breeze.client.decorator.limiter.LimitAlgorithm;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Adaptive concurrency limit configuration; ALGORITHM is gradient or aimd.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientLimiterDecoratorConfig {
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientLimiterDecorator(
+            @Value(value = "${BREEZE_HTTP_LIMITER_ALGORITHM:gradient}") String algorithm,
+            @Value(value = "${BREEZE_HTTP_LIMITER_INITIAL_LIMIT:20}") int initialLimit,
+            @Value(value = "${BREEZE_HTTP_LIMITER_MIN_LIMIT:1}") int minLimit,
+            @Value(value = "${BREEZE_HTTP_LIMITER_MAX_LIMIT:200}") int maxLimit,
+            @Value(value = "${BREEZE_HTTP_LIMITER_AIMD_BACKOFF_RATIO:0.9}") double backoffRatio,
+            @Value(value = "${BREEZE_HTTP_LIMITER_AIMD_TIMEOUT:5000}") long timeoutMillis,
+            @Value(value = "${BREEZE_HTTP_LIMITER_GRADIENT_RTT_TOLERANCE:2.0}") double rttTolerance
+    ) {
+        Supplier<LimitAlgorithm> algorithmFactory;
+        if ("aimd".equalsIgnoreCase(algorithm)) {
+            algorithmFactory = () -> new AimdLimit(initialLimit, minLimit, maxLimit, backoffRatio, timeoutMillis);
+        } else if ("gradient".equalsIgnoreCase(algorithm)) {
+            algorithmFactory = () -> new GradientLimit(initialLimit, minLimit, maxLimit, rttTolerance, 0.2, 1000);
+        } else {
+            throw new IllegalArgumentException("unknown limiter algorithm " + algorithm + ", must be gradient or aimd");
+        }
+        return new AdaptiveLimiterDecorator(singletonList(new AllRequestMatcher()), algorithmFactory);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.limiter;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for AdaptiveLimiter and its algorithms.
+ *
+ * @author Raul Acevedo
+ */
+public class AdaptiveLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void rejectsOverLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", new AimdLimit(2, 1, 10, 0.5, 1000));
+
+        int first = limiter.tryAcquire();
+        int second = limiter.tryAcquire();
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(-1, limiter.tryAcquire());
+
+        // A drop halves the limit
+        limiter.release(second, FAST, true);
+        assertEquals(1, limiter.getLimit());
+        assertEquals(-1, limiter.tryAcquire());
+
+        // A success under load grows it again
+        limiter.release(first, FAST, false);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void abandonLeavesLimitAlone() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", new AimdLimit(2, 1, 10, 0.5, 1000));
+        limiter.tryAcquire();
+
+        limiter.abandon();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void gradientFollowsLatency() {
+        GradientLimit gradient = new GradientLimit(20, 1, 200, 2.0, 0.2, 1000);
+
+        int limit = 20;
+        for (int i = 0; i < 20; i++) {
+            gradient.sample(FAST, limit, false);
+            limit = gradient.update(limit, FAST, limit, false);
+        }
+        assertTrue("limit should grow while latency is flat: " + limit, limit > 20);
+
+        int grown = limit;
+        for (int i = 0; i < 20; i++) {
+            gradient.sample(SLOW, limit, false);
+            limit = gradient.update(limit, SLOW, limit, false);
+        }
+        assertTrue("limit should shrink as latency rises: " + limit, limit < grown);
+    }
+
+    @Test
+    public void samplesAreRecordedOnce() {
+        GradientLimit gradient = new GradientLimit(20, 1, 200, 2.0, 0.2, 2);
+        gradient.sample(FAST, 20, false);
+
+        // Computing the limit again, as a lost compareAndSet does, mustn't count as another sample
+        int limit = gradient.update(20, SLOW, 20, false);
+        assertEquals(limit, gradient.update(20, SLOW, 20, false));
+
+        // The second sample resets the minimum RTT to it
+        gradient.sample(SLOW, 20, false);
+        assertTrue(gradient.update(20, SLOW, 20, false) > limit);
+    }
+}
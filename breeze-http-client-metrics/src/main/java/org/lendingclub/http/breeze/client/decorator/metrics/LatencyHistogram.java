@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lendingclub.http.breeze.client.decorator.LogLinearHistogram;
+
+/**
+ * Lock-free latency histogram in the style of HdrHistogram: each power of
+ * two range of microseconds is split into 32 linear sub-buckets, so any
+ * recorded value is known to within about 3%, from 1 microsecond up to
+ * several hours, in a fixed array of counters.
+ *
+ * Recording is a couple of atomic increments. Snapshots can reset the
+ * counters to report per-interval percentiles; values recorded while a
+ * snapshot is taken land in either that interval or the next, never lost.
+ *
+ * @author Raul Acevedo
+ */
+public class LatencyHistogram {
+    private final LogLinearHistogram counts = new LogLinearHistogram(5, 33);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long latencyNanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        counts.record(micros);
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    /** Copy the current counts. */
+    public Snapshot snapshot() {
+        return snapshot(false);
+    }
+
+    /** Copy the current counts and start a new interval. */
+    public Snapshot snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    private Snapshot snapshot(boolean reset) {
+        long[] copy = new long[counts.size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = reset ? counts.getAndReset(i) : counts.getCount(i);
+        }
+        long total = reset ? totalMicros.sumThenReset() : totalMicros.sum();
+        long max = reset ? maxMicros.getAndSet(0) : maxMicros.get();
+        return new Snapshot(counts, copy, total, max);
+    }
+
+    /** Immutable copy of a histogram's counts. */
+    public static class Snapshot {
+        private final LogLinearHistogram buckets;
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(LogLinearHistogram buckets, long[] counts, long totalMicros, long maxMicros) {
+            long count = 0;
+            for (long bucketCount : counts) {
+                count += bucketCount;
+            }
+            this.buckets = buckets;
+            this.counts = counts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public double getMeanMicros() {
+            return count == 0 ? 0 : (double) totalMicros / count;
+        }
+
+        /**
+         * Estimate a percentile.
+         *
+         * @param percentile between 0 and 1, for example 0.99
+         * @return upper bound of the bucket holding the percentile, in microseconds; 0 if there are no samples
+         */
+        public long getPercentileMicros(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(count * percentile));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    // The maximum is exact, so don't report a higher bucket bound
+                    long bound = buckets.upperBound(i);
+                    return maxMicros > 0 ? Math.min(bound, maxMicros) : bound;
+                }
+            }
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{count=" + count
+                    + ", mean=" + Math.round(getMeanMicros())
+                    + ", p50=" + getPercentileMicros(0.5)
+                    + ", p99=" + getPercentileMicros(0.99)
+                    + ", max=" + maxMicros
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.AsyncDecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpRejectedException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
+
+/**
+ * Records request counts, errors and latency histograms, tagged by remote
+ * service, request name and method. Recording only touches striped counters
+ * and atomic histogram buckets, so it's cheap enough for every request.
+ *
+ * Nothing is published by this class; a reporter should periodically read
+ * getMetrics() and send the values to the metrics system of choice, using
+ * LatencyHistogram.snapshotAndReset() for per-interval percentiles.
+ *
+ * @author Raul Acevedo
+ */
+public class MetricsDecorator implements BreezeHttpClientDecorator {
+    private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
+    private final ConcurrentMap<String, RequestMetrics> metrics = new ConcurrentHashMap<>();
+
+    public MetricsDecorator() {
+        this(Collections.singletonList(new AllRequestMatcher()));
+    }
+
+    public MetricsDecorator(List<BreezeHttpClientRequestMatcher> matchers) {
+        this.matchers.addAll(matchers);
+    }
+
+    @Override
+    public BreezeHttpClient decorate(BreezeHttpClient client) {
+        return new MetricsDecoratedClient(client, matchers);
+    }
+
+    /** Metrics for every remote service, request name and method seen so far. */
+    public Collection<RequestMetrics> getMetrics() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    /** Metrics for the request's remote service, request name and method. */
+    public RequestMetrics getMetrics(BreezeHttpRequest request) {
+        String remoteService = request.getDefaultedRemoteService();
+        String requestName = request.getDefaultedRequestName();
+        BreezeHttpRequest.Method method = request.getMethod();
+
+        String key = remoteService + '|' + requestName + '|' + method;
+        RequestMetrics requestMetrics = metrics.get(key);
+        return requestMetrics != null
+                ? requestMetrics
+                : metrics.computeIfAbsent(key, (name) -> new RequestMetrics(remoteService, requestName, method));
+    }
+
+    private static void record(RequestMetrics requestMetrics, long start, Throwable t) {
+        long latency = System.nanoTime() - start;
+        if (t == null) {
+            requestMetrics.recordSuccess(latency);
+        } else if (t instanceof BreezeHttpRejectedException) {
+            requestMetrics.recordRejected();
+        } else if (t instanceof CancellationException) {
+            requestMetrics.recordCancelled();
+        } else if (t instanceof BreezeHttpResponseException && ((BreezeHttpResponseException) t).getResponse() != null) {
+            requestMetrics.recordStatusError(((BreezeHttpResponseException) t).getHttpStatusCode(), latency);
+        } else {
+            requestMetrics.recordNetworkError(latency);
+        }
+    }
+
+    public class MetricsDecoratedClient extends AbstractDecoratedClient {
+        MetricsDecoratedClient(BreezeHttpClient client, List<BreezeHttpClientRequestMatcher> matchers) {
+            super(MetricsDecorator.this, client, matchers);
+        }
+
+        @Override
+        protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
+            RequestMetrics requestMetrics = getMetrics(request);
+            long start = System.nanoTime();
+            try {
+                BreezeHttpResponse<T> response = command.execute(request);
+                record(requestMetrics, start, null);
+                return response;
+            } catch (RuntimeException e) {
+                record(requestMetrics, start, e);
+                throw e;
+            }
+        }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            RequestMetrics requestMetrics = getMetrics(request);
+            long start = System.nanoTime();
+
+            CompletableFuture<BreezeHttpResponse<T>> future;
+            try {
+                future = command.execute(request);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            future.whenComplete((response, throwable) ->
+                    record(requestMetrics, start, throwable == null ? null : unwrap(throwable))
+            );
+            return future;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+
+/**
+ * Counters and latency for one remote service, request name and method.
+ *
+ * Every request counts once in getRequestCount, and once in exactly one of
+ * the success, client error (4xx), server error (5xx), other status, network
+ * error, rejected or cancelled counts. Latency is recorded for everything
+ * except requests rejected locally, which never reached the server, and
+ * requests cancelled by the caller, whose latency says nothing about the
+ * server.
+ *
+ * @author Raul Acevedo
+ */
+public class RequestMetrics {
+    private final String remoteService;
+    private final String requestName;
+    private final BreezeHttpRequest.Method method;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder otherStatusErrors = new LongAdder();
+    private final LongAdder networkErrors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public RequestMetrics(String remoteService, String requestName, BreezeHttpRequest.Method method) {
+        this.remoteService = remoteService;
+        this.requestName = requestName;
+        this.method = method;
+    }
+
+    void recordSuccess(long latencyNanos) {
+        requests.increment();
+        successes.increment();
+        latency.record(latencyNanos);
+    }
+
+    void recordStatusError(int httpStatusCode, long latencyNanos) {
+        requests.increment();
+        int family = httpStatusCode / 100;
+        if (family == 4) {
+            clientErrors.increment();
+        } else if (family == 5) {
+            serverErrors.increment();
+        } else {
+            otherStatusErrors.increment();
+        }
+        latency.record(latencyNanos);
+    }
+
+    void recordNetworkError(long latencyNanos) {
+        requests.increment();
+        networkErrors.increment();
+        latency.record(latencyNanos);
+    }
+
+    void recordRejected() {
+        requests.increment();
+        rejected.increment();
+    }
+
+    void recordCancelled() {
+        requests.increment();
+        cancelled.increment();
+    }
+
+    public String getRemoteService() {
+        return remoteService;
+    }
+
+    public String getRequestName() {
+        return requestName;
+    }
+
+    public BreezeHttpRequest.Method getMethod() {
+        return method;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getSuccessCount() {
+        return successes.sum();
+    }
+
+    /** Error responses with a 4xx status. */
+    public long getClientErrorCount() {
+        return clientErrors.sum();
+    }
+
+    /** Error responses with a 5xx status. */
+    public long getServerErrorCount() {
+        return serverErrors.sum();
+    }
+
+    /** Error responses with any other status, such as an unexpected 3xx. */
+    public long getOtherStatusErrorCount() {
+        return otherStatusErrors.sum();
+    }
+
+    /** Requests that failed without a response: connection errors, timeouts and so on. */
+    public long getNetworkErrorCount() {
+        return networkErrors.sum();
+    }
+
+    /** Requests rejected locally by another decorator, such as a circuit breaker. */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /** Requests cancelled by the caller before they completed, such as losing hedges. */
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics{remoteService=" + remoteService
+                + ", requestName=" + requestName
+                + ", method=" + method
+                + ", requests=" + getRequestCount()
+                + ", successes=" + getSuccessCount()
+                + ", clientErrors=" + getClientErrorCount()
+                + ", serverErrors=" + getServerErrorCount()
+                + ", otherStatusErrors=" + getOtherStatusErrorCount()
+                + ", networkErrors=" + getNetworkErrorCount()
+                + ", rejected=" + getRejectedCount()
+                + ", cancelled=" + getCancelledCount()
+                + ", latency=" + latency.snapshot()
+                + '}';
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.metrics.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.metrics.MetricsDecorator;
+
+/**
+ * Metrics configuration; the decorator bean is also how reporters get at the metrics.
+ *
+ * @author Raul Acevedo
+ */
+@Configuration
+public class BreezeHttpClientMetricsDecoratorConfig {
+    @Bean
+    public BreezeHttpClientDecorator breezeHttpClientMetricsDecorator() {
+        return new MetricsDecorator();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.metrics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpRejectedException;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for MetricsDecorator and LatencyHistogram.
+ *
+ * @author Raul Acevedo
+ */
+public class MetricsTest {
+    private final FakeClient fake = new FakeClient();
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000000, snapshot.getMaxMicros());
+        assertEquals(500500, snapshot.getMeanMicros(), 1);
+        assertWithin(500000, snapshot.getPercentileMicros(0.5));
+        assertWithin(990000, snapshot.getPercentileMicros(0.99));
+        assertEquals(1000000, snapshot.getPercentileMicros(1));
+
+        // Reset starts a new interval
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentileMicros(0.99));
+    }
+
+    @Test
+    public void countsByOutcome() {
+        MetricsDecorator decorator = new MetricsDecorator();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        execute(client, null);
+        execute(client, new BreezeHttpResponseException("bad request", request(), new BreezeHttpResponse<>(null, 404)));
+        execute(client, new BreezeHttpResponseException("server error", request(), new BreezeHttpResponse<>(null, 503)));
+        execute(client, new BreezeHttpException("connection refused"));
+        execute(client, new BreezeHttpRejectedException("circuit open"));
+        fake.error = null;
+        client.executeAsync(request(), String.class, null).handle((response, throwable) -> null).join();
+
+        RequestMetrics metrics = decorator.getMetrics(request());
+        assertEquals(1, decorator.getMetrics().size());
+        assertEquals("service1", metrics.getRemoteService());
+        assertEquals(6, metrics.getRequestCount());
+        assertEquals(2, metrics.getSuccessCount());
+        assertEquals(1, metrics.getClientErrorCount());
+        assertEquals(1, metrics.getServerErrorCount());
+        assertEquals(1, metrics.getNetworkErrorCount());
+        assertEquals(1, metrics.getRejectedCount());
+        assertEquals(5, metrics.getLatency().snapshot().getCount());
+    }
+
+    @Test
+    public void cancelledIsNotANetworkError() {
+        MetricsDecorator decorator = new MetricsDecorator();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        fake.asyncResult = new CompletableFuture<>();
+        client.executeAsync(request(), String.class, null).cancel(true);
+
+        RequestMetrics metrics = decorator.getMetrics(request());
+        assertEquals(1, metrics.getRequestCount());
+        assertEquals(1, metrics.getCancelledCount());
+        assertEquals(0, metrics.getNetworkErrorCount());
+        assertEquals(0, metrics.getLatency().snapshot().getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected * 0.04);
+    }
+
+    private void execute(BreezeHttpClient client, RuntimeException error) {
+        fake.error = error;
+        try {
+            client.execute(request(), String.class, null);
+            if (error != null) {
+                fail("expected " + error);
+            }
+        } catch (RuntimeException e) {
+            assertEquals(error, e);
+        }
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).name("test").method("GET");
+    }
+
+    private static class FakeClient extends AbstractBaseClient {
+        private RuntimeException error;
+        private CompletableFuture<BreezeHttpResponse<?>> asyncResult;
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+            if (error != null) {
+                throw error;
+            }
+            return new BreezeHttpResponse<>(null, 200);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            if (asyncResult != null) {
+                return (CompletableFuture<BreezeHttpResponse<T>>) (CompletableFuture<?>) asyncResult;
+            }
+            return super.executeAsync(request, responseType, payload);
+        }
+
+        @Override
+        public List<BreezeHttpRequestFilter> getRequestFilters() {
+            return Collections.emptyList();
+        }
+    }
+}
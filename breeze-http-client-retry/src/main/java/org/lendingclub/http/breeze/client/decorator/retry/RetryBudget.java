@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.retry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.decorator.TokenBudget;
+
+/**
+ * Caps retries to a fraction of successful traffic, with one TokenBudget
+ * per remote service. Every successful request deposits ratio tokens, every
+ * retry withdraws one; when the bucket is empty we stop retrying until the
+ * service recovers, instead of multiplying the load on a service that is
+ * already struggling.
+ *
+ * Buckets start full so retries work right after startup.
+ *
+ * @author Raul Acevedo
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final int maxTokens;
+    private final ConcurrentMap<String, TokenBudget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * @param ratio retries allowed per successful request, for example 0.1 for 10%
+     * @param maxTokens maximum (and initial) number of retries that can be banked per remote service
+     */
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("ratio and maxTokens must not be negative");
+        }
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+    }
+
+    /** Record a successful request. */
+    public void deposit(BreezeHttpRequest request) {
+        budget(request).deposit();
+    }
+
+    /** Take a token for a retry; returns false if the budget is exhausted. */
+    public boolean tryWithdraw(BreezeHttpRequest request) {
+        return budget(request).tryWithdraw();
+    }
+
+    /** Number of retries currently available for the request's remote service. */
+    public double getBalance(BreezeHttpRequest request) {
+        return budget(request).getBalance();
+    }
+
+    private TokenBudget budget(BreezeHttpRequest request) {
+        String service = request.getDefaultedRemoteService();
+        // Plain get first: computeIfAbsent can lock even when the key exists
+        TokenBudget budget = budgets.get(service);
+        return budget != null ? budget : budgets.computeIfAbsent(service, (key) -> new TokenBudget(ratio, maxTokens));
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{ratio=" + ratio + ", maxTokens=" + maxTokens + "}";
+    }
+}
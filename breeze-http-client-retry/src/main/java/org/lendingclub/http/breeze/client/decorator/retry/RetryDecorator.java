@@ -23,25 +23,40 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.lendingclub.http.breeze.client.BreezeHttpClient;
 import org.lendingclub.http.breeze.client.BreezeHttpRequest;
 import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
 import org.lendingclub.http.breeze.client.BreezeHttpType;
 import org.lendingclub.http.breeze.client.decorator.AbstractDecoratedClient;
+import org.lendingclub.http.breeze.client.decorator.AsyncDecoratorCommand;
 import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.DecoratorExecutors;
 import org.lendingclub.http.breeze.client.decorator.DecoratorCommand;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.FixedRetryBackoff;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.RetryBackoff;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
 import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
 import org.lendingclub.http.breeze.client.matcher.BreezeHttpClientRequestMatcher;
 
 /**
- * Simple retry decorator; takes a list of millisecond delays to pause between
- * recoverable failures.
+ * Simple retry decorator; pauses between recoverable failures according to a
+ * RetryBackoff, by default a list of millisecond delays. An optional
+ * RetryBudget limits retries to a fraction of successful traffic.
+ *
+ * Synchronous requests sleep between attempts. Asynchronous requests never
+ * block: the next attempt is scheduled on the Sleeper's scheduler, so a slow
+ * dependency costs timers rather than threads.
  *
  * @author Raul Acevedo
  */
@@ -49,7 +64,8 @@ public class RetryDecorator implements BreezeHttpClientDecorator {
     private static final Logger LOGGER = LoggerFactory.getLogger(RetryDecorator.class);
 
     private final List<BreezeHttpClientRequestMatcher> matchers = new ArrayList<>();
-    private final List<Long> retryDelays = new ArrayList<>();
+    private final RetryBackoff backoff;
+    private final RetryBudget budget;
     private final Sleeper sleeper;
 
     public RetryDecorator(long... retryDelays) {
@@ -69,9 +85,25 @@ public class RetryDecorator implements BreezeHttpClientDecorator {
             List<BreezeHttpClientRequestMatcher> matchers,
             List<Long> retryDelays,
             Sleeper sleeper
+    ) {
+        this(matchers, new FixedRetryBackoff(retryDelays), null, sleeper);
+    }
+
+    /**
+     * @param matchers requests to retry
+     * @param backoff delay policy between retries
+     * @param budget retry budget, or null for no limit
+     * @param sleeper pauses synchronous retries and schedules asynchronous ones
+     */
+    public RetryDecorator(
+            List<BreezeHttpClientRequestMatcher> matchers,
+            RetryBackoff backoff,
+            RetryBudget budget,
+            Sleeper sleeper
     ) {
         this.matchers.addAll(matchers);
-        this.retryDelays.addAll(retryDelays);
+        this.backoff = backoff;
+        this.budget = budget;
         this.sleeper = sleeper;
     }
 
@@ -82,9 +114,34 @@ public class RetryDecorator implements BreezeHttpClientDecorator {
 
     /** This class exists for unit tests, but maybe somebody someday will want to override it. */
     public static class Sleeper {
+        private final ScheduledExecutorService scheduler;
+
+        /** Use the scheduler shared by all decorators, see DecoratorExecutors. */
+        public Sleeper() {
+            this(null);
+        }
+
+        public Sleeper(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+        }
+
         public void sleep(long milliseconds) throws InterruptedException {
             Thread.sleep(milliseconds);
         }
+
+        /**
+         * Run the task after the given delay. The timer only hands the task
+         * to DecoratorExecutors.executor(), since starting the next attempt
+         * may block and would hold up every other timer.
+         */
+        public ScheduledFuture<?> schedule(Runnable task, long milliseconds) {
+            Executor executor = DecoratorExecutors.executor();
+            return getScheduler().schedule(() -> executor.execute(task), milliseconds, TimeUnit.MILLISECONDS);
+        }
+
+        protected ScheduledExecutorService getScheduler() {
+            return scheduler != null ? scheduler : DecoratorExecutors.scheduler();
+        }
     }
 
     public class RetryDecoratedClient extends AbstractDecoratedClient {
@@ -92,7 +149,10 @@ public class RetryDecorator implements BreezeHttpClientDecorator {
             super(RetryDecorator.this, client, matchers);
         }
 
-        /** Retry is not possible with InputStream because streams can only be read once. */
+        /**
+         * Retry is not possible with InputStream because streams can only be
+         * read once; wrap it in a BreezeReplayablePayload to make it retryable.
+         */
         @Override
         public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload)
                 throws BreezeHttpException {
@@ -100,10 +160,7 @@ public class RetryDecorator implements BreezeHttpClientDecorator {
                 try {
                     return client.execute(request, responseType, payload);
                 } catch (BreezeHttpResponseException e) {
-                    if (e.getHttpStatusCode() / 100 == 5 && !retryDelays.isEmpty()) {
-                        // Only warn if we would have retried: recoverable error and retryDelays exist
-                        LOGGER.warn("recoverable " + e.getClass() + " but cannot retry stream for " + request);
-                    }
+                    warnCannotRetry(request, e);
                     throw e;
                 }
             } else {
@@ -111,40 +168,209 @@ public class RetryDecorator implements BreezeHttpClientDecorator {
             }
         }
 
+        /** Same as execute, retry is not possible with InputStream. */
+        @Override
+        public BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload)
+                throws BreezeHttpException {
+            if (payload instanceof InputStream) {
+                try {
+                    return client.executeStreaming(request, payload);
+                } catch (BreezeHttpResponseException e) {
+                    warnCannotRetry(request, e);
+                    throw e;
+                }
+            } else {
+                return super.executeStreaming(request, payload);
+            }
+        }
+
+        /** Same as execute, retry is not possible with InputStream. */
+        @Override
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            if (payload instanceof InputStream) {
+                return client.executeAsync(request, responseType, payload);
+            } else {
+                return executeAsync(
+                        request,
+                        (commandRequest) -> client.executeAsync(commandRequest, responseType, payload)
+                );
+            }
+        }
+
+        private void warnCannotRetry(BreezeHttpRequest request, BreezeHttpResponseException e) {
+            if (e.getHttpStatusCode() / 100 == 5 && backoff.delay(1, 0) != RetryBackoff.STOP) {
+                // Only warn if we would have retried: recoverable error and retries configured
+                LOGGER.warn("recoverable " + e.getClass() + " but cannot retry stream for " + request);
+            }
+        }
+
         @Override
         protected <T> BreezeHttpResponse<T> decorate(BreezeHttpRequest request, DecoratorCommand<T> command) {
-            Iterator<Long> iter = retryDelays.iterator();
+            Retries retries = new Retries();
 
             while (true) {
                 try {
                     // Make sure to pass in a copy of the request since execution
                     // may modify the request object and we don't want it altered
                     // unintentionally the same way twice.
-                    return command.execute(new BreezeHttpRequest(request));
+                    BreezeHttpResponse<T> response = command.execute(new BreezeHttpRequest(request));
+                    success(request);
+                    return response;
                 } catch (BreezeHttpResponseException e) {
-                    String errorName = e.getClass().getSimpleName();
-                    if (e.getHttpStatusCode() / 100 == 5 && iter.hasNext()) {
-                        // Recoverable error and with delays left, so sleep and retry
-                        long delay = iter.next();
-                        LOGGER.warn("pausing after recoverable " + errorName
-                                + " for delay=" + delay + " ms"
-                                + " then retrying " + request);
-                        try {
-                            sleeper.sleep(delay);
-                        } catch (InterruptedException interruptedException) {
-                            throw new BreezeHttpException("thread interrupted retrying " + request, interruptedException);
-                        }
-                    } else {
-                        // Unrecoverable error or we ran out of retries
-                        if (e.getHttpStatusCode() / 100 == 5 && !iter.hasNext()) {
-                            LOGGER.warn("recoverable error " + errorName + " but out of retries, giving up on " + request);
-                        }
+                    Long delay = nextDelay(request, e, retries);
+                    if (delay == null) {
                         throw e;
                     }
+                    try {
+                        sleeper.sleep(delay);
+                    } catch (InterruptedException interruptedException) {
+                        throw new BreezeHttpException("thread interrupted retrying " + request, interruptedException);
+                    }
                 } catch (Exception e) {
                     throw new BreezeHttpException("unexpected error retrying " + request, e);
                 }
             }
         }
+
+        @Override
+        protected <T> CompletableFuture<BreezeHttpResponse<T>> decorateAsync(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command
+        ) {
+            CompletableFuture<BreezeHttpResponse<T>> future = new CompletableFuture<>();
+            Retries retries = new Retries();
+
+            // Cancelling the returned future stops the attempt in flight and any pending retry
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    retries.cancel();
+                }
+            });
+
+            attempt(request, command, retries, future);
+            return future;
+        }
+
+        /** Execute one attempt; on recoverable failure schedule the next one instead of sleeping. */
+        private <T> void attempt(
+                BreezeHttpRequest request,
+                AsyncDecoratorCommand<T> command,
+                Retries retries,
+                CompletableFuture<BreezeHttpResponse<T>> future
+        ) {
+            if (future.isDone()) {
+                return;
+            }
+
+            CompletableFuture<BreezeHttpResponse<T>> attempt;
+            try {
+                // Copy the request for the same reason as in decorate
+                attempt = command.execute(new BreezeHttpRequest(request));
+            } catch (Exception e) {
+                attempt = new CompletableFuture<>();
+                attempt.completeExceptionally(e);
+            }
+
+            // If the caller cancelled while the attempt was starting, retries.cancel() may have missed it
+            retries.attempt = attempt;
+            if (future.isDone()) {
+                attempt.cancel(true);
+                return;
+            }
+
+            attempt.whenComplete((response, throwable) -> {
+                if (future.isDone()) {
+                    // Cancelled, so don't retry or spend the retry budget
+                    return;
+                } else if (throwable == null) {
+                    success(request);
+                    future.complete(response);
+                    return;
+                }
+
+                Throwable cause = unwrap(throwable);
+                if (!(cause instanceof BreezeHttpResponseException)) {
+                    future.completeExceptionally(new BreezeHttpException("unexpected error retrying " + request, cause));
+                    return;
+                }
+
+                Long delay = nextDelay(request, (BreezeHttpResponseException) cause, retries);
+                if (delay == null) {
+                    future.completeExceptionally(cause);
+                    return;
+                }
+
+                try {
+                    retries.retry = sleeper.schedule(() -> attempt(request, command, retries, future), delay);
+                    if (future.isDone()) {
+                        retries.retry.cancel(false);
+                    }
+                } catch (RejectedExecutionException e) {
+                    future.completeExceptionally(new BreezeHttpException("could not schedule retry of " + request, e));
+                }
+            });
+        }
+
+        /**
+         * Return how long to wait before retrying, or null if the error is
+         * unrecoverable, we ran out of retries, or the retry budget is spent.
+         */
+        private Long nextDelay(BreezeHttpRequest request, BreezeHttpResponseException e, Retries retries) {
+            if (e.getHttpStatusCode() / 100 != 5) {
+                return null;
+            }
+
+            String errorName = e.getClass().getSimpleName();
+            long delay = backoff.delay(retries.count + 1, retries.previousDelay);
+            if (delay == RetryBackoff.STOP) {
+                LOGGER.warn("recoverable error " + errorName + " but out of retries, giving up on " + request);
+                return null;
+            }
+            if (budget != null && !budget.tryWithdraw(request)) {
+                LOGGER.warn("recoverable error " + errorName + " but retry budget exhausted, giving up on " + request);
+                return null;
+            }
+
+            // Recoverable error and with retries left, so pause and retry
+            retries.count++;
+            retries.previousDelay = delay;
+            LOGGER.warn("pausing after recoverable " + errorName
+                    + " for delay=" + delay + " ms"
+                    + " then retrying " + request);
+            return delay;
+        }
+
+        private void success(BreezeHttpRequest request) {
+            if (budget != null) {
+                budget.deposit(request);
+            }
+        }
+    }
+
+    /**
+     * Retry state for one request. Attempts never overlap, and the scheduler
+     * hands off between them, so plain fields are safe for the counters; the
+     * attempt and retry in flight are also read by whoever cancels.
+     */
+    private static class Retries {
+        private int count;
+        private long previousDelay;
+        private volatile CompletableFuture<?> attempt;
+        private volatile ScheduledFuture<?> retry;
+
+        void cancel() {
+            CompletableFuture<?> currentAttempt = attempt;
+            if (currentAttempt != null) {
+                currentAttempt.cancel(true);
+            }
+            ScheduledFuture<?> currentRetry = retry;
+            if (currentRetry != null) {
+                currentRetry.cancel(false);
+            }
+        }
     }
 }
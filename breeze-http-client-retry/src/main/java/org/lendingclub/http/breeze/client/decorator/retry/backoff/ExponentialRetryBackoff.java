@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.retry.backoff;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff capped at maxDelay, with optional jitter so that
+ * clients that failed at the same moment don't all retry at the same moment.
+ *
+ * @see <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">Exponential Backoff
+ * And Jitter</a> for a comparison of the jitter strategies.
+ *
+ * @author Raul Acevedo
+ */
+public class ExponentialRetryBackoff implements RetryBackoff {
+    public enum Jitter {
+        /** Always wait exactly baseDelay * 2^(retry-1), capped. */
+        NONE,
+        /** Wait a random time between 0 and the exponential delay. */
+        FULL,
+        /** Wait a random time between baseDelay and three times the previous delay, capped. */
+        DECORRELATED
+    }
+
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int maxRetries;
+    private final Jitter jitter;
+
+    public ExponentialRetryBackoff(long baseDelay, long maxDelay, int maxRetries, Jitter jitter) {
+        if (baseDelay <= 0 || maxDelay < baseDelay) {
+            throw new IllegalArgumentException("need 0 < baseDelay <= maxDelay, got baseDelay=" + baseDelay
+                    + " maxDelay=" + maxDelay);
+        }
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxRetries = maxRetries;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public long delay(int retry, long previousDelay) {
+        if (retry > maxRetries) {
+            return STOP;
+        }
+
+        switch (jitter) {
+            case FULL:
+                return ThreadLocalRandom.current().nextLong(exponentialDelay(retry) + 1);
+            case DECORRELATED:
+                long upper = Math.min(maxDelay, Math.max(baseDelay, previousDelay) * 3);
+                return ThreadLocalRandom.current().nextLong(baseDelay, upper + 1);
+            default:
+                return exponentialDelay(retry);
+        }
+    }
+
+    private long exponentialDelay(int retry) {
+        // Avoid overflow for large retry counts; anything past 2^30 is capped anyway
+        int shift = Math.min(retry - 1, 30);
+        return Math.min(maxDelay, baseDelay << shift);
+    }
+
+    @Override
+    public String toString() {
+        return "ExponentialRetryBackoff{baseDelay=" + baseDelay
+                + ", maxDelay=" + maxDelay
+                + ", maxRetries=" + maxRetries
+                + ", jitter=" + jitter
+                + "}";
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.retry.backoff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backoff with an explicit list of delays, one per retry; this is what
+ * RetryDecorator has always done.
+ *
+ * @author Raul Acevedo
+ */
+public class FixedRetryBackoff implements RetryBackoff {
+    private final List<Long> delays = new ArrayList<>();
+
+    public FixedRetryBackoff(List<Long> delays) {
+        this.delays.addAll(delays);
+    }
+
+    @Override
+    public long delay(int retry, long previousDelay) {
+        return retry <= delays.size() ? delays.get(retry - 1) : STOP;
+    }
+
+    public List<Long> getDelays() {
+        return delays;
+    }
+
+    @Override
+    public String toString() {
+        return "FixedRetryBackoff{delays=" + delays + "}";
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.retry.backoff;
+
+/**
+ * Decides how long RetryDecorator waits before each retry.
+ *
+ * @author Raul Acevedo
+ */
+public interface RetryBackoff {
+    /** Returned by delay to signal there should be no more retries. */
+    long STOP = -1;
+
+    /**
+     * Delay before the given retry.
+     *
+     * @param retry retry number, starting at 1 for the first retry
+     * @param previousDelay delay used before the previous retry, 0 for the first retry
+     * @return milliseconds to wait, or STOP to give up
+     */
+    long delay(int retry, long previousDelay);
+}
@@ -16,31 +16,74 @@
 
 package org.lendingclub.http.breeze.client.decorator.retry.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.lendingclub.http.breeze.client.decorator.BreezeHttpClientDecorator;
+import org.lendingclub.http.breeze.client.decorator.retry.RetryBudget;
 import org.lendingclub.http.breeze.client.decorator.retry.RetryDecorator;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.ExponentialRetryBackoff;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.FixedRetryBackoff;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.RetryBackoff;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static java.util.Collections.singletonList;
 
 /**
  * Simple retry configuration.
  *
+ * Backoff is either "fixed", using the SLEEPS list, or "exponential", using
+ * the BASE_DELAY/MAX_DELAY/MAX_RETRIES/JITTER settings. The retry budget is
+ * off unless BUDGET_RATIO is set above 0. All properties share the
+ * BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_ prefix of the original
+ * SLEEPS setting.
+ *
  * @author Raul Acevedo
  */
 @Configuration
 public class BreezeHttpClientRetryDecoratorConfig {
+    /** Scheduler for asynchronous retries; if not defined, a shared daemon scheduler is used. */
+    @Autowired(required = false)
+    @Qualifier(value = "breezeHttpClientRetryScheduler")
+    private ScheduledExecutorService scheduler;
+
     @Bean
     public BreezeHttpClientDecorator breezeHttpClientRetryDecorator(
-            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_SLEEPS:100,500,1000}") String sleeps
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_SLEEPS:100,500,1000}") String sleeps,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_BACKOFF:fixed}") String backoffType,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_BASE_DELAY:100}") long baseDelay,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_MAX_DELAY:2000}") long maxDelay,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_MAX_RETRIES:3}") int maxRetries,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_JITTER:FULL}")
+                    ExponentialRetryBackoff.Jitter jitter,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_BUDGET_RATIO:0}") double budgetRatio,
+            @Value(value = "${BREEZE_HTTP_RESTTEMPLATE_CLIENT_RETRY_DECORATOR_BUDGET_MAX_TOKENS:10}") int budgetMaxTokens
     ) {
-        List<Long> sleepsList = new ArrayList<>();
-        for (String sleep : sleeps.split(",")) {
-            sleepsList.add(Long.parseLong(sleep));
+        RetryBackoff backoff;
+        if ("exponential".equalsIgnoreCase(backoffType)) {
+            backoff = new ExponentialRetryBackoff(baseDelay, maxDelay, maxRetries, jitter);
+        } else if ("fixed".equalsIgnoreCase(backoffType)) {
+            List<Long> sleepsList = new ArrayList<>();
+            for (String sleep : sleeps.split(",")) {
+                sleepsList.add(Long.parseLong(sleep));
+            }
+            backoff = new FixedRetryBackoff(sleepsList);
+        } else {
+            throw new IllegalArgumentException("unknown retry backoff " + backoffType + ", must be fixed or exponential");
         }
-        return new RetryDecorator(sleepsList);
+
+        return new RetryDecorator(
+                singletonList(new AllRequestMatcher()),
+                backoff,
+                budgetRatio > 0 ? new RetryBudget(budgetRatio, budgetMaxTokens) : null,
+                new RetryDecorator.Sleeper(scheduler)
+        );
     }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.retry;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.lendingclub.http.breeze.client.BreezeHttpClient;
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.BreezeHttpResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpStreamingResponse;
+import org.lendingclub.http.breeze.client.BreezeHttpType;
+import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.filter.BreezeHttpRequestFilter;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for which requests RetryDecorator retries.
+ *
+ * @author Raul Acevedo
+ */
+public class RetryDecoratorTest {
+    private final RetryDecorator decorator = new RetryDecorator(
+            Collections.singletonList(new AllRequestMatcher()),
+            Collections.singletonList(0L),
+            new RetryDecorator.Sleeper()
+    );
+
+    @Test
+    public void streamingRequestsAreRetried() {
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        assertUnavailable(() -> client.executeStreaming(request(), "payload"));
+        assertEquals(2, fake.attempts);
+    }
+
+    @Test
+    public void streamingInputStreamIsNotRetried() {
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        // The first attempt consumed the stream, a retry would send an empty or partial body
+        assertUnavailable(() -> client.executeStreaming(request(), new ByteArrayInputStream(new byte[] {1, 2, 3})));
+        assertEquals(1, fake.attempts);
+    }
+
+    @Test
+    public void cancelDuringBackoffStopsRetries() throws InterruptedException {
+        RetryDecorator slowDecorator = new RetryDecorator(
+                Collections.singletonList(new AllRequestMatcher()),
+                Collections.singletonList(50L),
+                new RetryDecorator.Sleeper()
+        );
+        FakeClient fake = new FakeClient();
+        BreezeHttpClient client = slowDecorator.decorate(fake);
+
+        CompletableFuture<BreezeHttpResponse<String>> future = client.executeAsync(request(), String.class, null);
+        assertEquals(1, fake.attempts);
+
+        // The retry would have run 50 ms after the first failure
+        future.cancel(true);
+        Thread.sleep(200);
+        assertEquals(1, fake.attempts);
+    }
+
+    @Test
+    public void cancelReachesTheRunningAttempt() {
+        FakeClient fake = new FakeClient();
+        fake.asyncResult = new CompletableFuture<>();
+        BreezeHttpClient client = decorator.decorate(fake);
+
+        CompletableFuture<BreezeHttpResponse<String>> future = client.executeAsync(request(), String.class, null);
+        future.cancel(true);
+        assertTrue(fake.asyncResult.isCancelled());
+        assertEquals(1, fake.attempts);
+    }
+
+    private static void assertUnavailable(Runnable runnable) {
+        try {
+            runnable.run();
+            fail("should have failed");
+        } catch (BreezeHttpResponseException e) {
+            assertEquals(503, e.getHttpStatusCode());
+        }
+    }
+
+    private static BreezeHttpRequest request() {
+        return new BreezeHttpRequest("http://localhost", "service1", null, null).path("/test").method("POST");
+    }
+
+    private static class FakeClient extends AbstractBaseClient {
+        private volatile int attempts;
+        private CompletableFuture<BreezeHttpResponse<?>> asyncResult;
+
+        @Override
+        public <T> BreezeHttpResponse<T> execute(BreezeHttpRequest request, BreezeHttpType<T> responseType, Object payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<BreezeHttpResponse<T>> executeAsync(
+                BreezeHttpRequest request,
+                BreezeHttpType<T> responseType,
+                Object payload
+        ) {
+            attempts++;
+            if (asyncResult != null) {
+                return (CompletableFuture<BreezeHttpResponse<T>>) (CompletableFuture<?>) asyncResult;
+            }
+            CompletableFuture<BreezeHttpResponse<T>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(unavailable(request));
+            return failed;
+        }
+
+        @Override
+        public BreezeHttpStreamingResponse executeStreaming(BreezeHttpRequest request, Object payload) {
+            attempts++;
+            throw unavailable(request);
+        }
+
+        private static BreezeHttpResponseException unavailable(BreezeHttpRequest request) {
+            return new BreezeHttpResponseException("unavailable", request, new BreezeHttpResponse<>(null, 503));
+        }
+
+        @Override
+        public List<BreezeHttpRequestFilter> getRequestFilters() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2018 Lending Club, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.lendingclub.http.breeze.client.decorator.retry;
+
+import org.junit.Test;
+
+import org.lendingclub.http.breeze.client.BreezeHttpRequest;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.ExponentialRetryBackoff;
+import org.lendingclub.http.breeze.client.decorator.retry.backoff.RetryBackoff;
+
+import static org.lendingclub.http.breeze.client.decorator.retry.backoff.ExponentialRetryBackoff.Jitter.DECORRELATED;
+import static org.lendingclub.http.breeze.client.decorator.retry.backoff.ExponentialRetryBackoff.Jitter.FULL;
+import static org.lendingclub.http.breeze.client.decorator.retry.backoff.ExponentialRetryBackoff.Jitter.NONE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for retry backoff policies and the retry budget.
+ *
+ * @author Raul Acevedo
+ */
+public class RetryPolicyTest {
+    @Test
+    public void exponentialBackoff() {
+        RetryBackoff backoff = new ExponentialRetryBackoff(100, 500, 4, NONE);
+
+        assertEquals(100, backoff.delay(1, 0));
+        assertEquals(200, backoff.delay(2, 100));
+        assertEquals(400, backoff.delay(3, 200));
+        assertEquals(500, backoff.delay(4, 400));
+        assertEquals(RetryBackoff.STOP, backoff.delay(5, 500));
+    }
+
+    @Test
+    public void jitterStaysInBounds() {
+        RetryBackoff full = new ExponentialRetryBackoff(100, 1000, 10, FULL);
+        RetryBackoff decorrelated = new ExponentialRetryBackoff(100, 1000, 10, DECORRELATED);
+
+        long previous = 0;
+        for (int retry = 1; retry <= 10; retry++) {
+            long delay = full.delay(retry, 0);
+            assertTrue(delay >= 0 && delay <= Math.min(1000, 100L << (retry - 1)));
+
+            delay = decorrelated.delay(retry, previous);
+            assertTrue(delay >= 100 && delay <= 1000);
+            previous = delay;
+        }
+    }
+
+    @Test
+    public void budget() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+        BreezeHttpRequest service1 = new BreezeHttpRequest(null, "service1", null, null);
+        BreezeHttpRequest service2 = new BreezeHttpRequest(null, "service2", null, null);
+
+        // Starts full
+        assertTrue(budget.tryWithdraw(service1));
+        assertTrue(budget.tryWithdraw(service1));
+        assertFalse(budget.tryWithdraw(service1));
+
+        // Buckets are per remote service
+        assertTrue(budget.tryWithdraw(service2));
+
+        // Two successes buy one retry
+        budget.deposit(service1);
+        assertFalse(budget.tryWithdraw(service1));
+        budget.deposit(service1);
+        assertTrue(budget.tryWithdraw(service1));
+
+        // Never banks more than maxTokens
+        for (int i = 0; i < 100; i++) {
+            budget.deposit(service1);
+        }
+        assertEquals(2.0, budget.getBalance(service1), 0.0001);
+    }
+}
@@ -16,6 +16,17 @@
 
 package org.lendingclub.http.breeze.client;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import com.google.protobuf.StringValue;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -29,26 +40,48 @@ import org.springframework.test.context.web.WebAppConfiguration;
 
 import javax.inject.Inject;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.lendingclub.http.breeze.client.decorator.retry.RetryDecorator;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpException;
 import org.lendingclub.http.breeze.client.exception.BreezeHttpResponseException;
+import org.lendingclub.http.breeze.client.impl.AbstractBaseClient;
+import org.lendingclub.http.breeze.client.impl.BreezeProtobufCodec;
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+import org.lendingclub.http.breeze.client.impl.HttpProtocol;
+import org.lendingclub.http.breeze.client.impl.OkHttpTransport;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeJacksonCodec;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeJsonArrayReader;
+import org.lendingclub.http.breeze.client.impl.jaxrs.BreezeHttpJaxRsClient;
+import org.lendingclub.http.breeze.client.impl.jaxrs.CompressionInterceptor;
+import org.lendingclub.http.breeze.client.impl.jaxrs.jersey.OkHttpConnectorProvider;
+import org.lendingclub.http.breeze.client.impl.resttemplate.builder.BreezeHttpRestTemplateClientBuilder;
 import org.lendingclub.http.breeze.client.matcher.AllRequestMatcher;
+import org.lendingclub.http.breeze.client.payload.BreezeReplayablePayload;
 
 import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.GET;
+import static org.lendingclub.http.breeze.client.BreezeHttpRequest.Method.POST;
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 /**
@@ -80,6 +113,10 @@ import static org.junit.Assert.fail;
         "BREEZE_HTTP_JAXRS_JERSEY_CLIENT_READ_TIMEOUT=500",
         "BREEZE_HTTP_JAXRS_JERSEY_CLIENT_ERROR_RESPONSE_CLASS:org.lendingclub.http.breeze.client.ErrorResponse",
 
+        "BREEZE_HTTP_ASYNC_CLIENT_CONNECT_TIMEOUT=500",
+        "BREEZE_HTTP_ASYNC_CLIENT_READ_TIMEOUT=500",
+        "BREEZE_HTTP_ASYNC_CLIENT_ERROR_RESPONSE_CLASS:org.lendingclub.http.breeze.client.ErrorResponse",
+
         "BREEZE_HTTP_JAXRS_RESTEASY_CLIENT_CONNECT_TIMEOUT=500",
         "BREEZE_HTTP_JAXRS_RESTEASY_CLIENT_SOCKET_TIMEOUT=500"
 })
@@ -107,13 +144,17 @@ public class ClientIntegrationTest {
     @Inject
     private BreezeHttpClient breezeHttpJaxRsJerseyClient;
 
+    @Inject
+    private BreezeHttpClient breezeHttpAsyncClient;
+
     private List<BreezeHttpClient> clients;
 
     @Before
     public void before() {
         clients = asList(
                 breezeHttpRestTemplateClient.forService(TEST_ROOT_URL, "test"),
-                breezeHttpJaxRsJerseyClient.forService(TEST_ROOT_URL, "test")
+                breezeHttpJaxRsJerseyClient.forService(TEST_ROOT_URL, "test"),
+                breezeHttpAsyncClient.forService(TEST_ROOT_URL, "test")
         );
     }
 
@@ -160,6 +201,31 @@ public class ClientIntegrationTest {
         );
     }
 
+    @Test
+    public void template() {
+        for (BreezeHttpClient client : clients) {
+            BreezeHttpRequestTemplate template = client.request()
+                    .path("/get/{pathVariable}")
+                    .header("TestHeader", HEADER)
+                    .template();
+
+            for (int i = 0; i < 2; i++) {
+                assertEquals(
+                        PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT,
+                        template.request()
+                                .pathVariable("pathVariable", PATH)
+                                .queryVariable("queryVariable", QUERY)
+                                .queryVariable("queryMultiple", QUERY_MULTIPLE_1)
+                                .queryVariable("queryMultiple", QUERY_MULTIPLE_2)
+                                .get(TestModel.class)
+                                .getMessage()
+                );
+            }
+            assertTrue(template.request().getPathVariables().isEmpty());
+            assertTrue(template.request().getQueryVariables().isEmpty());
+        }
+    }
+
     @Test
     public void getForMap() {
         runTests((client, forceError, forceErrorParam) -> {
@@ -299,6 +365,55 @@ public class ClientIntegrationTest {
         });
     }
 
+    @Test
+    public void delete() {
+        runTests((client, forceError, forceErrorParam) ->
+                request(client, "/delete/{pathVariable}", forceError, forceErrorParam).delete()
+        );
+    }
+
+    @Test
+    public void deleteForObject() {
+        runTests((client, forceError, forceErrorParam) ->
+            assertEquals(
+                    PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT,
+                    request(client, "/delete/{pathVariable}", forceError, forceErrorParam)
+                            .delete(TestModel.class)
+                            .getMessage()
+            )
+        );
+    }
+
+    /** HEAD responses have no body, so errors can't be checked with runTests. */
+    @Test
+    public void head() throws Exception {
+        for (BreezeHttpClient client : clients) {
+            BreezeHttpResponse<Void> response = request(client, "/head/{pathVariable}", null, null).head();
+            assertEquals(200, response.getHttpStatusCode());
+            assertEquals(PATH, response.getFirstHeader("pathvariable"));
+            assertNull(response.getEntity());
+
+            response = request(client, "/head/{pathVariable}", null, null).headAsync().get();
+            assertEquals(PATH, response.getFirstHeader("pathvariable"));
+
+            try {
+                request(client, "/head/{pathVariable}", "clientError", "400").head();
+                fail("HEAD should have thrown breeze exception");
+            } catch (BreezeHttpResponseException e) {
+                assertEquals(400, e.getHttpStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void options() {
+        for (BreezeHttpClient client : clients) {
+            BreezeHttpResponse<Void> response = request(client, "/delete/{pathVariable}", null, null).options();
+            assertEquals(200, response.getHttpStatusCode());
+            assertTrue(response.getFirstHeader("allow").contains("DELETE"));
+        }
+    }
+
     @Test
     public void stream() {
         runTests((client, forceError, forceErrorParam) -> {
@@ -307,6 +422,242 @@ public class ClientIntegrationTest {
         }, "retry:disabled");
     }
 
+    @Test
+    public void replayableStream() throws Exception {
+        byte[] contents = (PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT).getBytes();
+
+        // Unlike a plain InputStream, retries resend the whole payload, whether kept in memory or spooled to a file
+        for (int memoryLimit : new int[] { BreezeReplayablePayload.DEFAULT_MEMORY_LIMIT, 8 }) {
+            try (BreezeReplayablePayload payload = BreezeReplayablePayload.spool(
+                    new ByteArrayInputStream(contents),
+                    memoryLimit
+            )) {
+                assertEquals(memoryLimit > contents.length, payload.isInMemory());
+                assertEquals(contents.length, payload.length());
+                runTests((client, forceError, forceErrorParam) ->
+                        request(client, "/putFile/{pathVariable}", forceError, forceErrorParam).put(payload)
+                );
+            }
+        }
+    }
+
+    @Test
+    public void file() throws Exception {
+        Path file = Files.createTempFile("breeze", ".txt");
+        try {
+            Files.write(file, (PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT).getBytes());
+            runTests((client, forceError, forceErrorParam) ->
+                    request(client, "/putFile/{pathVariable}", forceError, forceErrorParam).put(file)
+            );
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void uploadFile() throws Exception {
+        int size = 8 * 1024 * 1024;
+        Path file = Files.createTempFile("breeze", ".bin");
+        try {
+            Files.write(file, new byte[size]);
+            for (BreezeHttpClient client : clients) {
+                // A known Content-Length means the body was neither chunked nor buffered to measure it
+                assertEquals(
+                        "contentLength=" + size + ", bytes=" + size,
+                        client.request().path("/upload").post(TestModel.class, file).getMessage()
+                );
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void compression() throws IOException {
+        CloseableHttpAsyncClient asyncHttpClient = new BreezeHttpRestTemplateClientBuilder().buildAsyncHttpClient();
+        List<BreezeHttpClient> compressingClients = asList(
+                new BreezeHttpRestTemplateClientBuilder()
+                        .withErrorResponseClass(ErrorResponse.class)
+                        .withCompression(ContentEncoding.GZIP, 1024)
+                        .withAsyncHttpClient(asyncHttpClient)
+                        .build()
+                        .forService(TEST_ROOT_URL, "test"),
+                new BreezeHttpJaxRsClient(
+                        JerseyClientBuilder.createClient(new ClientConfig(
+                                new JacksonJaxbJsonProvider().configure(FAIL_ON_UNKNOWN_PROPERTIES, false)
+                        )).register(new CompressionInterceptor(ContentEncoding.ZSTD, 1024)),
+                        Collections.emptyList(),
+                        null,
+                        ErrorResponse.class
+                ).forService(TEST_ROOT_URL, "test")
+        );
+        List<String> encodings = asList("gzip", "zstd");
+
+        char[] large = new char[10000];
+        Arrays.fill(large, 'x');
+        try {
+            for (int i = 0; i < compressingClients.size(); i++) {
+                BreezeHttpClient client = compressingClients.get(i);
+
+                TestModel model = client.request().path("/compressed").post(TestModel.class, new TestModel("small"));
+                assertEquals("contentEncoding=null, length=5", model.getMessage());
+
+                model = client.request().path("/compressed").post(TestModel.class, new TestModel(new String(large)));
+                assertEquals("contentEncoding=" + encodings.get(i) + ", length=10000", model.getMessage());
+
+                // Asynchronous requests are compressed the same way
+                model = client.request()
+                        .path("/compressed")
+                        .postAsync(TestModel.class, new TestModel(new String(large)))
+                        .join();
+                assertEquals("contentEncoding=" + encodings.get(i) + ", length=10000", model.getMessage());
+
+                // Requests can opt out
+                model = client.request()
+                        .path("/compressed")
+                        .header("Content-Encoding", "identity")
+                        .post(TestModel.class, new TestModel(new String(large)));
+                assertEquals("contentEncoding=identity, length=10000", model.getMessage());
+            }
+        } finally {
+            asyncHttpClient.close();
+        }
+    }
+
+    @Test
+    public void okHttpTransport() throws Exception {
+        // This server only speaks HTTP/1.1, so HTTP_2 falls back to it, but the OkHttp transports still run end to end
+        clients = okHttpClients(TEST_ROOT_URL, HttpProtocol.HTTP_2);
+        getForObject();
+        postForObject();
+        patchForObject();
+        deleteForObject();
+        form();
+        file();
+        getStreaming();
+        getAsync();
+        postAsyncForMap();
+    }
+
+    @Test
+    public void h2c() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setProtocols(singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.start();
+        try {
+            // The server rejects anything that isn't cleartext HTTP/2
+            for (BreezeHttpClient client : okHttpClients(server.url("/test").toString(), HttpProtocol.H2C)) {
+                server.enqueue(new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody("{\"message\":\"h2c\"}"));
+                assertEquals("h2c", client.request().path("/post").post(TestModel.class, new TestModel("sent")).getMessage());
+
+                RecordedRequest request = server.takeRequest();
+                assertEquals("POST", request.getMethod());
+                assertEquals("/test/post", request.getPath());
+                assertTrue(request.getBody().readUtf8().contains("\"message\":\"sent\""));
+
+                server.enqueue(new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody("{\"message\":\"async\"}"));
+                assertEquals("async", join(client.request().path("/get").getAsync(TestModel.class)).getMessage());
+                assertEquals("/test/get", server.takeRequest().getPath());
+            }
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private List<BreezeHttpClient> okHttpClients(String rootUrl, HttpProtocol protocol) {
+        return asList(
+                new BreezeHttpRestTemplateClientBuilder()
+                        .withErrorResponseClass(ErrorResponse.class)
+                        .withTimeout(500, 500)
+                        .withProtocol(protocol, 10)
+                        .build()
+                        .forService(rootUrl, "test"),
+                new BreezeHttpJaxRsClient(
+                        JerseyClientBuilder.createClient(new ClientConfig(
+                                new JacksonJaxbJsonProvider().configure(FAIL_ON_UNKNOWN_PROPERTIES, false)
+                        ).connectorProvider(new OkHttpConnectorProvider(OkHttpTransport.builder(protocol, 10).build())))
+                                .property(ClientProperties.CONNECT_TIMEOUT, 500)
+                                .property(ClientProperties.READ_TIMEOUT, 500),
+                        Collections.emptyList(),
+                        null,
+                        ErrorResponse.class
+                ).forService(rootUrl, "test")
+        );
+    }
+
+    @Test
+    public void getStreaming() {
+        runTests((client, forceError, forceErrorParam) -> {
+            BreezeHttpRequest request = request(client, "/get/{pathVariable}", forceError, forceErrorParam);
+            try (BreezeHttpStreamingResponse response = request.getStreaming()) {
+                assertEquals(200, response.getHttpStatusCode());
+                assertEquals("application/json;charset=UTF-8", response.getFirstHeader("content-type"));
+                assertTrue(IOUtils.toString(response.getEntity(), "UTF-8")
+                        .contains(PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT));
+            }
+        });
+    }
+
+    @Test
+    public void download() throws Exception {
+        int size = 16 * 1024 * 1024;
+        for (BreezeHttpClient client : clients) {
+            long count = client.request()
+                    .path("/download/{size}")
+                    .pathVariable("size", size)
+                    .header("Accept", "application/octet-stream")
+                    .getStreaming((response) -> {
+                        byte[] buffer = new byte[8192];
+                        long total = 0;
+                        for (int read; (read = response.getEntity().read(buffer)) != -1; ) {
+                            total += read;
+                        }
+                        return total;
+                    });
+            assertEquals(size, count);
+
+            Path file = Files.createTempFile("breeze", ".bin");
+            try {
+                BreezeHttpResponse<Path> response = client.request()
+                        .path("/download/{size}")
+                        .pathVariable("size", size)
+                        .header("Accept", "application/octet-stream")
+                        .download(file);
+                assertEquals(200, response.getHttpStatusCode());
+                assertEquals(size, Files.size(response.getEntity()));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void jsonArrayStream() {
+        BreezeJsonArrayReader reader = new BreezeJsonArrayReader();
+        runTests((client, forceError, forceErrorParam) -> {
+            BreezeHttpRequest request = request(client, "/list", forceError, forceErrorParam)
+                    .queryVariable("count", 5000);
+            try (Stream<TestModel> models = reader.get(request, TestModel.class)) {
+                AtomicInteger count = new AtomicInteger();
+                models.forEach((model) -> assertEquals("message" + count.getAndIncrement(), model.getMessage()));
+                assertEquals(5000, count.get());
+            }
+
+            // Stopping early releases the connection when the stream is closed
+            request = request(client, "/list", forceError, forceErrorParam).queryVariable("count", 5000);
+            try (Stream<TestModel> models = reader.get(request, TestModel.class)) {
+                assertEquals(
+                        asList("message0", "message1"),
+                        models.limit(2).map(TestModel::getMessage).collect(Collectors.toList())
+                );
+            }
+        });
+    }
+
     @Test
     public void execute() {
         runTests((client, forceError, forceErrorParam) -> {
@@ -324,6 +675,27 @@ public class ClientIntegrationTest {
         });
     }
 
+    @Test
+    public void codecs() {
+        // The test server only sends errors as JSON, so only successful calls are tested
+        for (BreezeHttpClient client : clients) {
+            for (String mediaType : asList(BreezeJacksonCodec.SMILE, BreezeJacksonCodec.CBOR)) {
+                BreezeHttpResponse<TestModel> response = request(client, "/json/post", null, null)
+                        .mediaType(mediaType)
+                        .method(POST)
+                        .execute(TestModel.class, new TestModel("message" + MAGIC));
+                assertTrue(response.getFirstHeader("content-type").startsWith(mediaType));
+                assertEquals("message" + MAGIC, response.getEntity().getMessage());
+            }
+
+            StringValue value = client.request()
+                    .path("/protobuf")
+                    .mediaType(BreezeProtobufCodec.PROTOBUF)
+                    .post(StringValue.class, StringValue.newBuilder().setValue(MAGIC).build());
+            assertEquals("echo=" + MAGIC, value.getValue());
+        }
+    }
+
     @Test
     public void form() {
         runTests((client, forceError, forceErrorParam) -> {
@@ -335,6 +707,60 @@ public class ClientIntegrationTest {
         });
     }
 
+    @Test
+    public void getAsync() {
+        runTests((client, forceError, forceErrorParam) ->
+            assertEquals(
+                    PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT,
+                    join(request(client, "/get/{pathVariable}", forceError, forceErrorParam).getAsync(TestModel.class))
+                            .getMessage()
+            )
+        );
+    }
+
+    @Test
+    public void postAsyncForMap() {
+        runTests((client, forceError, forceErrorParam) -> {
+            Map<String, List<TestModel>> expected = Collections.singletonMap(
+                    PATH,
+                    singletonList(new TestModel(QUERY_ALL_RESULT + ", " + HEADER_RESULT + ", body=this is a post"))
+            );
+
+            BreezeHttpRequest request = request(client, "/postMap/{pathVariable}", forceError, forceErrorParam);
+            Map<String, List<TestModel>> result = join(request.postAsync(
+                    new BreezeHttpType<Map<String, List<TestModel>>>() {},
+                    "this is a post"
+            ));
+
+            assertEquals(expected, result);
+        });
+    }
+
+    @Test
+    public void executeAsync() {
+        runTests((client, forceError, forceErrorParam) -> {
+            BreezeHttpRequest request = request(client, "/get/{pathVariable}", forceError, forceErrorParam).method(GET);
+            BreezeHttpResponse<TestModel> response = join(request.executeAsync(TestModel.class, null));
+
+            assertEquals(
+                    PATH_RESULT + ", " + QUERY_ALL_RESULT + ", " + HEADER_RESULT,
+                    response.getEntity().getMessage()
+            );
+            assertEquals(200, response.getHttpStatusCode());
+            assertEquals("application/json;charset=UTF-8", response.getFirstHeader("content-type"));
+        });
+    }
+
+    /** Wait for an async result, rethrowing the underlying exception so the error tests can check it. */
+    private static <T> T join(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (RuntimeException e) {
+            Throwable cause = AbstractBaseClient.unwrap(e);
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
     private interface ClientTest {
         void test(BreezeHttpClient client, String forceError, String forceErrorParam) throws Exception;
     }
@@ -512,6 +938,12 @@ public class ClientIntegrationTest {
                 throw new InterruptedException();
             }
         }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, long milliseconds) {
+            sleeps.add(milliseconds);
+            return super.schedule(task, milliseconds);
+        }
     }
 
     private void logTest(String testType, BreezeHttpClient client) {
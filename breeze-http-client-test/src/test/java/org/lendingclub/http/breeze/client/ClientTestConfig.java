@@ -16,10 +16,19 @@
 
 package org.lendingclub.http.breeze.client;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
+import java.util.List;
+
+import org.lendingclub.http.breeze.client.codec.BreezeHttpCodec;
+import org.lendingclub.http.breeze.client.impl.BreezeProtobufCodec;
+import org.lendingclub.http.breeze.client.impl.jackson.BreezeJacksonCodec;
+import org.lendingclub.http.breeze.client.impl.resttemplate.BreezeCodecHttpMessageConverter;
+
 /**
  * Test application config.
  *
@@ -32,4 +41,27 @@ public class ClientTestConfig extends WebMvcConfigurerAdapter {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(new TestInterceptor());
     }
+
+    /** The server reads and writes the same binary formats as the clients. */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BreezeCodecHttpMessageConverter(smileCodec()));
+        converters.add(new BreezeCodecHttpMessageConverter(cborCodec()));
+        converters.add(new BreezeCodecHttpMessageConverter(protobufCodec()));
+    }
+
+    @Bean
+    public BreezeHttpCodec smileCodec() {
+        return BreezeJacksonCodec.smile();
+    }
+
+    @Bean
+    public BreezeHttpCodec cborCodec() {
+        return BreezeJacksonCodec.cbor();
+    }
+
+    @Bean
+    public BreezeHttpCodec protobufCodec() {
+        return new BreezeProtobufCodec();
+    }
 }
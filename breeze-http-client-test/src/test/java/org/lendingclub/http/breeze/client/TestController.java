@@ -16,6 +16,8 @@
 
 package org.lendingclub.http.breeze.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.StringValue;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -27,14 +29,22 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
 
+import org.lendingclub.http.breeze.client.impl.ContentEncoding;
+
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
+import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.HEAD;
 import static org.springframework.web.bind.annotation.RequestMethod.PATCH;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 import static org.springframework.web.bind.annotation.RequestMethod.PUT;
@@ -70,6 +80,8 @@ public class TestController {
     @Autowired
     private HttpServletRequest request;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @RequestMapping(value = "/get/{pathVariable}", method = GET)
     public TestModel get(
             @PathVariable String pathVariable,
@@ -200,6 +212,11 @@ public class TestController {
         return model;
     }
 
+    @RequestMapping(value = "/protobuf", method = POST)
+    public StringValue protobuf(@RequestBody StringValue value) {
+        return StringValue.newBuilder().setValue("echo=" + value.getValue()).build();
+    }
+
     @RequestMapping(value = "/form", method = POST)
     public TestModel form(@ModelAttribute TestModel model) {
         if (!"application/x-www-form-urlencoded".equals(request.getContentType())) {
@@ -230,6 +247,79 @@ public class TestController {
         );
     }
 
+    @RequestMapping(value = "/delete/{pathVariable}", method = DELETE)
+    public TestModel delete(
+            @PathVariable String pathVariable,
+            @RequestParam String queryVariable,
+            @RequestParam TreeSet<String> queryMultiple,
+            @RequestHeader("TestHeader") String header
+    ) {
+        return new ServerTestModel("pathVariable=" + pathVariable
+                + ", queryVariable=" + queryVariable
+                + ", queryMultiple=" + queryMultiple
+                + ", header=" + header);
+    }
+
+    @RequestMapping(value = "/head/{pathVariable}", method = HEAD)
+    public void head(@PathVariable String pathVariable, HttpServletResponse response) {
+        response.setHeader("PathVariable", pathVariable);
+    }
+
+    @RequestMapping(value = "/list", method = GET)
+    public List<TestModel> list(@RequestParam int count) {
+        List<TestModel> models = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            models.add(new ServerTestModel("message" + i));
+        }
+        return models;
+    }
+
+    @RequestMapping(value = "/upload", method = POST)
+    public TestModel upload(HttpServletRequest request) throws IOException {
+        return new ServerTestModel("contentLength=" + request.getContentLength()
+                + ", bytes=" + IOUtils.skip(request.getInputStream(), Long.MAX_VALUE));
+    }
+
+    @RequestMapping(value = "/download/{size}", method = GET)
+    public void download(@PathVariable int size, HttpServletResponse response) throws IOException {
+        response.setContentType("application/octet-stream");
+        byte[] buffer = new byte[8192];
+        OutputStream out = response.getOutputStream();
+        for (int remaining = size; remaining > 0; remaining -= buffer.length) {
+            out.write(buffer, 0, Math.min(remaining, buffer.length));
+        }
+    }
+
+    /**
+     * Decodes the request body as its Content-Encoding says, and encodes the
+     * response with zstd or gzip if the client accepts them.
+     */
+    @RequestMapping(value = "/compressed", method = POST)
+    public void compressed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String contentEncoding = request.getHeader("Content-Encoding");
+        InputStream in = request.getInputStream();
+        ContentEncoding requestEncoding = ContentEncoding.forHeader(contentEncoding);
+        if (requestEncoding != null) {
+            in = requestEncoding.decode(in);
+        }
+        TestModel model = objectMapper.readValue(in, TestModel.class);
+
+        String acceptEncoding = String.valueOf(request.getHeader("Accept-Encoding"));
+        ContentEncoding responseEncoding = acceptEncoding.contains("zstd")
+                ? ContentEncoding.ZSTD
+                : acceptEncoding.contains("gzip") ? ContentEncoding.GZIP : null;
+
+        response.setContentType("application/json;charset=UTF-8");
+        OutputStream out = response.getOutputStream();
+        if (responseEncoding != null) {
+            response.setHeader("Content-Encoding", responseEncoding.getName());
+            out = responseEncoding.encode(out);
+        }
+        objectMapper.writeValue(out, new ServerTestModel("contentEncoding=" + contentEncoding
+                + ", length=" + model.getMessage().length()));
+        out.close();
+    }
+
     @RequestMapping(value = "/ping")
     public String ping() {
         return "pong";